@@ -0,0 +1,123 @@
+package com.sparky.operator.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.fabric8.kubernetes.client.server.mock.KubernetesCrudDispatcher;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import okhttp3.Headers;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * crud-диспетчер mock api-сервера з підтримкою server-side apply, яким оператор пише всі ресурси
+ * crud dispatcher of the mock api server with server-side apply support, which the operator uses for every resource
+ * crud-диспетчер mock api-сервера с поддержкой server-side apply, которым оператор пишет все ресурсы
+ *
+ * mock-сервер 6.8 відповідає 415 на application/apply-patch+yaml; тут apply створює відсутній об'єкт
+ * і замінює в наявному кожне передане поле json patch-ем - тіло від fabric8 є json, а json є валідним yaml;
+ * merge patch mock-сервера дописує елементи списків, тож повторний apply дублював би контейнери та власників
+ * the 6.8 mock server answers application/apply-patch+yaml with 415; here apply creates a missing object
+ * and replaces every applied field of an existing one with a json patch - fabric8 sends a json body, and json is valid yaml;
+ * the mock server's merge patch appends list items, so a repeated apply would duplicate containers and owners
+ * mock-сервер 6.8 отвечает 415 на application/apply-patch+yaml; здесь apply создает отсутствующий объект
+ * и заменяет в существующем каждое переданное поле json patch-ем - тело от fabric8 является json, а json является валидным yaml;
+ * merge patch mock-сервера дописывает элементы списков, поэтому повторный apply дублировал бы контейнеры и владельцев
+ */
+public class ApplyCrudDispatcher extends KubernetesCrudDispatcher {
+    private static final String APPLY_PATCH = "application/apply-patch+yaml";
+    private static final String MERGE_PATCH = "application/merge-patch+json";
+    private static final String JSON_PATCH = "application/json-patch+json";
+    
+    // поля, що ідентифікують об'єкт і не замінюються
+    // fields that identify the object and are not replaced
+    // поля, которые идентифицируют объект и не заменяются
+    private static final Set<String> IDENTITY_FIELDS = Set.of("apiVersion", "kind", "name", "namespace");
+    
+    @Override
+    public MockResponse handlePatch(RecordedRequest request) {
+        String contentType = request.getHeader("Content-Type");
+        if (contentType == null || !contentType.startsWith(APPLY_PATCH)) {
+            return super.handlePatch(request);
+        }
+        
+        String path = request.getPath();
+        String resourcePath = path.indexOf('?') >= 0 ? path.substring(0, path.indexOf('?')) : path;
+        Headers headers = request.getHeaders().newBuilder().set("Content-Type", MERGE_PATCH).build();
+        Headers patchHeaders = request.getHeaders().newBuilder().set("Content-Type", JSON_PATCH).build();
+        Buffer patch = new Buffer().writeUtf8(replaceFields(request.getBody().clone().readUtf8()));
+        
+        // кожен виклик диспетчера бере його блокування, тому відсутність об'єкта видно з відповіді 404, а не з пошуку
+        // every dispatcher call takes its lock, so a missing object is seen from the 404 response rather than a lookup
+        // каждый вызов диспетчера берет его блокировку, поэтому отсутствие объекта видно из ответа 404, а не из поиска
+        MockResponse patched = super.handlePatch(copy(request, request.getRequestLine(), patchHeaders, patch));
+        if (code(patched) != 404 || resourcePath.endsWith("/status")) {
+            return patched;
+        }
+        
+        String collectionPath = resourcePath.substring(0, resourcePath.lastIndexOf('/'));
+        MockResponse created = handleCreate(copy(request, "POST " + collectionPath + " HTTP/1.1", headers, request.getBody()));
+        
+        // інший apply встиг створити об'єкт - застосовуємося до нього
+        // another apply created the object first - apply onto it
+        // другой apply успел создать объект - применяемся к нему
+        if (code(created) == 409) {
+            return super.handlePatch(copy(request, request.getRequestLine(), patchHeaders, patch));
+        }
+        return created;
+    }
+    
+    /**
+     * json patch, що замінює кожне поле верхнього рівня та метаданих, передане в apply
+     * a json patch replacing every top-level and metadata field carried by the apply
+     * json patch, заменяющий каждое поле верхнего уровня и метаданных, переданное в apply
+     */
+    private static String replaceFields(String applied) {
+        ObjectNode object;
+        try {
+            object = (ObjectNode) Serialization.jsonMapper().readTree(applied);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        ArrayNode operations = Serialization.jsonMapper().createArrayNode();
+        object.fields().forEachRemaining(field -> {
+            if ("metadata".equals(field.getKey())) {
+                field.getValue().fields().forEachRemaining(metadataField -> add(operations, "/metadata/", metadataField));
+            } else {
+                add(operations, "/", field);
+            }
+        });
+        return operations.toString();
+    }
+    
+    private static void add(ArrayNode operations, String parent, Map.Entry<String, JsonNode> field) {
+        if (!IDENTITY_FIELDS.contains(field.getKey())) {
+            operations.addObject().put("op", "add").put("path", parent + field.getKey()).set("value", field.getValue());
+        }
+    }
+    
+    private static int code(MockResponse response) {
+        // рядок статусу виду "HTTP/1.1 404 Client Error"
+        // a status line like "HTTP/1.1 404 Client Error"
+        // строка статуса вида "HTTP/1.1 404 Client Error"
+        return Integer.parseInt(response.getStatus().split(" ")[1]);
+    }
+    
+    private static RecordedRequest copy(RecordedRequest request, String requestLine, Headers headers, Buffer body) {
+        try (Socket socket = new Socket()) {
+            return new RecordedRequest(requestLine, headers, Collections.emptyList(), body.size(),
+                    body.clone(), request.getSequenceNumber(), socket);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.sparky.operator.benchmarks;
+
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.crd.SpringBootAppSpec;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * типові аплікації для бенчмарків, схожі на examples/sample-springbootapp.yaml
+ * typical applications for the benchmarks, similar to examples/sample-springbootapp.yaml
+ * типичные приложения для бенчмарков, похожие на examples/sample-springbootapp.yaml
+ */
+public final class BenchmarkFixtures {
+    
+    private BenchmarkFixtures() {
+    }
+    
+    /**
+     * аплікація з двома портами, лімітами ресурсів і, за бажанням, базою даних
+     * application with two ports, resource limits and, optionally, a database
+     * приложение с двумя портами, лимитами ресурсов и, по желанию, базой данных
+     */
+    public static SpringBootApp sampleApp(String namespace, String name, boolean database) {
+        SpringBootAppSpec spec = new SpringBootAppSpec();
+        spec.setImage("my-spring-boot-app:latest");
+        spec.setReplicas(3);
+        
+        Map<String, Integer> ports = new LinkedHashMap<>();
+        ports.put("http", 8080);
+        ports.put("management", 8081);
+        spec.setPorts(ports);
+        
+        SpringBootAppSpec.ResourceLimits resources = new SpringBootAppSpec.ResourceLimits();
+        resources.setCpuRequest("500m");
+        resources.setMemoryRequest("512Mi");
+        resources.setCpuLimit("1000m");
+        resources.setMemoryLimit("1Gi");
+        spec.setResources(resources);
+        
+        SpringBootAppSpec.DatabaseConfig databaseConfig = new SpringBootAppSpec.DatabaseConfig();
+        databaseConfig.setEnabled(database);
+        databaseConfig.setEngine("aurora-mysql");
+        databaseConfig.setInstanceClass("db.t3.medium");
+        databaseConfig.setAllocatedStorage(20);
+        databaseConfig.setMasterUsername("admin");
+        spec.setDatabase(databaseConfig);
+        
+        SpringBootApp app = new SpringBootApp();
+        app.setMetadata(new ObjectMetaBuilder()
+                .withNamespace(namespace)
+                .withName(name)
+                .withGeneration(1L)
+                .build());
+        app.setSpec(spec);
+        return app;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sparky.operator.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * запускає бенчмарки jmh завжди з профайлером gc, щоб бачити алокації на операцію (gc.alloc.rate.norm)
+ * runs the jmh benchmarks always with the gc profiler to report allocation per operation (gc.alloc.rate.norm)
+ * запускает бенчмарки jmh всегда с профайлером gc, чтобы видеть аллокации на операцию (gc.alloc.rate.norm)
+ *
+ * приймає звичайні аргументи jmh, наприклад: java -jar benchmarks.jar RenderBenchmark -f 1 -rf json
+ * accepts the usual jmh arguments, e.g.: java -jar benchmarks.jar RenderBenchmark -f 1 -rf json
+ * принимает обычные аргументы jmh, например: java -jar benchmarks.jar RenderBenchmark -f 1 -rf json
+ */
+public final class BenchmarkMain {
+    
+    private BenchmarkMain() {
+    }
+    
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+            .run();
+    }
+}
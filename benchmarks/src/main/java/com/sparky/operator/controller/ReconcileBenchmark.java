@@ -0,0 +1,128 @@
+package com.sparky.operator.controller;
+
+import com.sparky.operator.benchmarks.BenchmarkFixtures;
+import com.sparky.operator.benchmarks.ApplyCrudDispatcher;
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.config.OperatorConfig;
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.service.DesiredStateFixtures;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.mockwebserver.Context;
+import okhttp3.mockwebserver.MockWebServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * повне примирення однієї аплікації проти mock api-сервера в режимі crud
+ * a full reconcile of one application against a crud-mode mock api server
+ * полное примирение одного приложения против mock api-сервера в режиме crud
+ *
+ * unchanged - ресурси вже в кеші і збігаються, пишеться лише статус;
+ * specChange - кожна операція змінює кількість реплік, тому деплоймент застосовується знову
+ * unchanged - the resources are already cached and match, only the status is written;
+ * specChange - every operation changes the replica count, so the deployment is applied again
+ * unchanged - ресурсы уже в кэше и совпадают, пишется только статус;
+ * specChange - каждая операция меняет количество реплик, поэтому деплоймент применяется снова
+ *
+ * server-side apply на mock-сервері забезпечує ApplyCrudDispatcher
+ * server-side apply on the mock server is provided by ApplyCrudDispatcher
+ * server-side apply на mock-сервере обеспечивает ApplyCrudDispatcher
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReconcileBenchmark {
+    @Param({"unchanged", "specChange"})
+    public String scenario;
+    
+    private KubernetesMockServer server;
+    private KubernetesClient client;
+    private OwnedResourceCache cache;
+    private SpringBootAppController controller;
+    private SpringBootApp app;
+    private int replicas = 1;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                new ApplyCrudDispatcher(), false);
+        server.init();
+        server.expectCustomResource(CustomResourceDefinitionContext.fromCustomResourceType(SpringBootApp.class));
+        client = server.createClient();
+        
+        SpringBootApp sample = BenchmarkFixtures.sampleApp("default", "my-sample-app", false);
+        for (HasMetadata resource : DesiredStateFixtures.desiredResources(sample)) {
+            client.resource(resource).create();
+        }
+        
+        cache = new OwnedResourceCache(client);
+        cache.start();
+        
+        // база даних вимкнена: виклики aws не є частиною цього бенчмарку
+        // the database is disabled: aws calls are not part of this benchmark
+        // база данных выключена: вызовы aws не являются частью этого бенчмарка
+        controller = new SpringBootAppController(client, new OperatorConfig(), cache, key -> { });
+        app = client.resource(sample).create();
+        waitForCache();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        controller.close();
+        cache.stop();
+        client.close();
+        server.destroy();
+    }
+    
+    @Benchmark
+    public ReconcileResult reconcile() {
+        if ("specChange".equals(scenario)) {
+            replicas = replicas % 5 + 1;
+            app.getSpec().setReplicas(replicas);
+        }
+        
+        // нове покоління, щоб контролер не пропустив примирення як вже застосоване
+        // a new generation so the controller does not skip the reconcile as already applied
+        // новое поколение, чтобы контроллер не пропустил примирение как уже примененное
+        app.getMetadata().setGeneration(app.getMetadata().getGeneration() + 1);
+        return controller.reconcile(app);
+    }
+    
+    /**
+     * чекає, поки інформери побачать створені ресурси
+     * waits until the informers see the created resources
+     * ждет, пока информеры увидят созданные ресурсы
+     */
+    private void waitForCache() {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (cache.getDeployment("default", "my-sample-app-app") == null
+                || cache.getService("default", "my-sample-app-service") == null
+                || cache.getConfigMap("default", "my-sample-app-config") == null
+                || cache.getSecret("default", "my-sample-app-secret") == null) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("кеш не отримав ресурси / the cache did not receive the resources");
+            }
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sparky.operator.scale;
+
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.crd.SpringBootAppStatus;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * стежить за статусами аплікацій і міряє час від запису специфікації до її застосування оператором
+ * watches application statuses and measures the time from writing a spec to the operator applying it
+ * следит за статусами приложений и измеряет время от записи спецификации до ее применения оператором
+ *
+ * аплікація збіглася, коли status.observedGeneration досяг записаного покоління, а база даних,
+ * якщо вона є, вже має ендпоінт
+ * an application has converged when status.observedGeneration reached the written generation and its
+ * database, if any, already has an endpoint
+ * приложение сошлось, когда status.observedGeneration достиг записанного поколения, а база данных,
+ * если она есть, уже имеет эндпоинт
+ */
+class ConvergenceTracker implements ResourceEventHandler<SpringBootApp> {
+    // записані зміни, що ще не застосовані, за ключем namespace/name
+    // written changes not applied yet, by namespace/name key
+    // записанные изменения, которые еще не применены, по ключу namespace/name
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    
+    // останній застосований стан кожної аплікації: статус може прийти раніше, ніж expect()
+    // last applied state of every application: the status may arrive before expect()
+    // последнее примененное состояние каждого приложения: статус может прийти раньше, чем expect()
+    private final Map<String, Applied> applied = new ConcurrentHashMap<>();
+    
+    private final List<Long> latenciesNanos = Collections.synchronizedList(new ArrayList<>());
+    
+    /**
+     * реєструє запис покоління, розпочатий у момент writtenAtNanos
+     * registers a write of a generation started at writtenAtNanos
+     * регистрирует запись поколения, начатую в момент writtenAtNanos
+     */
+    void expect(SpringBootApp written, long writtenAtNanos) {
+        String key = Cache.metaNamespaceKeyFunc(written);
+        Pending change = new Pending(written.getMetadata().getGeneration(), writtenAtNanos);
+        pending.put(key, change);
+        
+        Applied state = applied.get(key);
+        if (state != null && state.generation >= change.generation && pending.remove(key, change)) {
+            latenciesNanos.add(Math.max(0, state.atNanos - writtenAtNanos));
+        }
+    }
+    
+    @Override
+    public void onAdd(SpringBootApp app) {
+        observe(app);
+    }
+    
+    @Override
+    public void onUpdate(SpringBootApp oldApp, SpringBootApp newApp) {
+        observe(newApp);
+    }
+    
+    @Override
+    public void onDelete(SpringBootApp app, boolean deletedFinalStateUnknown) {
+        String key = Cache.metaNamespaceKeyFunc(app);
+        pending.remove(key);
+        applied.remove(key);
+    }
+    
+    private void observe(SpringBootApp app) {
+        SpringBootAppStatus status = app.getStatus();
+        if (status == null || status.getObservedGeneration() == null) {
+            return;
+        }
+        
+        boolean database = app.getSpec().getDatabase() != null && app.getSpec().getDatabase().isEnabled();
+        if (database && status.getDatabaseEndpoint() == null) {
+            return;
+        }
+        
+        long now = System.nanoTime();
+        String key = Cache.metaNamespaceKeyFunc(app);
+        applied.put(key, new Applied(status.getObservedGeneration(), now));
+        
+        Pending change = pending.get(key);
+        if (change != null && status.getObservedGeneration() >= change.generation && pending.remove(key, change)) {
+            latenciesNanos.add(now - change.writtenAtNanos);
+        }
+    }
+    
+    int pendingCount() {
+        return pending.size();
+    }
+    
+    /**
+     * чекає, поки всі записані зміни застосовані; false після тайм-ауту
+     * waits until all written changes are applied; false after the timeout
+     * ждет, пока все записанные изменения применены; false после тайм-аута
+     */
+    boolean awaitConverged(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+    
+    /**
+     * забирає виміряні затримки в мілісекундах, відсортовані за зростанням
+     * takes the measured latencies in milliseconds, sorted ascending
+     * забирает измеренные задержки в миллисекундах, отсортированные по возрастанию
+     */
+    long[] drainLatenciesMillis() {
+        long[] result;
+        synchronized (latenciesNanos) {
+            result = latenciesNanos.stream().mapToLong(TimeUnit.NANOSECONDS::toMillis).sorted().toArray();
+            latenciesNanos.clear();
+        }
+        return result;
+    }
+    
+    private static final class Pending {
+        private final long generation;
+        private final long writtenAtNanos;
+        
+        Pending(Long generation, long writtenAtNanos) {
+            this.generation = generation != null ? generation : 1L;
+            this.writtenAtNanos = writtenAtNanos;
+        }
+    }
+    
+    private static final class Applied {
+        private final long generation;
+        private final long atNanos;
+        
+        Applied(long generation, long atNanos) {
+            this.generation = generation;
+            this.atNanos = atNanos;
+        }
+    }
+}
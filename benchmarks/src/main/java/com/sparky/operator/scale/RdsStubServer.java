@@ -0,0 +1,227 @@
+package com.sparky.operator.scale;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * заглушка query api rds: DescribeDBInstances зі сторінками, CreateDBInstance і DeleteDBInstance
+ * stub of the rds query api: paginated DescribeDBInstances, CreateDBInstance and DeleteDBInstance
+ * заглушка query api rds: DescribeDBInstances со страницами, CreateDBInstance и DeleteDBInstance
+ *
+ * інстанс стає available через заданий час після створення, як справжній, лише швидше
+ * an instance becomes available a set time after creation, like a real one, only faster
+ * инстанс становится available через заданное время после создания, как настоящий, только быстрее
+ */
+public class RdsStubServer implements AutoCloseable {
+    private static final String NAMESPACE = "http://rds.amazonaws.com/doc/2014-10-31/";
+    
+    private final HttpServer server;
+    private final long provisionMillis;
+    
+    // відсортовані за ідентифікатором, щоб маркер сторінки був просто останнім ідентифікатором
+    // sorted by identifier so the page marker is simply the last identifier
+    // отсортированы по идентификатору, чтобы маркер страницы был просто последним идентификатором
+    private final ConcurrentSkipListMap<String, Instance> instances = new ConcurrentSkipListMap<>();
+    
+    private final AtomicLong requests = new AtomicLong();
+    
+    public RdsStubServer(long provisionMillis) throws IOException {
+        this.provisionMillis = provisionMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "rds-stub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        this.server.start();
+    }
+    
+    public String endpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    public long requestCount() {
+        return requests.get();
+    }
+    
+    public int instanceCount() {
+        return instances.size();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        Map<String, String> params = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String action = params.getOrDefault("Action", "");
+        
+        try {
+            switch (action) {
+                case "DescribeDBInstances":
+                    reply(exchange, 200, describe(params));
+                    break;
+                case "CreateDBInstance":
+                    create(exchange, params);
+                    break;
+                case "DeleteDBInstance":
+                    delete(exchange, params);
+                    break;
+                default:
+                    reply(exchange, 400, error("InvalidAction", "unsupported action " + action));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private String describe(Map<String, String> params) {
+        int maxRecords = Integer.parseInt(params.getOrDefault("MaxRecords", "100"));
+        String marker = params.get("Marker");
+        Map<String, Instance> tail = marker == null ? instances : instances.tailMap(marker, false);
+        
+        // фільтр db-instance-id, як його шле шардована репліка
+        // the db-instance-id filter as a sharded replica sends it
+        // фильтр db-instance-id, как его шлет шардированная реплика
+        Set<String> identifiers = null;
+        if ("db-instance-id".equals(params.get("Filters.Filter.1.Name"))) {
+            identifiers = new HashSet<>();
+            for (int i = 1; params.containsKey("Filters.Filter.1.Values.Value." + i); i++) {
+                identifiers.add(params.get("Filters.Filter.1.Values.Value." + i));
+            }
+        }
+        
+        StringBuilder body = new StringBuilder();
+        String lastId = null;
+        int count = 0;
+        for (Instance instance : tail.values()) {
+            if (identifiers != null && !identifiers.contains(instance.identifier)) {
+                continue;
+            }
+            if (count == maxRecords) {
+                break;
+            }
+            instance.appendTo(body, provisionMillis);
+            lastId = instance.identifier;
+            count++;
+        }
+        
+        String nextMarker = lastId != null && instances.higherKey(lastId) != null && count == maxRecords
+                ? "<Marker>" + lastId + "</Marker>" : "";
+        return response("DescribeDBInstances", "<DBInstances>" + body + "</DBInstances>" + nextMarker);
+    }
+    
+    private void create(HttpExchange exchange, Map<String, String> params) throws IOException {
+        String identifier = params.get("DBInstanceIdentifier");
+        Map<String, String> tags = new LinkedHashMap<>();
+        for (int i = 1; params.containsKey("Tags.Tag." + i + ".Key"); i++) {
+            tags.put(params.get("Tags.Tag." + i + ".Key"), params.get("Tags.Tag." + i + ".Value"));
+        }
+        
+        Instance instance = new Instance(identifier, tags, System.currentTimeMillis());
+        if (instances.putIfAbsent(identifier, instance) != null) {
+            reply(exchange, 400, error("DBInstanceAlreadyExists", "DB instance already exists"));
+            return;
+        }
+        
+        StringBuilder body = new StringBuilder();
+        instance.appendTo(body, provisionMillis);
+        reply(exchange, 200, response("CreateDBInstance", body.toString()));
+    }
+    
+    private void delete(HttpExchange exchange, Map<String, String> params) throws IOException {
+        Instance instance = instances.remove(params.get("DBInstanceIdentifier"));
+        if (instance == null) {
+            reply(exchange, 404, error("DBInstanceNotFound", "DB instance not found"));
+            return;
+        }
+        
+        StringBuilder body = new StringBuilder();
+        instance.appendTo(body, provisionMillis);
+        reply(exchange, 200, response("DeleteDBInstance", body.toString()));
+    }
+    
+    private static String response(String action, String result) {
+        return "<" + action + "Response xmlns=\"" + NAMESPACE + "\">"
+                + "<" + action + "Result>" + result + "</" + action + "Result>"
+                + "<ResponseMetadata><RequestId>" + UUID.randomUUID() + "</RequestId></ResponseMetadata>"
+                + "</" + action + "Response>";
+    }
+    
+    private static String error(String code, String message) {
+        return "<ErrorResponse xmlns=\"" + NAMESPACE + "\"><Error><Type>Sender</Type>"
+                + "<Code>" + code + "</Code><Message>" + message + "</Message></Error>"
+                + "<RequestId>" + UUID.randomUUID() + "</RequestId></ErrorResponse>";
+    }
+    
+    private static void reply(HttpExchange exchange, int code, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/xml");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static Map<String, String> parseForm(String form) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+    
+    /**
+     * інстанс заглушки; стан обчислюється з часу створення
+     * stub instance; the state is derived from the creation time
+     * инстанс заглушки; состояние вычисляется из времени создания
+     */
+    private static final class Instance {
+        private final String identifier;
+        private final Map<String, String> tags;
+        private final long createdAt;
+        
+        Instance(String identifier, Map<String, String> tags, long createdAt) {
+            this.identifier = identifier;
+            this.tags = tags;
+            this.createdAt = createdAt;
+        }
+        
+        void appendTo(StringBuilder xml, long provisionMillis) {
+            boolean available = System.currentTimeMillis() - createdAt >= provisionMillis;
+            xml.append("<DBInstance><DBInstanceIdentifier>").append(identifier).append("</DBInstanceIdentifier>")
+                    .append("<DBInstanceStatus>").append(available ? "available" : "creating").append("</DBInstanceStatus>");
+            if (available) {
+                xml.append("<Endpoint><Address>").append(identifier).append(".stub.rds.local</Address><Port>3306</Port></Endpoint>");
+            }
+            
+            List<String> tagXml = new ArrayList<>();
+            tags.forEach((key, value) -> tagXml.add("<Tag><Key>" + key + "</Key><Value>" + value + "</Value></Tag>"));
+            xml.append("<TagList>").append(String.join("", tagXml)).append("</TagList></DBInstance>");
+        }
+    }
+}
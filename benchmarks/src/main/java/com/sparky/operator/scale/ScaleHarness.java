@@ -0,0 +1,630 @@
+package com.sparky.operator.scale;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import com.sparky.operator.SparkyOperator;
+import com.sparky.operator.benchmarks.ApplyCrudDispatcher;
+import com.sparky.operator.benchmarks.BenchmarkFixtures;
+import com.sparky.operator.cache.PruningItemStore;
+import com.sparky.operator.config.OperatorConfig;
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.metrics.KubernetesMetricsInterceptor;
+import com.sparky.operator.metrics.OperatorMetrics;
+import com.sparky.operator.metrics.RequestAccounting;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.base.CustomResourceDefinitionContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.mockwebserver.Context;
+import io.prometheus.client.Collector;
+import io.prometheus.client.Counter;
+import okhttp3.mockwebserver.MockWebServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * навантажувальний прогін справжнього SparkyOperator проти mock api-сервера в режимі crud і заглушки rds
+ * load run of the real SparkyOperator against a crud-mode mock api server and an rds stub
+ * нагрузочный прогон настоящего SparkyOperator против mock api-сервера в режиме crud и заглушки rds
+ *
+ * фаза 1: створює N аплікацій, запускає оператор і міряє час до збіжності;
+ * фаза 2: змінює специфікації з заданою швидкістю і міряє затримку від запису до застосування;
+ * фаза 3: змінює створені деплойменти в обхід оператора і міряє час до їх виправлення;
+ * фаза 4: перезапускає оператор і рахує його запити до api
+ * phase 1: creates N applications, starts the operator and measures the time to converge;
+ * phase 2: changes specs at a given rate and measures the latency from write to apply;
+ * phase 3: edits created deployments behind the operator's back and measures the time until they are repaired;
+ * phase 4: restarts the operator and counts its api requests
+ * фаза 1: создает N приложений, запускает оператор и измеряет время до сходимости;
+ * фаза 2: меняет спецификации с заданной скоростью и измеряет задержку от записи до применения;
+ * фаза 3: меняет созданные деплойменты в обход оператора и измеряет время до их исправления;
+ * фаза 4: перезапускает оператор и считает его запросы к api
+ *
+ * приклад / example / пример:
+ * java -Xmx8g -cp benchmarks.jar com.sparky.operator.scale.ScaleHarness --apps=10000 --churn-rate=100
+ */
+public class ScaleHarness implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ScaleHarness.class);
+    
+    // скільки специфікацій змінити, поки оператор зупинено у фазі перезапуску
+    // how many specs to change while the operator is stopped in the restart phase
+    // сколько спецификаций изменить, пока оператор остановлен в фазе перезапуска
+    private static final int RESTART_EDITS = 10;
+    
+    // мітка аплікацій галасливого тенанта, щоб прибрати їх після фази
+    // label of the noisy tenant's applications, to remove them after the phase
+    // метка приложений шумного тенанта, чтобы убрать их после фазы
+    private static final String NOISY_LABEL = "scale.sparky.com/noisy";
+    
+    private final ScaleOptions options;
+    private final Random random;
+    private final KubernetesMockServer server;
+    private final RdsStubServer rds;
+    private final KubernetesClient client;
+    private final ConvergenceTracker tracker = new ConvergenceTracker();
+    private final List<SpringBootApp> apps = new ArrayList<>();
+    
+    private SparkyOperator operator;
+    private SharedIndexInformer<SpringBootApp> informer;
+    
+    public ScaleHarness(ScaleOptions options) throws Exception {
+        this.options = options;
+        this.random = new Random(options.seed);
+        this.server = new KubernetesMockServer(new Context(), new MockWebServer(), new HashMap<>(),
+                new ApplyCrudDispatcher(), false);
+        this.server.init();
+        this.server.expectCustomResource(CustomResourceDefinitionContext.fromCustomResourceType(SpringBootApp.class));
+        this.rds = new RdsStubServer(options.rdsProvisionMillis);
+        
+        // клієнт прогону: створює й змінює аплікації та стежить за їх статусом
+        // the harness client: creates and changes applications and watches their status
+        // клиент прогона: создает и меняет приложения и следит за их статусом
+        this.client = server.createClient();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        ScaleOptions options = ScaleOptions.parse(args);
+        
+        // журнал оператора на кожну аплікацію перекрив би звіт
+        // the operator's per-application log would drown the report
+        // журнал оператора на каждое приложение перекрыл бы отчет
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext) {
+            ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+            ((LoggerContext) LoggerFactory.getILoggerFactory()).getLogger(ScaleHarness.class).setLevel(Level.INFO);
+        }
+        
+        // sdk aws вимагає облікові дані навіть для заглушки
+        // the aws sdk requires credentials even for the stub
+        // sdk aws требует учетные данные даже для заглушки
+        System.setProperty("aws.accessKeyId", System.getProperty("aws.accessKeyId", "stub"));
+        System.setProperty("aws.secretAccessKey", System.getProperty("aws.secretAccessKey", "stub"));
+        System.setProperty("aws.region", System.getProperty("aws.region", "us-east-1"));
+        
+        try (ScaleHarness harness = new ScaleHarness(options)) {
+            harness.run(System.out);
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * виконує фази і друкує звіт
+     * runs the phases and prints the report
+     * выполняет фазы и печатает отчет
+     */
+    public void run(PrintStream out) throws Exception {
+        out.println("scale run: " + options);
+        
+        createApps();
+        informer = client.resources(SpringBootApp.class).inAnyNamespace().inform(tracker);
+        long heapBefore = usedHeap();
+        
+        // фаза 1: початкова синхронізація всіх аплікацій
+        // phase 1: initial sync of all applications
+        // фаза 1: начальная синхронизация всех приложений
+        logger.info("запуск оператора для {} аплікацій", apps.size()); // starting the operator for the applications
+        Snapshot start = Snapshot.take(rds);
+        long startNanos = System.nanoTime();
+        operator = new SparkyOperator(operatorClient(), operatorConfig());
+        operator.start();
+        boolean converged = tracker.awaitConverged(options.timeoutSeconds, TimeUnit.SECONDS);
+        double convergeSeconds = (System.nanoTime() - startNanos) / 1e9;
+        Snapshot initial = Snapshot.take(rds);
+        long[] initialLatencies = tracker.drainLatenciesMillis();
+        long heapAfter = usedHeap();
+        
+        out.println();
+        out.println("== initial sync ==");
+        if (!converged) {
+            out.println("NOT CONVERGED: " + tracker.pendingCount() + " apps pending after " + options.timeoutSeconds + " s");
+        }
+        out.printf("time to converge:        %.1f s%n", convergeSeconds);
+        out.printf("reconciles/sec:          %.1f%n", (initial.reconciles - start.reconciles) / convergeSeconds);
+        out.printf("create-to-ready p50/p99: %d / %d ms%n", percentile(initialLatencies, 0.50), percentile(initialLatencies, 0.99));
+        printRequests(out, start, initial);
+        out.printf("heap used:               %d MiB (operator share ~%d MiB; the mock server shares the jvm)%n",
+                heapAfter >> 20, (heapAfter - heapBefore) >> 20);
+        printCacheFootprint(out);
+        
+        if (options.churnSeconds > 0 && options.churnRate > 0) {
+            runChurn(out);
+        }
+        if (options.driftEdits > 0) {
+            runDrift(out);
+        }
+        if (options.noisyApps > 0 && options.noisyRate > 0 && options.churnRate > 0) {
+            runNoisy(out);
+        }
+        if (options.restart) {
+            runRestart(out);
+        }
+    }
+    
+    /**
+     * фаза 2: постійні зміни специфікацій
+     * phase 2: steady spec churn
+     * фаза 2: постоянные изменения спецификаций
+     */
+    private void runChurn(PrintStream out) throws InterruptedException {
+        Snapshot initial = Snapshot.take(rds);
+        logger.info("зміни специфікацій: {}/с протягом {} с", options.churnRate, options.churnSeconds); // spec churn rate and duration
+        long churnStart = System.nanoTime();
+        int changes = churn(apps, options.churnSeconds);
+        boolean converged = tracker.awaitConverged(options.timeoutSeconds, TimeUnit.SECONDS);
+        double churnElapsed = (System.nanoTime() - churnStart) / 1e9;
+        Snapshot churned = Snapshot.take(rds);
+        long[] churnLatencies = tracker.drainLatenciesMillis();
+        
+        out.println();
+        out.println("== churn ==");
+        if (!converged) {
+            out.println("NOT CONVERGED: " + tracker.pendingCount() + " apps pending after " + options.timeoutSeconds + " s");
+        }
+        out.printf("spec changes:            %d in %.1f s%n", changes, churnElapsed);
+        out.printf("reconciles/sec:          %.1f%n", (churned.reconciles - initial.reconciles) / churnElapsed);
+        out.printf("event-to-reconcile p50/p99/max: %d / %d / %d ms%n", percentile(churnLatencies, 0.50),
+                percentile(churnLatencies, 0.99), percentile(churnLatencies, 1.0));
+        printRequests(out, initial, churned);
+        out.printf("heap used:               %d MiB%n", usedHeap() >> 20);
+    }
+    
+    /**
+     * фаза 3: ручні зміни створених деплойментів в обхід оператора і час до їх виправлення
+     * phase 3: manual edits of created deployments behind the operator's back and the time until they are repaired
+     * фаза 3: ручные изменения созданных деплойментов в обход оператора и время до их исправления
+     */
+    private void runDrift(PrintStream out) throws InterruptedException {
+        logger.info("ручні зміни {} деплойментів", options.driftEdits); // manual edits of deployments
+        Snapshot before = Snapshot.take(rds);
+        long[] repairs = new long[options.driftEdits];
+        int unrepaired = 0;
+        
+        for (int i = 0; i < options.driftEdits; i++) {
+            SpringBootApp app = apps.get(random.nextInt(apps.size()));
+            String namespace = app.getMetadata().getNamespace();
+            String name = app.getMetadata().getName() + "-app";
+            Integer desired = client.resources(SpringBootApp.class).inNamespace(namespace)
+                    .withName(app.getMetadata().getName()).get().getSpec().getReplicas();
+            
+            // json patch без resourceVersion, як kubectl scale: не конфліктує з записами оператора
+            // json patch without a resourceVersion, like kubectl scale: does not conflict with the operator's writes
+            // json patch без resourceVersion, как kubectl scale: не конфликтует с записями оператора
+            long editedAt = System.nanoTime();
+            client.apps().deployments().inNamespace(namespace).withName(name)
+                    .patch(PatchContext.of(PatchType.JSON), "[{\"op\":\"replace\",\"path\":\"/spec/replicas\",\"value\":0}]");
+            repairs[i] = awaitReplicas(namespace, name, desired, editedAt);
+            if (repairs[i] < 0) {
+                repairs[i] = Long.MAX_VALUE;
+                unrepaired++;
+            }
+        }
+        Arrays.sort(repairs);
+        Snapshot after = Snapshot.take(rds);
+        
+        out.println();
+        out.println("== drift ==");
+        if (unrepaired > 0) {
+            out.println("NOT REPAIRED: " + unrepaired + " deployments after " + options.timeoutSeconds + " s");
+        }
+        out.printf("deployments edited:      %d%n", repairs.length);
+        out.printf("edit-to-repair p50/p99/max: %d / %d / %d ms%n", percentile(repairs, 0.50),
+                percentile(repairs, 0.99), percentile(repairs, 1.0));
+        printRequests(out, before, after);
+    }
+    
+    /**
+     * фаза 4: перезапуск оператора над уже збіжним кластером; кожна аплікація примирюється, але нічого не пишеться
+     * phase 4: operator restart over an already converged cluster; every application is reconciled but nothing is written
+     * фаза 4: перезапуск оператора над уже сошедшимся кластером; каждое приложение примиряется, но ничего не пишется
+     */
+    private void runRestart(PrintStream out) throws InterruptedException {
+        logger.info("перезапуск оператора"); // restarting the operator
+        operator.stop();
+        
+        // поки оператор зупинено, частина специфікацій змінюється - вони мають пройти раніше за збіжні аплікації
+        // while the operator is stopped some specs change - they must go ahead of the converged applications
+        // пока оператор остановлен, часть спецификаций меняется - они должны пройти раньше сошедшихся приложений
+        int edits = Math.min(RESTART_EDITS, apps.size());
+        for (int i = 0; i < edits; i++) {
+            SpringBootApp app = apps.get(random.nextInt(apps.size()));
+            tracker.expect(editReplicas(app), System.nanoTime());
+        }
+        
+        Snapshot before = Snapshot.take(rds);
+        long startNanos = System.nanoTime();
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        operator = new SparkyOperator(operatorClient(), operatorConfig());
+        operator.start();
+        boolean changedConverged = tracker.awaitConverged(options.timeoutSeconds, TimeUnit.SECONDS);
+        double changedElapsed = (System.nanoTime() - startNanos) / 1e9;
+        while (Snapshot.take(rds).reconciles - before.reconciles < apps.size() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        Snapshot after = Snapshot.take(rds);
+        tracker.drainLatenciesMillis();
+        
+        out.println();
+        out.println("== restart ==");
+        if (!changedConverged) {
+            out.println("NOT CONVERGED: " + tracker.pendingCount() + " changed apps pending after " + options.timeoutSeconds + " s");
+        }
+        out.printf("changed while down:      %d converged in %.1f s%n", edits, changedElapsed);
+        out.printf("reconciles:              %.0f in %.1f s%n", after.reconciles - before.reconciles, elapsed);
+        printRequests(out, before, after);
+    }
+    
+    /**
+     * фаза 4: галасливий тенант масово створює аплікації в одному просторі імен, решта тенантів змінює свої;
+     * справедлива черга має тримати затримку решти близькою до звичайної
+     * phase 4: a noisy tenant mass-creates applications in one namespace while the other tenants edit theirs;
+     * the fair queue should keep the others' latency close to normal
+     * фаза 4: шумный тенант массово создает приложения в одном пространстве имен, остальные тенанты меняют свои;
+     * справедливая очередь должна держать задержку остальных близкой к обычной
+     */
+    private void runNoisy(PrintStream out) throws Exception {
+        String noisy = apps.get(0).getMetadata().getNamespace();
+        List<SpringBootApp> quiet = new ArrayList<>();
+        for (SpringBootApp app : apps) {
+            if (!noisy.equals(app.getMetadata().getNamespace())) {
+                quiet.add(app);
+            }
+        }
+        
+        logger.info("галасливий тенант: {} аплікацій у {} по {}/с", options.noisyApps, noisy, options.noisyRate); // noisy tenant
+        Snapshot before = Snapshot.take(rds);
+        long startNanos = System.nanoTime();
+        ExecutorService creator = Executors.newSingleThreadExecutor();
+        Future<?> created = creator.submit(() -> {
+            createNoisy(noisy);
+            return null;
+        });
+        int changes = churn(quiet, Math.max(1, options.noisyApps / options.noisyRate));
+        created.get();
+        creator.shutdown();
+        boolean converged = tracker.awaitConverged(options.timeoutSeconds, TimeUnit.SECONDS);
+        long[] latencies = tracker.drainLatenciesMillis();
+        
+        // галасливі аплікації збігаються після всіх змін решти тенантів
+        // the noisy applications converge after all the edits of the other tenants
+        // шумные приложения сходятся после всех изменений остальных тенантов
+        long deadline = startNanos + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        while (observedNoisy(noisy) < options.noisyApps && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(200);
+        }
+        double noisyElapsed = (System.nanoTime() - startNanos) / 1e9;
+        Snapshot after = Snapshot.take(rds);
+        
+        out.println();
+        out.println("== noisy tenant ==");
+        if (!converged) {
+            out.println("NOT CONVERGED: " + tracker.pendingCount() + " apps pending after " + options.timeoutSeconds + " s");
+        }
+        out.printf("noisy apps:              %d in %s, all reconciled after %.1f s%n", options.noisyApps, noisy, noisyElapsed);
+        out.printf("other tenants' edits:    %d, event-to-reconcile p50/p99/max: %d / %d / %d ms%n", changes,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 1.0));
+        printRequests(out, before, after);
+        
+        client.resources(SpringBootApp.class).inNamespace(noisy).withLabel(NOISY_LABEL, "true").delete();
+    }
+    
+    private void createNoisy(String namespace) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.noisyRate;
+        long next = System.nanoTime();
+        for (int i = 0; i < options.noisyApps; i++) {
+            SpringBootApp app = BenchmarkFixtures.sampleApp(namespace, "noisy-" + i, false);
+            app.getMetadata().setGeneration(null);
+            app.getMetadata().setLabels(new HashMap<>(Map.of(NOISY_LABEL, "true")));
+            client.resource(app).create();
+            
+            next += intervalNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+    }
+    
+    private int observedNoisy(String namespace) {
+        int observed = 0;
+        for (SpringBootApp app : client.resources(SpringBootApp.class).inNamespace(namespace).withLabel(NOISY_LABEL, "true").list().getItems()) {
+            if (app.getStatus() != null && app.getStatus().getObservedGeneration() != null) {
+                observed++;
+            }
+        }
+        return observed;
+    }
+    
+    /**
+     * чекає, доки оператор поверне деплойменту бажану кількість реплік
+     * waits until the operator restores the desired replica count of a deployment
+     * ждет, пока оператор вернет деплойменту желаемое количество реплик
+     *
+     * @return мілісекунди від зміни до виправлення або -1 після тайм-ауту /
+     *         milliseconds from the edit to the repair or -1 after the timeout /
+     *         миллисекунды от изменения до исправления или -1 после тайм-аута
+     */
+    private long awaitReplicas(String namespace, String name, Integer desired, long editedAt) throws InterruptedException {
+        long deadline = editedAt + TimeUnit.SECONDS.toNanos(options.timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            if (Objects.equals(desired, client.apps().deployments().inNamespace(namespace).withName(name).get().getSpec().getReplicas())) {
+                return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - editedAt);
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return -1;
+    }
+    
+    /**
+     * створює аплікації паралельно, рівномірно по просторах імен
+     * creates the applications in parallel, spread evenly across namespaces
+     * создает приложения параллельно, равномерно по пространствам имен
+     */
+    private void createApps() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<SpringBootApp>> created = new ArrayList<>();
+            for (int i = 0; i < options.apps; i++) {
+                boolean database = random.nextDouble() < options.databaseFraction;
+                SpringBootApp app = BenchmarkFixtures.sampleApp("scale-" + (i % options.namespaces), "app-" + i, database);
+                app.getMetadata().setGeneration(null);
+                
+                // аплікації зазвичай створює kubectl apply, що лишає повну копію об'єкта в анотації
+                // applications are usually created by kubectl apply, which leaves a full copy of the object in an annotation
+                // приложения обычно создает kubectl apply, который оставляет полную копию объекта в аннотации
+                app.getMetadata().setAnnotations(new HashMap<>(Map.of(PruningItemStore.LAST_APPLIED_ANNOTATION,
+                        Serialization.asJson(app))));
+                created.add(executor.submit(() -> {
+                    long writtenAt = System.nanoTime();
+                    SpringBootApp result = client.resource(app).create();
+                    tracker.expect(result, writtenAt);
+                    return result;
+                }));
+            }
+            for (Future<SpringBootApp> future : created) {
+                apps.add(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("створено {} аплікацій у {} просторах імен", apps.size(), options.namespaces); // applications created
+    }
+    
+    /**
+     * змінює кількість реплік випадкових аплікацій з заданою швидкістю; кожна зміна дає нове покоління
+     * changes the replica count of random applications at the given rate; every change makes a new generation
+     * меняет количество реплик случайных приложений с заданной скоростью; каждое изменение дает новое поколение
+     */
+    private int churn(List<SpringBootApp> targets, int seconds) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.churnRate;
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long next = System.nanoTime();
+        int changes = 0;
+        
+        while (next < end) {
+            SpringBootApp app = targets.get(random.nextInt(targets.size()));
+            long writtenAt = System.nanoTime();
+            SpringBootApp updated = editReplicas(app);
+            tracker.expect(updated, writtenAt);
+            changes++;
+            
+            next += intervalNanos;
+            long sleep = next - System.nanoTime();
+            if (sleep > 0) {
+                TimeUnit.NANOSECONDS.sleep(sleep);
+            }
+        }
+        return changes;
+    }
+    
+    private SpringBootApp editReplicas(SpringBootApp app) {
+        while (true) {
+            try {
+                return client.resources(SpringBootApp.class)
+                        .inNamespace(app.getMetadata().getNamespace())
+                        .withName(app.getMetadata().getName())
+                        .edit(current -> {
+                            current.getSpec().setReplicas(current.getSpec().getReplicas() % 5 + 1);
+                            return current;
+                        });
+            } catch (KubernetesClientException e) {
+                // оператор записав статус між читанням і записом - читаємо знову
+                // the operator wrote the status between the read and the write - read again
+                // оператор записал статус между чтением и записью - читаем снова
+                if (e.getCode() != 409) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    private KubernetesClient operatorClient() {
+        // лише запити оператора потрапляють у його метрики
+        // only the operator's requests reach its metrics
+        // только запросы оператора попадают в его метрики
+        return server.createClient(builder -> builder.withHttpClientBuilderConsumer(httpClient ->
+                httpClient.addOrReplaceInterceptor(KubernetesMetricsInterceptor.NAME, new KubernetesMetricsInterceptor())));
+    }
+    
+    private OperatorConfig operatorConfig() {
+        OperatorConfig config = new OperatorConfig();
+        config.setWorkerThreads(options.workers);
+        config.setExecutorMode(options.executor);
+        config.setMetricsPort(0);
+        config.setRdsEndpoint(rds.endpoint());
+        config.setDatabasePollSeconds(options.rdsPollSeconds);
+        config.setCachePrune(options.cachePrune);
+        config.setInitialSyncRate(options.initialSyncRate);
+        config.setResyncSeconds(options.resyncSeconds);
+        if (options.namespaceInformers) {
+            List<String> namespaces = new ArrayList<>();
+            for (int i = 0; i < options.namespaces; i++) {
+                namespaces.add("scale-" + i);
+            }
+            config.setWatchNamespaces(namespaces);
+        }
+        return config;
+    }
+    
+    private static void printCacheFootprint(PrintStream out) {
+        StringBuilder bytes = new StringBuilder();
+        for (Collector.MetricFamilySamples family : OperatorMetrics.CACHE_OBJECT_BYTES.collect()) {
+            for (Collector.MetricFamilySamples.Sample sample : family.samples) {
+                bytes.append(' ').append(sample.labelValues.get(0)).append('=').append(Math.round(sample.value));
+            }
+        }
+        out.printf("cache bytes/object:      %s%n", bytes);
+    }
+    
+    private void printRequests(PrintStream out, Snapshot from, Snapshot to) {
+        StringBuilder byVerb = new StringBuilder();
+        long total = delta(from.kubernetesByVerb, to.kubernetesByVerb, byVerb);
+        StringBuilder byCaller = new StringBuilder();
+        delta(from.kubernetesByCaller, to.kubernetesByCaller, byCaller);
+        out.printf("api requests/app:        %.2f (%d total:%s)%n", (double) total / apps.size(), total, byVerb);
+        out.printf("api requests by caller: %s%n", byCaller);
+        
+        // запити, що їх зробили самі примирення, без інформерів і фонового опитування
+        // requests made by the reconciles themselves, without informers and background polling
+        // запросы, которые сделали сами примирения, без информеров и фонового опроса
+        double reconciles = to.reconcileCount - from.reconcileCount;
+        out.printf("api requests/reconcile:  %.2f kubernetes, %.2f aws%n",
+                reconciles == 0 ? 0.0 : (to.reconcileKubernetes - from.reconcileKubernetes) / reconciles,
+                reconciles == 0 ? 0.0 : (to.reconcileAws - from.reconcileAws) / reconciles);
+        out.printf("rds requests:            %d%n", to.rdsRequests - from.rdsRequests);
+    }
+    
+    private static long delta(Map<String, Double> from, Map<String, Double> to, StringBuilder out) {
+        long total = 0;
+        for (Map.Entry<String, Double> entry : to.entrySet()) {
+            long count = Math.round(entry.getValue() - from.getOrDefault(entry.getKey(), 0.0));
+            total += count;
+            if (count > 0) {
+                out.append(' ').append(entry.getKey()).append('=').append(count);
+            }
+        }
+        return total;
+    }
+    
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+    
+    private static long usedHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+    
+    @Override
+    public void close() {
+        if (operator != null) {
+            operator.stop();
+        }
+        if (informer != null) {
+            informer.stop();
+        }
+        client.close();
+        rds.close();
+        server.destroy();
+    }
+    
+    /**
+     * лічильники оператора і заглушки rds на момент часу
+     * operator and rds stub counters at a point in time
+     * счетчики оператора и заглушки rds на момент времени
+     */
+    private static final class Snapshot {
+        private final double reconciles;
+        private final Map<String, Double> kubernetesByVerb;
+        private final Map<String, Double> kubernetesByCaller;
+        private final double reconcileCount;
+        private final double reconcileKubernetes;
+        private final double reconcileAws;
+        private final long rdsRequests;
+        
+        private Snapshot(RdsStubServer rds) {
+            this.reconciles = sum(OperatorMetrics.RECONCILE_TOTAL);
+            this.kubernetesByVerb = sumBy(OperatorMetrics.KUBERNETES_REQUESTS, "verb");
+            this.kubernetesByCaller = sumBy(OperatorMetrics.KUBERNETES_REQUESTS, "caller");
+            this.reconcileCount = histogram(RequestAccounting.KUBERNETES, "_count");
+            this.reconcileKubernetes = histogram(RequestAccounting.KUBERNETES, "_sum");
+            this.reconcileAws = histogram(RequestAccounting.AWS, "_sum");
+            this.rdsRequests = rds.requestCount();
+        }
+        
+        static Snapshot take(RdsStubServer rds) {
+            return new Snapshot(rds);
+        }
+        
+        private static double histogram(String api, String suffix) {
+            for (Collector.MetricFamilySamples family : OperatorMetrics.RECONCILE_API_REQUESTS.collect()) {
+                for (Collector.MetricFamilySamples.Sample sample : family.samples) {
+                    if (sample.name.endsWith(suffix) && sample.labelValues.get(0).equals(api)) {
+                        return sample.value;
+                    }
+                }
+            }
+            return 0;
+        }
+        
+        private static double sum(Counter counter) {
+            return sumBy(counter, null).values().stream().mapToDouble(Double::doubleValue).sum();
+        }
+        
+        private static Map<String, Double> sumBy(Counter counter, String label) {
+            Map<String, Double> sums = new TreeMap<>();
+            for (Collector.MetricFamilySamples family : counter.collect()) {
+                for (Collector.MetricFamilySamples.Sample sample : family.samples) {
+                    if (!sample.name.endsWith("_total")) {
+                        continue;
+                    }
+                    String key = label == null ? "" : sample.labelValues.get(sample.labelNames.indexOf(label));
+                    sums.merge(key, sample.value, Double::sum);
+                }
+            }
+            return sums;
+        }
+    }
+}
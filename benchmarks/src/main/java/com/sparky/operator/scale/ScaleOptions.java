@@ -0,0 +1,170 @@
+package com.sparky.operator.scale;
+
+/**
+ * параметри навантажувального прогону з аргументів виду --apps=10000
+ * load run parameters from arguments like --apps=10000
+ * параметры нагрузочного прогона из аргументов вида --apps=10000
+ */
+public class ScaleOptions {
+    // кількість аплікацій і просторів імен, між якими вони розподілені
+    // number of applications and the namespaces they are spread across
+    // количество приложений и пространств имен, между которыми они распределены
+    int apps = 1000;
+    int namespaces = 20;
+    
+    // частка аплікацій з базою даних rds
+    // fraction of applications with an rds database
+    // доля приложений с базой данных rds
+    double databaseFraction = 0.0;
+    
+    // змін специфікації за секунду і тривалість фази змін
+    // spec changes per second and duration of the churn phase
+    // изменений спецификации в секунду и длительность фазы изменений
+    int churnRate = 50;
+    int churnSeconds = 60;
+    
+    // скільки деплойментів змінити в обхід оператора у фазі перевірки розбіжностей
+    // how many deployments to edit behind the operator's back in the drift phase
+    // сколько деплойментов изменить в обход оператора в фазе проверки расхождений
+    int driftEdits = 20;
+    
+    // скільки аплікацій і з якою швидкістю створює галасливий тенант в одному просторі імен, поки решта змінює свої
+    // how many applications and how fast a noisy tenant creates in one namespace while the others edit theirs
+    // сколько приложений и с какой скоростью создает шумный тенант в одном пространстве имен, пока остальные меняют свои
+    int noisyApps = 0;
+    int noisyRate = 100;
+    
+    // чи перезапускати оператор наприкінці прогону
+    // whether to restart the operator at the end of the run
+    // перезапускать ли оператор в конце прогона
+    boolean restart = true;
+    
+    // скільки аплікацій за секунду оператор передає в чергу під час початкової синхронізації; 0 - без обмеження
+    // how many applications per second the operator passes to the queue during the initial sync; 0 means unlimited
+    // сколько приложений в секунду оператор передает в очередь во время начальной синхронизации; 0 - без ограничения
+    double initialSyncRate = 50;
+    
+    // період ресинхронізації оператора в секундах; короткий період дає фонове навантаження під час змін специфікацій
+    // operator resync period in seconds; a short period adds background load during the spec churn
+    // период ресинхронизации оператора в секундах; короткий период дает фоновую нагрузку во время изменений спецификаций
+    long resyncSeconds = 36000;
+    
+    // робочі потоки оператора
+    // operator worker threads
+    // рабочие потоки оператора
+    int workers = 8;
+    
+    // режим потоків оператора: auto, virtual або platform
+    // operator thread mode: auto, virtual or platform
+    // режим потоков оператора: auto, virtual или platform
+    String executor = "auto";
+    
+    // чи обрізати об'єкти в кешах інформерів оператора
+    // whether to prune objects in the operator's informer caches
+    // обрезать ли объекты в кэшах информеров оператора
+    boolean cachePrune = true;
+    
+    // чи задавати оператору всі простори імен явно, тобто інформер на кожен простір імен
+    // whether to give the operator every namespace explicitly, i.e. one informer per namespace
+    // задавать ли оператору все пространства имен явно, то есть информер на каждое пространство имен
+    boolean namespaceInformers = false;
+    
+    // через скільки заглушка rds робить інстанс available і як часто оператор її опитує
+    // how soon the rds stub makes an instance available and how often the operator polls it
+    // через сколько заглушка rds делает инстанс available и как часто оператор ее опрашивает
+    long rdsProvisionMillis = 5000;
+    long rdsPollSeconds = 5;
+    
+    // максимальний час очікування збіжності кожної фази
+    // maximum time to wait for each phase to converge
+    // максимальное время ожидания сходимости каждой фазы
+    int timeoutSeconds = 900;
+    
+    long seed = 42;
+    
+    static ScaleOptions parse(String[] args) {
+        ScaleOptions options = new ScaleOptions();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("очікується --name=value / expected --name=value: " + arg);
+            }
+            
+            String name = arg.substring(2, eq);
+            String value = arg.substring(eq + 1);
+            switch (name) {
+                case "apps":
+                    options.apps = Integer.parseInt(value);
+                    break;
+                case "namespaces":
+                    options.namespaces = Integer.parseInt(value);
+                    break;
+                case "database-fraction":
+                    options.databaseFraction = Double.parseDouble(value);
+                    break;
+                case "churn-rate":
+                    options.churnRate = Integer.parseInt(value);
+                    break;
+                case "churn-seconds":
+                    options.churnSeconds = Integer.parseInt(value);
+                    break;
+                case "drift-edits":
+                    options.driftEdits = Integer.parseInt(value);
+                    break;
+                case "noisy-apps":
+                    options.noisyApps = Integer.parseInt(value);
+                    break;
+                case "noisy-rate":
+                    options.noisyRate = Integer.parseInt(value);
+                    break;
+                case "restart":
+                    options.restart = Boolean.parseBoolean(value);
+                    break;
+                case "initial-sync-rate":
+                    options.initialSyncRate = Double.parseDouble(value);
+                    break;
+                case "resync-seconds":
+                    options.resyncSeconds = Long.parseLong(value);
+                    break;
+                case "workers":
+                    options.workers = Integer.parseInt(value);
+                    break;
+                case "executor":
+                    options.executor = value;
+                    break;
+                case "cache-prune":
+                    options.cachePrune = Boolean.parseBoolean(value);
+                    break;
+                case "namespace-informers":
+                    options.namespaceInformers = Boolean.parseBoolean(value);
+                    break;
+                case "rds-provision-ms":
+                    options.rdsProvisionMillis = Long.parseLong(value);
+                    break;
+                case "rds-poll-seconds":
+                    options.rdsPollSeconds = Long.parseLong(value);
+                    break;
+                case "timeout-seconds":
+                    options.timeoutSeconds = Integer.parseInt(value);
+                    break;
+                case "seed":
+                    options.seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("невідомий параметр / unknown option: " + name);
+            }
+        }
+        return options;
+    }
+    
+    @Override
+    public String toString() {
+        return "apps=" + apps + " namespaces=" + namespaces + " database-fraction=" + databaseFraction
+                + " churn-rate=" + churnRate + " churn-seconds=" + churnSeconds + " drift-edits=" + driftEdits
+                + " noisy-apps=" + noisyApps + " noisy-rate=" + noisyRate + " restart=" + restart
+                + " initial-sync-rate=" + initialSyncRate + " resync-seconds=" + resyncSeconds
+                + " workers=" + workers + " executor=" + executor
+                + " cache-prune=" + cachePrune
+                + " namespace-informers=" + namespaceInformers + " rds-provision-ms=" + rdsProvisionMillis + " rds-poll-seconds=" + rdsPollSeconds;
+    }
+}
@@ -0,0 +1,31 @@
+package com.sparky.operator.service;
+
+import com.sparky.operator.crd.SpringBootApp;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * бажані ресурси аплікації для наповнення mock api-сервера
+ * desired resources of an application for seeding the mock api server
+ * желаемые ресурсы приложения для наполнения mock api-сервера
+ *
+ * mock-сервер у режимі crud не створює об'єкт через server-side apply, тому бенчмарки створюють їх заздалегідь
+ * the crud-mode mock server does not create an object through server-side apply, so the benchmarks create them upfront
+ * mock-сервер в режиме crud не создает объект через server-side apply, поэтому бенчмарки создают их заранее
+ */
+public final class DesiredStateFixtures {
+    
+    private DesiredStateFixtures() {
+    }
+    
+    public static List<HasMetadata> desiredResources(SpringBootApp app) {
+        ConfigService configService = new ConfigService(null, null);
+        return Arrays.asList(
+                new DeploymentService(null, null).buildDeployment(app),
+                new ServiceService(null, null).buildService(app),
+                configService.buildConfigMap(app, null),
+                configService.buildSecret(app));
+    }
+}
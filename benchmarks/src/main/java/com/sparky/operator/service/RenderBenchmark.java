@@ -0,0 +1,113 @@
+package com.sparky.operator.service;
+
+import com.sparky.operator.benchmarks.BenchmarkFixtures;
+import com.sparky.operator.cache.RenderCache;
+import com.sparky.operator.crd.SpringBootApp;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * побудова бажаного стану ресурсів без звернень до кластера
+ * building the desired state of the resources without calling the cluster
+ * построение желаемого состояния ресурсов без обращений к кластеру
+ *
+ * лежить у пакеті сервісів, щоб викликати пакетні методи build*
+ * lives in the service package to call the package-private build* methods
+ * лежит в пакете сервисов, чтобы вызывать пакетные методы build*
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    private DeploymentService deploymentService;
+    private ServiceService serviceService;
+    private ConfigService configService;
+    
+    // ті самі сервіси з кешем побудови - так оператор будує незмінну аплікацію при повторному примиренні
+    // the same services with a render cache - this is how the operator renders an unchanged application on a repeated reconcile
+    // те же сервисы с кэшем построения - так оператор строит неизменное приложение при повторном примирении
+    private DeploymentService cachedDeploymentService;
+    private ServiceService cachedServiceService;
+    private ConfigService cachedConfigService;
+    private SpringBootApp app;
+    private DatabaseInstance database;
+    
+    @Setup
+    public void setUp() {
+        // побудова не звертається до клієнта і кешу, тому вони не потрібні
+        // building touches neither the client nor the cache, so they are not needed
+        // построение не обращается к клиенту и кэшу, поэтому они не нужны
+        deploymentService = new DeploymentService(null, null);
+        serviceService = new ServiceService(null, null);
+        configService = new ConfigService(null, null);
+        RenderCache renderCache = new RenderCache(16);
+        cachedDeploymentService = new DeploymentService(null, null, renderCache);
+        cachedServiceService = new ServiceService(null, null, renderCache);
+        cachedConfigService = new ConfigService(null, null, renderCache);
+        app = BenchmarkFixtures.sampleApp("default", "my-sample-app", true);
+        database = new DatabaseInstance(DatabaseState.AVAILABLE, "sparky-default-my-sample-app",
+                "sparky-default-my-sample-app.abc123.eu-west-1.rds.amazonaws.com", 3306);
+    }
+    
+    @Benchmark
+    public Deployment buildDeployment() {
+        return deploymentService.buildDeployment(app);
+    }
+    
+    @Benchmark
+    public Service buildService() {
+        return serviceService.buildService(app);
+    }
+    
+    @Benchmark
+    public ConfigMap buildConfigMap() {
+        return configService.buildConfigMap(app, database);
+    }
+    
+    @Benchmark
+    public Secret buildSecret() {
+        return configService.buildSecret(app);
+    }
+    
+    @Benchmark
+    public String createApplicationProperties() {
+        return configService.createApplicationProperties(app, database);
+    }
+    
+    @Benchmark
+    public Deployment buildDeploymentCached() {
+        return cachedDeploymentService.buildDeployment(app);
+    }
+    
+    @Benchmark
+    public Service buildServiceCached() {
+        return cachedServiceService.buildService(app);
+    }
+    
+    @Benchmark
+    public ConfigMap buildConfigMapCached() {
+        return cachedConfigService.buildConfigMap(app, database);
+    }
+    
+    @Benchmark
+    public Secret buildSecretCached() {
+        return cachedConfigService.buildSecret(app);
+    }
+}
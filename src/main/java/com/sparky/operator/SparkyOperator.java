@@ -1,14 +1,48 @@
 package com.sparky.operator;
 
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.PruningItemStore;
+import com.sparky.operator.cache.ScopedInformers;
+import com.sparky.operator.config.OperatorConfig;
+import com.sparky.operator.controller.ReconcileResult;
 import com.sparky.operator.controller.SpringBootAppController;
 import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.ha.ShardMembership;
+import com.sparky.operator.ha.ShardRing;
+import com.sparky.operator.metrics.KubernetesMetricsInterceptor;
+import com.sparky.operator.metrics.OperatorMetrics;
+import com.sparky.operator.metrics.RequestAccounting;
+import com.sparky.operator.queue.ExponentialBackoff;
+import com.sparky.operator.queue.InitialSyncQueue;
+import com.sparky.operator.queue.Priority;
+import com.sparky.operator.queue.ReconcileExecutors;
+import com.sparky.operator.queue.WorkQueue;
+import com.sparky.operator.queue.WorkerPool;
+import com.sparky.operator.tracing.KubernetesTracingInterceptor;
+import com.sparky.operator.tracing.Tracing;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
 import io.fabric8.kubernetes.client.*;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderCallbacks;
+import io.fabric8.kubernetes.client.extended.leaderelection.LeaderElectionConfigBuilder;
+import io.fabric8.kubernetes.client.extended.leaderelection.resourcelock.LeaseLock;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
-import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
-import io.fabric8.kubernetes.client.informers.SharedInformerFactory;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.Scope;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.HTTPServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * основний клас оператора - тут вся магія відбувається
  * main operator class - here all the magic happens
@@ -19,17 +53,113 @@ import org.slf4j.LoggerFactory;
 public class SparkyOperator {
     private static final Logger logger = LoggerFactory.getLogger(SparkyOperator.class);
     
+    // запити понад робочі цикли: watch інформерів, оновлення lease, опитування кешів
+    // requests beyond the worker loops: informer watches, lease renewals, cache polling
+    // запросы сверх рабочих циклов: watch информеров, обновление lease, опрос кэшей
+    private static final int API_REQUEST_HEADROOM = 32;
+    
     private final KubernetesClient client;
-    private final SharedInformerFactory informerFactory;
+    private final OperatorConfig config;
+    private final OwnedResourceCache ownedResourceCache;
     private final SpringBootAppController controller;
+    private final WorkQueue workQueue;
+    private final WorkerPool workerPool;
+    
+    // обмежена за швидкістю початкова синхронізація, щоб перезапуск не засипав api-сервер і aws запитами
+    // rate-limited initial sync, so a restart does not flood the api server and aws with requests
+    // ограниченная по скорости начальная синхронизация, чтобы перезапуск не засыпал api-сервер и aws запросами
+    private final InitialSyncQueue initialSync;
+    private final ThreadFactory initialSyncThreads;
+    
+    private ScopedInformers<SpringBootApp> informers;
+    
+    // членство в режимі sharded та вибори лідера в режимі leader; null в інших режимах
+    // membership in sharded mode and leader election in leader mode; null in other modes
+    // членство в режиме sharded и выборы лидера в режиме leader; null в других режимах
+    private volatile ShardMembership shardMembership;
+    private volatile CompletableFuture<?> leaderElection;
+    
+    private HTTPServer metricsServer;
+    
+    // експорт спанів примирень; вимкнений, якщо не задано ні колектор, ні файл
+    // export of reconcile spans; disabled when neither a collector nor a file is set
+    // экспорт спанов примирений; выключен, если не задан ни коллектор, ни файл
+    private final Tracing tracing;
     
     public SparkyOperator() {
-        // ініціалізуємо клієнт кубернетеса
-        // initialize kubernetes client
-        // инициализируем клиент кубернетеса
-        this.client = new DefaultKubernetesClient();
-        this.informerFactory = client.informers();
-        this.controller = new SpringBootAppController(client);
+        this(OperatorConfig.fromEnvironment());
+    }
+    
+    private SparkyOperator(OperatorConfig config) {
+        this(createClient(config), config);
+    }
+    
+    /**
+     * клієнт кубернетеса з обмеженням одночасних запитів під кількість робочих циклів: з обмеженням fabric8
+     * за замовчуванням (5 на хост) тисячі віртуальних циклів стояли б у черзі диспетчера http
+     * kubernetes client with a concurrent request limit sized for the worker loops: with the fabric8 default
+     * (5 per host) thousands of virtual loops would queue in the http dispatcher
+     * клиент кубернетеса с ограничением одновременных запросов под количество рабочих циклов: с ограничением fabric8
+     * по умолчанию (5 на хост) тысячи виртуальных циклов стояли бы в очереди диспетчера http
+     */
+    private static KubernetesClient createClient(OperatorConfig config) {
+        Config kubernetesConfig = Config.autoConfigure(null);
+        int maxRequests = config.getApiMaxConcurrentRequests();
+        if (maxRequests <= 0) {
+            // два запити на примирення (паралельні кроки графа) і запас для watch та оновлення lease
+            // two requests per reconcile (parallel graph steps) and room for watches and lease renewals
+            // два запроса на примирение (параллельные шаги графа) и запас для watch и обновления lease
+            maxRequests = 2 * Math.max(config.getWorkerThreads(), config.getVirtualWorkerThreads()) + API_REQUEST_HEADROOM;
+        }
+        kubernetesConfig.setMaxConcurrentRequests(maxRequests);
+        kubernetesConfig.setMaxConcurrentRequestsPerHost(maxRequests);
+        logger.info("одночасних запитів до api-сервера: до {}", maxRequests); // concurrent api server requests: up to
+        
+        return new KubernetesClientBuilder()
+                .withConfig(kubernetesConfig)
+                .withHttpClientBuilderConsumer(builder -> builder
+                        .addOrReplaceInterceptor(KubernetesMetricsInterceptor.NAME, new KubernetesMetricsInterceptor())
+                        .addOrReplaceInterceptor(KubernetesTracingInterceptor.NAME, new KubernetesTracingInterceptor()))
+                .build();
+    }
+    
+    /**
+     * оператор з готовим клієнтом і налаштуваннями, наприклад проти mock api-сервера
+     * operator with a ready client and settings, e.g. against a mock api server
+     * оператор с готовым клиентом и настройками, например против mock api-сервера
+     */
+    public SparkyOperator(KubernetesClient client, OperatorConfig config) {
+        this.client = client;
+        this.config = config;
+        this.tracing = Tracing.start(config);
+        this.ownedResourceCache = new OwnedResourceCache(client, config.getWatchNamespaces(), config.isCachePrune());
+        this.workQueue = new WorkQueue(new ExponentialBackoff(
+            config.getBackoffBaseMillis(),
+            config.getBackoffMaxMillis(),
+            config.getBackoffJitter()));
+        this.controller = new SpringBootAppController(client, config, ownedResourceCache, key -> workQueue.add(key, Priority.DRIFT));
+        
+        // зміна або видалення створеного ресурсу повертає в чергу лише його аплікацію
+        // a change to or deletion of a created resource requeues only its application
+        // изменение или удаление созданного ресурса возвращает в очередь только его приложение
+        ownedResourceCache.onOwnerChange(key -> workQueue.add(key, Priority.DRIFT));
+        
+        // на віртуальних потоках одночасних примирень може бути тисячі, бо очікування api не тримає потоків ос
+        // on virtual threads there can be thousands of concurrent reconciles, since waiting on the api holds no os threads
+        // на виртуальных потоках одновременных примирений могут быть тысячи, так как ожидание api не держит потоков ос
+        ReconcileExecutors executors = ReconcileExecutors.forMode(config.getExecutorMode());
+        int workers = executors.isVirtual() ? config.getVirtualWorkerThreads() : config.getWorkerThreads();
+        workQueue.configureLanes(workers, config.getQueueBackgroundShare(), config.getQueueAgingSeconds() * 1000L);
+        
+        // без заданої межі простір імен може зайняти всі робочі потоки, як до появи квот
+        // without a configured limit a namespace may take every worker thread, as before quotas existed
+        // без заданного предела пространство имен может занять все рабочие потоки, как до появления квот
+        int namespaceMaxInFlight = config.getNamespaceMaxInFlight() > 0 ? config.getNamespaceMaxInFlight() : Integer.MAX_VALUE;
+        workQueue.configureNamespaces(namespaceMaxInFlight, config.getNamespaceWeights());
+        this.workerPool = new WorkerPool(workQueue, workers, executors.threadFactory("sparky-worker"), this::processKey);
+        this.initialSync = new InitialSyncQueue(workQueue, config.getInitialSyncRate(), config.getInitialSyncBurst());
+        this.initialSyncThreads = executors.threadFactory("sparky-initial-sync");
+        logger.info("робочих циклів: {}, віртуальні потоки: {}", workers, executors.isVirtual()); // worker loops and whether they are virtual
     }
     
     /**
@@ -38,10 +168,41 @@ public class SparkyOperator {
      * запуск оператора
      */
     public void run() {
+        start();
+        
+        // тримаємо програму активною
+        // keep the program active
+        // держим программу активной
+        try {
+            Thread.currentThread().join();
+        } catch (InterruptedException e) {
+            logger.error("оператор перервано", e); // operator interrupted
+            logger.error("оператор перервано", e); // operator interrupted
+            logger.error("оператор прерван", e); // operator interrupted
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * запускає кеші, інформери та робочі потоки і повертається, не блокуючи
+     * starts the caches, informers and worker threads and returns without blocking
+     * запускает кэши, информеры и рабочие потоки и возвращается, не блокируя
+     */
+    public void start() {
         logger.info("запуск sparky оператора..."); // starting sparky operator...
         logger.info("запуск оператора..."); // starting operator...
         logger.info("запуск оператора..."); // starting operator...
         
+        // метрики доступні з самого старту, включно з наповненням кешів
+        // metrics are available from the very start, including cache warm-up
+        // метрики доступны с самого старта, включая наполнение кэшей
+        startMetricsServer();
+        
+        // спершу наповнюємо кеші створених ресурсів, щоб сервіси бачили поточний стан
+        // fill the caches of created resources first so services see the current state
+        // сначала наполняем кэши созданных ресурсов, чтобы сервисы видели текущее состояние
+        ownedResourceCache.start();
+        
         // реєструємо інформери для наших кастомних ресурсів
         // register informers for our custom resources
         // регистрируем информеры для наших кастомных ресурсов
@@ -50,43 +211,252 @@ public class SparkyOperator {
         // запускаємо інформери
         // start informers
         // запускаем информеры
-        informerFactory.startAllRegisteredInformers();
+        informers.start().thenRun(initialSync::synced);
+        
+        // кеші прогріті в будь-якому режимі; черга обробляється лише там, де дозволяє режим
+        // caches are warm in every mode; the queue is processed only where the mode allows
+        // кэши прогреты в любом режиме; очередь обрабатывается только там, где позволяет режим
+        startProcessing();
+    }
+    
+    /**
+     * запускає http-сервер метрик prometheus, якщо порт заданий
+     * starts the prometheus metrics http server if a port is set
+     * запускает http-сервер метрик prometheus, если порт задан
+     */
+    private void startMetricsServer() {
+        if (config.getMetricsPort() <= 0) {
+            return;
+        }
         
-        // тримаємо програму активною
-        // keep the program active
-        // держим программу активной
         try {
-            Thread.currentThread().join();
-        } catch (InterruptedException e) {
-            logger.error("оператор перервано", e); // operator interrupted
-            logger.error("оператор перервано", e); // operator interrupted
-            logger.error("оператор прерван", e); // operator interrupted
-            Thread.currentThread().interrupt();
+            metricsServer = OperatorMetrics.startServer(config.getMetricsPort());
+            logger.info("метрики доступні на порту {}", config.getMetricsPort()); // metrics available on port
+        } catch (IOException e) {
+            // без метрик оператор працює далі
+            // the operator keeps working without metrics
+            // без метрик оператор работает дальше
+            logger.error("не вдалося запустити сервер метрик", e); // could not start metrics server
         }
     }
     
+    /**
+     * запускає робочі потоки відповідно до режиму роботи кількох реплік
+     * starts the worker threads according to the multi-replica mode
+     * запускает рабочие потоки в соответствии с режимом работы нескольких реплик
+     */
+    private void startProcessing() {
+        switch (config.getHaMode()) {
+            case "leader":
+                // лише одна репліка обробляє чергу, решта чекають з теплими кешами
+                // only one replica processes the queue, the rest wait with warm caches
+                // только одна реплика обрабатывает очередь, остальные ждут с теплыми кэшами
+                Duration leaseDuration = Duration.ofSeconds(config.getLeaseDurationSeconds());
+                leaderElection = client.leaderElector()
+                        .withConfig(new LeaderElectionConfigBuilder()
+                                .withName("sparky-operator")
+                                .withLock(new LeaseLock(config.getLeaseNamespace(), "sparky-operator-leader", config.getIdentity()))
+                                .withLeaseDuration(leaseDuration)
+                                .withRenewDeadline(leaseDuration.multipliedBy(2).dividedBy(3))
+                                .withRetryPeriod(leaseDuration.dividedBy(5))
+                                .withReleaseOnCancel()
+                                .withLeaderCallbacks(new LeaderCallbacks(
+                                        this::onStartLeading,
+                                        this::onStopLeading,
+                                        leader -> logger.info("поточний лідер: {}", leader))) // current leader
+                                .build())
+                        .build()
+                        .start();
+                break;
+            case "sharded":
+                // усі репліки активні, кожна обробляє свою частину просторів імен
+                // all replicas are active, each handles its part of the namespaces
+                // все реплики активны, каждая обрабатывает свою часть пространств имен
+                shardMembership = new ShardMembership(client, config.getLeaseNamespace(), config.getIdentity(),
+                        config.getLeaseDurationSeconds(), this::rebalance);
+                controller.scopeTo(shardMembership::owns);
+                shardMembership.start();
+                startWorkers();
+                break;
+            default:
+                startWorkers();
+        }
+        logger.info("режим реплік: {}, ідентичність: {}", config.getHaMode(), config.getIdentity()); // replica mode and identity
+    }
+    
+    private void onStartLeading() {
+        logger.info("репліка стала лідером, починаємо обробку черги"); // replica became leader, starting queue processing
+        startWorkers();
+    }
+    
+    /**
+     * запускає робочі потоки і передачу відкладених ключів початкової синхронізації в чергу
+     * starts the worker threads and the hand-over of the held initial sync keys to the queue
+     * запускает рабочие потоки и передачу отложенных ключей начальной синхронизации в очередь
+     */
+    private void startWorkers() {
+        // один спільний опитувач rds замість окремого опитування для кожної аплікації; резервні репліки
+        // режиму leader його не запускають, а в режимі sharded він бачить лише інстанси своїх просторів імен
+        // one shared rds poller instead of polling separately for every application; standby replicas
+        // in leader mode do not start it, and in sharded mode it sees only the instances of its own namespaces
+        // один общий опросчик rds вместо отдельного опроса для каждого приложения; резервные реплики
+        // режима leader его не запускают, а в режиме sharded он видит только инстансы своих пространств имен
+        controller.start();
+        workerPool.start();
+        initialSync.start(initialSyncThreads);
+    }
+    
+    /**
+     * втрата лідерства: інший лідер вже може писати в кластер, тому завершуємо процес
+     * lost leadership: another leader may already write to the cluster, so the process exits
+     * потеря лидерства: другой лидер уже может писать в кластер, поэтому процесс завершается
+     */
+    private void onStopLeading() {
+        logger.error("репліка втратила лідерство, зупинка"); // replica lost leadership, stopping
+        System.exit(1);
+    }
+    
+    /**
+     * ставить у чергу аплікації з просторів імен, які щойно перейшли до цієї репліки
+     * enqueues the apps from namespaces that have just moved to this replica
+     * ставит в очередь приложения из пространств имен, которые только что перешли к этой реплике
+     */
+    private void rebalance(ShardRing previous, ShardRing current) {
+        controller.rebalanced();
+        if (informers == null) {
+            return;
+        }
+        
+        int moved = 0;
+        for (SpringBootApp app : informers.list()) {
+            String namespace = app.getMetadata().getNamespace();
+            if (shardMembership.owns(current, namespace) && !shardMembership.owns(previous, namespace)) {
+                workQueue.add(Cache.metaNamespaceKeyFunc(app), Priority.RESYNC);
+                moved++;
+            }
+        }
+        logger.info("перебалансування: {} аплікацій перейшли до цієї репліки", moved); // rebalance: apps moved to this replica
+    }
+    
     /**
      * реєструє інформер для SpringBootApp
      * registers informer for SpringBootApp
      * регистрирует информер для SpringBootApp
      */
     private void registerInformer() {
-        // створюємо інформер
-        // create informer
-        // создаем информер
-        SharedIndexInformer<SpringBootApp> informer = informerFactory.sharedIndexInformerFor(
-            SpringBootApp.class,
-            30 * 1000L // резинхронізація кожні 30 секунд / resync every 30 seconds / ресинхронизация каждые 30 секунд
-        );
+        // створюємо інформер на весь кластер або по одному на кожен дозволений простір імен;
+        // селектор міток дає кожному розгортанню оператора лише його групу аплікацій
+        // create one cluster-wide informer or one per allowed namespace;
+        // the label selector gives every operator deployment only its own group of applications
+        // создаем информер на весь кластер или по одному на каждое разрешенное пространство имен;
+        // селектор меток дает каждому развертыванию оператора только его группу приложений
+        informers = ScopedInformers.create(config.getWatchNamespaces(), namespace -> {
+            FilterWatchListDeletable<SpringBootApp, ?, ?> apps = ScopedInformers.inScope(client.resources(SpringBootApp.class), namespace);
+            if (config.getWatchLabelSelector() != null) {
+                apps = apps.withLabelSelector(config.getWatchLabelSelector());
+            }
+            return apps.runnableInformer(config.getResyncSeconds() * 1000L);
+        });
+        
+        // кеш аплікацій не тримає managedFields та анотацію kubectl - контролер їх не читає
+        // the application cache keeps no managedFields or kubectl annotation - the controller never reads them
+        // кэш приложений не держит managedFields и аннотацию kubectl - контроллер их не читает
+        if (config.isCachePrune()) {
+            informers.forEach(informer -> informer.itemStore(PruningItemStore.metadataOnly()));
+        }
+        OperatorMetrics.monitorCache("springbootapp", informers::list);
         
         // додаємо обробники подій
         // add event handlers
         // добавляем обработчики событий
-        informer.addEventHandler(new SparkyOperatorEventHandler(controller));
+        SparkyOperatorEventHandler handler = new SparkyOperatorEventHandler(workQueue, initialSync, controller);
+        informers.forEach(informer -> informer.addEventHandler(handler));
         
-        logger.info("інформер для SpringBootApp зареєстровано"); // informer for SpringBootApp registered
-        logger.info("інформер для SpringBootApp зареєстровано"); // informer for SpringBootApp registered
-        logger.info("инformer для SpringBootApp зарегистрирован"); // informer for SpringBootApp registered
+        logger.info("інформер для SpringBootApp зареєстровано, простори імен: {}, селектор: {}",
+                config.getWatchNamespaces().isEmpty() ? "усі" : config.getWatchNamespaces(),
+                config.getWatchLabelSelector()); // informer for SpringBootApp registered with namespaces and selector
+    }
+    
+    /**
+     * обробляє ключ з черги та планує повтор: з затримкою після помилки або через заданий час
+     * processes a key from the queue and schedules a requeue: with backoff after an error or after a fixed delay
+     * обрабатывает ключ из очереди и планирует повтор: с задержкой после ошибки или через заданное время
+     */
+    private void processKey(String key) {
+        // кожне примирення - окрема траса; кроки та запити до api стають її дочірніми спанами,
+        // а запити ще й рахуються на примирення
+        // every reconcile is a trace of its own; the steps and api requests become its child spans,
+        // and the requests are also counted against the reconcile
+        // каждое примирение - отдельная трасса; шаги и запросы к api становятся ее дочерними спанами,
+        // а запросы еще и считаются на примирение
+        int slash = key.indexOf('/');
+        Span span = Tracing.tracer().spanBuilder("reconcile")
+                .setNoParent()
+                .setAttribute("k8s.namespace.name", key.substring(0, slash))
+                .setAttribute("sparky.app.name", key.substring(slash + 1))
+                .startSpan();
+        RequestAccounting.Reconcile requests = RequestAccounting.reconcile();
+        try (Scope ignored = requests.storeIn(Context.current().with(span)).makeCurrent()) {
+            processKey(key, span);
+        } finally {
+            requests.finish();
+            span.setAttribute("sparky.kubernetes.requests", requests.getKubernetes());
+            span.setAttribute("sparky.aws.requests", requests.getAws());
+            span.end();
+        }
+    }
+    
+    private void processKey(String key, Span span) {
+        ReconcileResult result;
+        Histogram.Timer timer = OperatorMetrics.RECONCILE_DURATION.startTimer();
+        try {
+            result = handleKey(key);
+        } catch (Exception e) {
+            timer.observeDuration();
+            OperatorMetrics.RECONCILE_TOTAL.labels("error").inc();
+            long delay = workQueue.addRateLimited(key);
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            span.setAttribute("sparky.result", "error");
+            logger.error("помилка під час обробки " + key + ", повтор через " + delay + " мс", e); // error while processing key, retry after delay
+            return;
+        }
+        
+        // успіх - скидаємо лічильник невдач
+        // success - reset the failure counter
+        // успех - сбрасываем счетчик неудач
+        workQueue.forget(key);
+        timer.observeDuration();
+        
+        if (result.isRequeue()) {
+            OperatorMetrics.RECONCILE_TOTAL.labels("requeue").inc();
+            span.setAttribute("sparky.result", "requeue");
+            workQueue.addAfter(key, result.getRequeueAfter().toMillis(), Priority.RETRY);
+        } else {
+            OperatorMetrics.RECONCILE_TOTAL.labels("success").inc();
+            span.setAttribute("sparky.result", "success");
+        }
+    }
+    
+    /**
+     * примирює аплікацію з кешу інформера; ресурси видаленої аплікації прибирає збирач сміття кубернетеса
+     * reconciles the app from the informer cache; the kubernetes garbage collector removes the resources of a deleted app
+     * примиряет приложение из кэша информера; ресурсы удаленного приложения убирает сборщик мусора кубернетеса
+     */
+    private ReconcileResult handleKey(String key) {
+        // простір імен обробляє інша репліка
+        // another replica handles the namespace
+        // пространство имен обрабатывает другая реплика
+        ShardMembership membership = shardMembership;
+        if (membership != null && !membership.owns(key.substring(0, key.indexOf('/')))) {
+            return ReconcileResult.done();
+        }
+        
+        SpringBootApp app = informers.getByKey(key);
+        if (app != null) {
+            return controller.reconcile(app);
+        }
+        return ReconcileResult.done();
     }
     
     /**
@@ -99,8 +469,24 @@ public class SparkyOperator {
         logger.info("зупинка оператора..."); // stopping operator...
         logger.info("остановка оператора..."); // stopping operator...
         
-        informerFactory.stopAllRegisteredInformers();
+        if (leaderElection != null) {
+            leaderElection.cancel(true);
+        }
+        if (shardMembership != null) {
+            shardMembership.stop();
+        }
+        if (informers != null) {
+            informers.stop();
+        }
+        initialSync.stop();
+        workerPool.stop();
+        controller.close();
+        ownedResourceCache.stop();
         client.close();
+        tracing.close();
+        if (metricsServer != null) {
+            metricsServer.close();
+        }
     }
     
     public static void main(String[] args) {
@@ -121,39 +507,102 @@ public class SparkyOperator {
     }
     
     /**
-     * обробник подій для інформера
-     * event handler for informer
-     * обработчик событий для информера
+     * обробник подій для інформера - лише ставить ключі в чергу, не блокуючи потік інформера
+     * event handler for informer - only enqueues keys without blocking the informer thread
+     * обработчик событий для информера - только ставит ключи в очередь, не блокируя поток информера
      */
     private static class SparkyOperatorEventHandler implements ResourceEventHandler<SpringBootApp> {
+        private final WorkQueue workQueue;
+        private final InitialSyncQueue initialSync;
         private final SpringBootAppController controller;
         
-        public SparkyOperatorEventHandler(SpringBootAppController controller) {
+        public SparkyOperatorEventHandler(WorkQueue workQueue, InitialSyncQueue initialSync, SpringBootAppController controller) {
+            this.workQueue = workQueue;
+            this.initialSync = initialSync;
             this.controller = controller;
         }
         
         @Override
         public void onAdd(SpringBootApp springBootApp) {
+            OperatorMetrics.INFORMER_EVENTS.labels("springbootapp", "add").inc();
             logger.info("додано новий ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
             logger.info("додано новий ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
             logger.info("добавлен новый ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
-            controller.reconcile(springBootApp);
+            
+            // під час початкової синхронізації ключ чекає своєї черги: спершу змінені аплікації, потім збіжні
+            // during the initial sync the key waits for its turn: changed applications first, then converged ones
+            // во время начальной синхронизации ключ ждет своей очереди: сначала измененные приложения, потом сошедшиеся
+            String key = Cache.metaNamespaceKeyFunc(springBootApp);
+            if (!initialSync.offer(key, controller.isConverged(springBootApp))) {
+                workQueue.add(key, Priority.SPEC);
+            }
         }
         
         @Override
         public void onUpdate(SpringBootApp oldSpringBootApp, SpringBootApp newSpringBootApp) {
+            OperatorMetrics.INFORMER_EVENTS.labels("springbootapp", "update").inc();
+            
+            // пропускаємо оновлення, що змінили лише статус або метадані
+            // skip updates that only touched status or metadata
+            // пропускаем обновления, которые изменили только статус или метаданные
+            if (!isSpecChange(oldSpringBootApp, newSpringBootApp)) {
+                return;
+            }
+            
+            // ресинхронізація надсилає той самий об'єкт і йде фоновою смугою
+            // a resync delivers the same object and goes through the background lane
+            // ресинхронизация присылает тот же объект и идет фоновой полосой
+            if (isResync(oldSpringBootApp, newSpringBootApp)) {
+                workQueue.add(Cache.metaNamespaceKeyFunc(newSpringBootApp), Priority.RESYNC);
+                return;
+            }
+            
             logger.info("оновлено ресурс SpringBootApp: {}", newSpringBootApp.getMetadata().getName());
             logger.info("оновлено ресурс SpringBootApp: {}", newSpringBootApp.getMetadata().getName());
             logger.info("обновлен ресурс SpringBootApp: {}", newSpringBootApp.getMetadata().getName());
-            controller.reconcile(newSpringBootApp);
+            workQueue.add(Cache.metaNamespaceKeyFunc(newSpringBootApp), Priority.SPEC);
         }
         
         @Override
         public void onDelete(SpringBootApp springBootApp, boolean deletedFinalStateUnknown) {
+            OperatorMetrics.INFORMER_EVENTS.labels("springbootapp", "delete").inc();
             logger.info("видалено ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
             logger.info("видалено ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
             logger.info("удален ресурс SpringBootApp: {}", springBootApp.getMetadata().getName());
-            controller.delete(springBootApp);
+            
+            // ресурси прибирає збирач сміття, базу даних - фіналізатор; лишається скинути лічильник невдач
+            // і побудований бажаний стан
+            // the garbage collector removes the resources and the finalizer the database; only the failure counter
+            // and the rendered desired state are left to reset
+            // ресурсы убирает сборщик мусора, базу данных - финализатор; остается сбросить счетчик неудач
+            // и построенное желаемое состояние
+            String key = Cache.metaNamespaceKeyFunc(springBootApp);
+            workQueue.forget(key);
+            controller.forget(key);
+        }
+        
+        /**
+         * чи потребує оновлення примирення: ресинхронізація, нове покоління специфікації або початок видалення
+         * whether an update needs a reconcile: a resync, a new spec generation or the start of deletion
+         * требует ли обновление примирения: ресинхронизация, новое поколение спецификации или начало удаления
+         */
+        private static boolean isSpecChange(SpringBootApp oldApp, SpringBootApp newApp) {
+            ObjectMeta oldMeta = oldApp.getMetadata();
+            ObjectMeta newMeta = newApp.getMetadata();
+            
+            // ресинхронізація надсилає той самий об'єкт - контролер сам вирішить, чи є робота
+            // a resync delivers the same object - the controller decides whether there is work
+            // ресинхронизация присылает тот же объект - контроллер сам решит, есть ли работа
+            if (isResync(oldApp, newApp)) {
+                return true;
+            }
+            
+            return !Objects.equals(oldMeta.getGeneration(), newMeta.getGeneration())
+                    || !Objects.equals(oldMeta.getDeletionTimestamp(), newMeta.getDeletionTimestamp());
+        }
+        
+        private static boolean isResync(SpringBootApp oldApp, SpringBootApp newApp) {
+            return Objects.equals(oldApp.getMetadata().getResourceVersion(), newApp.getMetadata().getResourceVersion());
         }
     }
 }
\ No newline at end of file
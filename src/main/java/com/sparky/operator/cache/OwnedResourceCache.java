@@ -0,0 +1,500 @@
+package com.sparky.operator.cache;
+
+import com.sparky.operator.metrics.OperatorMetrics;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.apps.Deployment;
+import io.fabric8.kubernetes.api.model.autoscaling.v2.HorizontalPodAutoscaler;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * спільні кеші ресурсів, створених оператором (з міткою sparky-operator-managed=true)
+ * shared caches of resources created by the operator (labelled sparky-operator-managed=true)
+ * общие кэши ресурсов, созданных оператором (с меткой sparky-operator-managed=true)
+ *
+ * сервіси читають поточний стан з пам'яті замість GET-запитів до api-сервера
+ * services read current state from memory instead of GET requests to the api server
+ * сервисы читают текущее состояние из памяти вместо GET-запросов к api-серверу
+ */
+public class OwnedResourceCache {
+    private static final Logger logger = LoggerFactory.getLogger(OwnedResourceCache.class);
+    
+    // мітка, якою позначено всі ресурси оператора
+    // label carried by every operator resource
+    // метка, которой помечены все ресурсы оператора
+    public static final String MANAGED_LABEL = "sparky-operator-managed";
+    
+    // індекс за аплікацією-власником (namespace/app)
+    // index by owning application (namespace/app)
+    // индекс по приложению-владельцу (namespace/app)
+    public static final String OWNER_INDEX = "byOwner";
+    
+    // вид ресурсу-власника в посиланнях на контролер
+    // owner kind in the controller references
+    // вид ресурса-владельца в ссылках на контроллер
+    private static final String OWNER_KIND = "SpringBootApp";
+    
+    // індекс автоскейлерів за деплойментом, яким вони керують (namespace/name)
+    // index of autoscalers by the deployment they scale (namespace/name)
+    // индекс автоскейлеров по деплойменту, которым они управляют (namespace/name)
+    public static final String SCALE_TARGET_INDEX = "byScaleTarget";
+    
+    private final ScopedInformers<Deployment> deployments;
+    private final ScopedInformers<Service> services;
+    private final ScopedInformers<ConfigMap> configMaps;
+    private final ScopedInformers<Secret> secrets;
+    
+    // автоскейлери не мають мітки оператора, тож кешуються всі в області; репліками деплойменту під автоскейлером
+    // оператор не керує
+    // autoscalers do not carry the operator label, so every one in scope is cached; the operator does not manage
+    // the replicas of a deployment under an autoscaler
+    // автоскейлеры не имеют метки оператора, поэтому кэшируются все в области; репликами деплоймента под автоскейлером
+    // оператор не управляет
+    private final ScopedInformers<HorizontalPodAutoscaler> autoscalers;
+    
+    // стан ресурсу (kind/namespace/name), у якому оператор його востаннє записав або звірив з бажаним
+    // the state of a resource (kind/namespace/name) at which the operator last wrote it or checked it against the desired one
+    // состояние ресурса (kind/namespace/name), в котором оператор его последний раз записал или сверил с желаемым
+    private final Map<String, AppliedState> appliedStates = new ConcurrentHashMap<>();
+    
+    public OwnedResourceCache(KubernetesClient client) {
+        this(client, Collections.emptyList(), true);
+    }
+    
+    /**
+     * @param namespaces простори імен для спостереження; порожній список - увесь кластер /
+     *                   namespaces to watch; an empty list means the whole cluster /
+     *                   пространства имен для наблюдения; пустой список - весь кластер
+     * @param prune      прибирати з об'єктів поля, яких сервіси не читають / strip fields the services never read /
+     *                   убирать из объектов поля, которые сервисы не читают
+     */
+    public OwnedResourceCache(KubernetesClient client, List<String> namespaces, boolean prune) {
+        this.deployments = ScopedInformers.create(namespaces, namespace ->
+                informer(ScopedInformers.inScope(client.apps().deployments(), namespace)));
+        this.services = ScopedInformers.create(namespaces, namespace ->
+                informer(ScopedInformers.inScope(client.services(), namespace)));
+        this.configMaps = ScopedInformers.create(namespaces, namespace ->
+                informer(ScopedInformers.inScope(client.configMaps(), namespace)));
+        this.secrets = ScopedInformers.create(namespaces, namespace ->
+                informer(ScopedInformers.inScope(client.secrets(), namespace)));
+        this.autoscalers = ScopedInformers.create(namespaces, namespace -> withScaleTargetIndex(
+                ScopedInformers.inScope(client.autoscaling().v2().horizontalPodAutoscalers(), namespace).runnableInformer(0)));
+        
+        // статус деплойменту та сервісу порівняння з бажаним станом не використовує
+        // the deployment and service status is not used when comparing with the desired state
+        // статус деплоймента и сервиса при сравнении с желаемым состоянием не используется
+        if (prune) {
+            deployments.forEach(informer -> informer.itemStore(new PruningItemStore<>(deployment -> {
+                PruningItemStore.pruneMetadata(deployment);
+                deployment.setStatus(null);
+            })));
+            services.forEach(informer -> informer.itemStore(new PruningItemStore<>(service -> {
+                PruningItemStore.pruneMetadata(service);
+                service.setStatus(null);
+            })));
+            configMaps.forEach(informer -> informer.itemStore(PruningItemStore.metadataOnly()));
+            secrets.forEach(informer -> informer.itemStore(PruningItemStore.metadataOnly()));
+            autoscalers.forEach(informer -> informer.itemStore(new PruningItemStore<>(autoscaler -> {
+                PruningItemStore.pruneMetadata(autoscaler);
+                autoscaler.setStatus(null);
+            })));
+        }
+        
+        // записи видалених ресурсів лише займають пам'ять: новий об'єкт з тим самим ім'ям має іншу resourceVersion
+        // entries of deleted resources only take memory: a new object with the same name has another resourceVersion
+        // записи удаленных ресурсов только занимают память: новый объект с тем же именем имеет другую resourceVersion
+        deployments.forEach(informer -> informer.addEventHandler(new AppliedStateCleaner<>()));
+        services.forEach(informer -> informer.addEventHandler(new AppliedStateCleaner<>()));
+        configMaps.forEach(informer -> informer.addEventHandler(new AppliedStateCleaner<>()));
+        secrets.forEach(informer -> informer.addEventHandler(new AppliedStateCleaner<>()));
+        
+        OperatorMetrics.monitorCache("deployment", deployments::list);
+        OperatorMetrics.monitorCache("service", services::list);
+        OperatorMetrics.monitorCache("configmap", configMaps::list);
+        OperatorMetrics.monitorCache("secret", secrets::list);
+        OperatorMetrics.monitorCache("horizontalpodautoscaler", autoscalers::list);
+    }
+    
+    /**
+     * інформер ресурсів оператора з індексом за аплікацією-власником
+     * informer of the operator resources with the owning-application index
+     * информер ресурсов оператора с индексом по приложению-владельцу
+     */
+    private static <T extends HasMetadata> SharedIndexInformer<T> informer(FilterWatchListDeletable<T, ?, ?> operation) {
+        return withOwnerIndex(operation.withLabel(MANAGED_LABEL, "true").runnableInformer(0));
+    }
+    
+    /**
+     * додає до інформера індекс за аплікацією-власником
+     * adds the owning-application index to an informer
+     * добавляет к информеру индекс по приложению-владельцу
+     */
+    private static <T extends HasMetadata> SharedIndexInformer<T> withOwnerIndex(SharedIndexInformer<T> informer) {
+        Function<T, List<String>> ownerIndexFunc = resource -> {
+            String appName = resource.getMetadata().getLabels() != null
+                    ? resource.getMetadata().getLabels().get("app")
+                    : null;
+            if (appName == null) {
+                return Collections.emptyList();
+            }
+            return Collections.singletonList(ownerKey(resource.getMetadata().getNamespace(), appName));
+        };
+        informer.addIndexers(Map.of(OWNER_INDEX, ownerIndexFunc));
+        return informer;
+    }
+    
+    /**
+     * додає до інформера автоскейлерів індекс за деплойментом, яким вони керують
+     * adds to the autoscaler informer the index by the deployment they scale
+     * добавляет к информеру автоскейлеров индекс по деплойменту, которым они управляют
+     */
+    private static SharedIndexInformer<HorizontalPodAutoscaler> withScaleTargetIndex(
+            SharedIndexInformer<HorizontalPodAutoscaler> informer) {
+        informer.addIndexers(Map.of(SCALE_TARGET_INDEX, autoscaler -> {
+            String target = scaleTargetOf(autoscaler);
+            return target == null ? Collections.emptyList() : Collections.singletonList(target);
+        }));
+        return informer;
+    }
+    
+    /**
+     * ключ деплойменту, яким керує автоскейлер, або null для інших видів
+     * key of the deployment the autoscaler scales, or null for other kinds
+     * ключ деплоймента, которым управляет автоскейлер, или null для других видов
+     */
+    private static String scaleTargetOf(HorizontalPodAutoscaler autoscaler) {
+        if (autoscaler.getSpec() == null || autoscaler.getSpec().getScaleTargetRef() == null
+                || !"Deployment".equals(autoscaler.getSpec().getScaleTargetRef().getKind())) {
+            return null;
+        }
+        return Cache.namespaceKeyFunc(autoscaler.getMetadata().getNamespace(), autoscaler.getSpec().getScaleTargetRef().getName());
+    }
+    
+    /**
+     * ставить у чергу аплікацію-власника, коли її ресурс змінили або видалили поза оператором;
+     * додавання ігноруються - нові ресурси створює сам оператор
+     * enqueues the owning application when its resource was changed or deleted outside the operator;
+     * additions are ignored - new resources are created by the operator itself
+     * ставит в очередь приложение-владельца, когда его ресурс изменили или удалили вне оператора;
+     * добавления игнорируются - новые ресурсы создает сам оператор
+     */
+    public void onOwnerChange(Consumer<String> enqueue) {
+        deployments.forEach(informer -> informer.addEventHandler(new OwnerEventHandler<>("deployment", enqueue)));
+        services.forEach(informer -> informer.addEventHandler(new OwnerEventHandler<>("service", enqueue)));
+        configMaps.forEach(informer -> informer.addEventHandler(new OwnerEventHandler<>("configmap", enqueue)));
+        secrets.forEach(informer -> informer.addEventHandler(new OwnerEventHandler<>("secret", enqueue)));
+        autoscalers.forEach(informer -> informer.addEventHandler(new AutoscalerEventHandler(enqueue)));
+    }
+    
+    /**
+     * ключ аплікації-власника за посиланням на контролер або, для старих ресурсів, за міткою app
+     * owning application key from the controller reference or, for older resources, from the app label
+     * ключ приложения-владельца по ссылке на контроллер или, для старых ресурсов, по метке app
+     */
+    public static String ownerOf(HasMetadata resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        if (metadata.getOwnerReferences() != null) {
+            for (OwnerReference owner : metadata.getOwnerReferences()) {
+                if (Boolean.TRUE.equals(owner.getController()) && OWNER_KIND.equals(owner.getKind())) {
+                    return ownerKey(metadata.getNamespace(), owner.getName());
+                }
+            }
+        }
+        
+        String appName = metadata.getLabels() != null ? metadata.getLabels().get("app") : null;
+        return appName != null ? ownerKey(metadata.getNamespace(), appName) : null;
+    }
+    
+    /**
+     * ключ аплікації-власника
+     * owning application key
+     * ключ приложения-владельца
+     */
+    public static String ownerKey(String namespace, String appName) {
+        return Cache.namespaceKeyFunc(namespace, appName);
+    }
+    
+    /**
+     * запускає всі інформери та чекає першої синхронізації
+     * starts all informers and waits for the initial sync
+     * запускает все информеры и ждет первой синхронизации
+     */
+    public void start() {
+        CompletableFuture.allOf(
+                deployments.start(),
+                services.start(),
+                configMaps.start(),
+                secrets.start(),
+                autoscalers.start()
+        ).join();
+        
+        logger.info("кеші ресурсів оператора синхронізовано: deployments={}, services={}, configmaps={}, secrets={}, hpas={}",
+                deployments.list().size(),
+                services.list().size(),
+                configMaps.list().size(),
+                secrets.list().size(),
+                autoscalers.list().size()); // owned resource caches synced
+    }
+    
+    /**
+     * зупиняє всі інформери
+     * stops all informers
+     * останавливает все информеры
+     */
+    public void stop() {
+        deployments.stop();
+        services.stop();
+        configMaps.stop();
+        secrets.stop();
+        autoscalers.stop();
+    }
+    
+    public Deployment getDeployment(String namespace, String name) {
+        return deployments.get(namespace, name);
+    }
+    
+    public Service getService(String namespace, String name) {
+        return services.get(namespace, name);
+    }
+    
+    public ConfigMap getConfigMap(String namespace, String name) {
+        return configMaps.get(namespace, name);
+    }
+    
+    public Secret getSecret(String namespace, String name) {
+        return secrets.get(namespace, name);
+    }
+    
+    /**
+     * чи керує репліками деплойменту автоскейлер
+     * whether an autoscaler manages the replicas of the deployment
+     * управляет ли репликами деплоймента автоскейлер
+     */
+    public boolean isAutoscaled(String namespace, String deploymentName) {
+        return !autoscalers.byIndex(namespace, SCALE_TARGET_INDEX, Cache.namespaceKeyFunc(namespace, deploymentName)).isEmpty();
+    }
+    
+    /**
+     * запам'ятовує стан ресурсу, щойно записаного оператором або звіреного з бажаним станом
+     * remembers the state of a resource just written by the operator or checked against the desired state
+     * запоминает состояние ресурса, только что записанного оператором или сверенного с желаемым состоянием
+     */
+    public void markApplied(HasMetadata resource) {
+        appliedStates.put(appliedKey(resource), new AppliedState(resource.getMetadata()));
+    }
+    
+    /**
+     * чи ніхто не змінював ресурс з моменту, коли оператор його записав або звірив; зміни лише статусу
+     * ресурсів з поколінням не враховуються, як і в подіях розбіжностей
+     * whether nobody changed the resource since the operator wrote or checked it; status-only changes
+     * of resources with a generation are not counted, as in the drift events
+     * не менял ли никто ресурс с момента, когда оператор его записал или сверил; изменения только статуса
+     * ресурсов с поколением не учитываются, как и в событиях расхождений
+     */
+    public boolean isUnchangedSinceApplied(HasMetadata resource) {
+        AppliedState state = appliedStates.get(appliedKey(resource));
+        return state != null && state.matches(resource.getMetadata());
+    }
+    
+    private static String appliedKey(HasMetadata resource) {
+        return resource.getKind() + "/" + Cache.metaNamespaceKeyFunc(resource);
+    }
+    
+    /**
+     * всі закешовані ресурси, що належать аплікації
+     * all cached resources that belong to an application
+     * все закэшированные ресурсы, принадлежащие приложению
+     */
+    public List<HasMetadata> getOwnedResources(String namespace, String appName) {
+        String key = ownerKey(namespace, appName);
+        List<HasMetadata> owned = new ArrayList<>();
+        owned.addAll(deployments.byIndex(namespace, OWNER_INDEX, key));
+        owned.addAll(services.byIndex(namespace, OWNER_INDEX, key));
+        owned.addAll(configMaps.byIndex(namespace, OWNER_INDEX, key));
+        owned.addAll(secrets.byIndex(namespace, OWNER_INDEX, key));
+        return owned;
+    }
+    
+    /**
+     * стан ресурсу, достатній, щоб помітити чужі зміни: покоління, мітки та власники або, для ресурсів
+     * без покоління, resourceVersion
+     * resource state sufficient to notice foreign changes: the generation, labels and owners or, for resources
+     * without a generation, the resourceVersion
+     * состояние ресурса, достаточное, чтобы заметить чужие изменения: поколение, метки и владельцы или, для ресурсов
+     * без поколения, resourceVersion
+     */
+    private static final class AppliedState {
+        private final String resourceVersion;
+        private final Long generation;
+        private final Map<String, String> labels;
+        private final List<OwnerReference> owners;
+        
+        private AppliedState(ObjectMeta metadata) {
+            this.resourceVersion = metadata.getResourceVersion();
+            this.generation = metadata.getGeneration();
+            this.labels = metadata.getLabels();
+            this.owners = metadata.getOwnerReferences();
+        }
+        
+        private boolean matches(ObjectMeta metadata) {
+            if (generation == null || metadata.getGeneration() == null) {
+                return Objects.equals(resourceVersion, metadata.getResourceVersion());
+            }
+            return generation.equals(metadata.getGeneration())
+                    && Objects.equals(labels, metadata.getLabels())
+                    && Objects.equals(owners, metadata.getOwnerReferences());
+        }
+    }
+    
+    /**
+     * прибирає запам'ятований стан видаленого ресурсу
+     * drops the remembered state of a deleted resource
+     * убирает запомненное состояние удаленного ресурса
+     */
+    private final class AppliedStateCleaner<T extends HasMetadata> implements ResourceEventHandler<T> {
+        @Override
+        public void onAdd(T obj) {
+        }
+        
+        @Override
+        public void onUpdate(T oldObj, T newObj) {
+        }
+        
+        @Override
+        public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+            appliedStates.remove(appliedKey(obj));
+        }
+    }
+    
+    /**
+     * переводить події ресурсу оператора у ключ аплікації-власника
+     * turns events of an operator resource into the owning application key
+     * переводит события ресурса оператора в ключ приложения-владельца
+     */
+    private static class OwnerEventHandler<T extends HasMetadata> implements ResourceEventHandler<T> {
+        private final String resource;
+        private final Consumer<String> enqueue;
+        
+        OwnerEventHandler(String resource, Consumer<String> enqueue) {
+            this.resource = resource;
+            this.enqueue = enqueue;
+        }
+        
+        @Override
+        public void onAdd(T obj) {
+            OperatorMetrics.INFORMER_EVENTS.labels(resource, "add").inc();
+        }
+        
+        @Override
+        public void onUpdate(T oldObj, T newObj) {
+            OperatorMetrics.INFORMER_EVENTS.labels(resource, "update").inc();
+            if (isDrift(oldObj.getMetadata(), newObj.getMetadata())) {
+                enqueueOwner(newObj);
+            }
+        }
+        
+        @Override
+        public void onDelete(T obj, boolean deletedFinalStateUnknown) {
+            OperatorMetrics.INFORMER_EVENTS.labels(resource, "delete").inc();
+            enqueueOwner(obj);
+        }
+        
+        private void enqueueOwner(T obj) {
+            String owner = ownerOf(obj);
+            if (owner != null) {
+                enqueue.accept(owner);
+            }
+        }
+        
+        /**
+         * чи могла зміна розійтися з бажаним станом; оновлення лише статусу (наприклад, готовність подів
+         * деплойменту) не змінюють покоління і пропускаються
+         * whether the change may have diverged from the desired state; status-only updates (e.g. deployment
+         * pod readiness) do not change the generation and are skipped
+         * могло ли изменение разойтись с желаемым состоянием; обновления только статуса (например, готовность подов
+         * деплоймента) не меняют поколение и пропускаются
+         */
+        private static boolean isDrift(ObjectMeta oldMeta, ObjectMeta newMeta) {
+            if (Objects.equals(oldMeta.getResourceVersion(), newMeta.getResourceVersion())) {
+                return false;
+            }
+            
+            // ресурси без покоління (конфігмапи, секрети) змінюються лише разом зі своїми даними
+            // resources without a generation (configmaps, secrets) only change together with their data
+            // ресурсы без поколения (конфигмапы, секреты) меняются только вместе со своими данными
+            if (newMeta.getGeneration() == null) {
+                return true;
+            }
+            return !Objects.equals(oldMeta.getGeneration(), newMeta.getGeneration())
+                    || !Objects.equals(oldMeta.getLabels(), newMeta.getLabels())
+                    || !Objects.equals(oldMeta.getOwnerReferences(), newMeta.getOwnerReferences());
+        }
+    }
+    
+    /**
+     * поява, зміна цілі або видалення автоскейлера повертає аплікацію деплойменту в чергу:
+     * поле replicas треба прибрати із записаного стану або повернути в нього
+     * an autoscaler being added, retargeted or deleted puts the deployment's application back into the queue:
+     * the replicas field has to be dropped from the applied state or brought back into it
+     * появление, смена цели или удаление автоскейлера возвращает приложение деплоймента в очередь:
+     * поле replicas надо убрать из записанного состояния или вернуть в него
+     */
+    private final class AutoscalerEventHandler implements ResourceEventHandler<HorizontalPodAutoscaler> {
+        private final Consumer<String> enqueue;
+        
+        AutoscalerEventHandler(Consumer<String> enqueue) {
+            this.enqueue = enqueue;
+        }
+        
+        @Override
+        public void onAdd(HorizontalPodAutoscaler obj) {
+            OperatorMetrics.INFORMER_EVENTS.labels("horizontalpodautoscaler", "add").inc();
+            enqueueOwner(scaleTargetOf(obj));
+        }
+        
+        @Override
+        public void onUpdate(HorizontalPodAutoscaler oldObj, HorizontalPodAutoscaler newObj) {
+            OperatorMetrics.INFORMER_EVENTS.labels("horizontalpodautoscaler", "update").inc();
+            String oldTarget = scaleTargetOf(oldObj);
+            String newTarget = scaleTargetOf(newObj);
+            if (!Objects.equals(oldTarget, newTarget)) {
+                enqueueOwner(oldTarget);
+                enqueueOwner(newTarget);
+            }
+        }
+        
+        @Override
+        public void onDelete(HorizontalPodAutoscaler obj, boolean deletedFinalStateUnknown) {
+            OperatorMetrics.INFORMER_EVENTS.labels("horizontalpodautoscaler", "delete").inc();
+            enqueueOwner(scaleTargetOf(obj));
+        }
+        
+        private void enqueueOwner(String target) {
+            Deployment deployment = target == null ? null : deployments.getByKey(target);
+            String owner = deployment == null ? null : ownerOf(deployment);
+            if (owner != null) {
+                enqueue.accept(owner);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.sparky.operator.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import io.fabric8.kubernetes.client.informers.cache.BasicItemStore;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * сховище інформера, що прибирає з об'єкта поля, яких оператор ніколи не читає, ще до збереження в кеші
+ * informer store that strips fields the operator never reads from an object before it is cached
+ * хранилище информера, которое убирает из объекта поля, которые оператор никогда не читает, еще до сохранения в кэше
+ *
+ * обробники подій інформера отримують той самий обрізаний об'єкт, тому обрізати можна лише те,
+ * чого не читають ні сервіси, ні обробники; resourceVersion, мітки, власники та фіналізатори лишаються
+ * informer event handlers receive the same pruned object, so only what neither the services nor the handlers
+ * read may be pruned; resourceVersion, labels, owners and finalizers are kept
+ * обработчики событий информера получают тот же обрезанный объект, поэтому обрезать можно только то,
+ * чего не читают ни сервисы, ни обработчики; resourceVersion, метки, владельцы и финализаторы остаются
+ */
+public class PruningItemStore<T extends HasMetadata> extends BasicItemStore<T> {
+    // анотація kubectl apply з повною копією об'єкта
+    // kubectl apply annotation holding a full copy of the object
+    // аннотация kubectl apply с полной копией объекта
+    public static final String LAST_APPLIED_ANNOTATION = "kubectl.kubernetes.io/last-applied-configuration";
+    
+    private final Consumer<T> pruner;
+    
+    public PruningItemStore(Consumer<T> pruner) {
+        super(Cache::metaNamespaceKeyFunc);
+        this.pruner = pruner;
+    }
+    
+    /**
+     * сховище, що прибирає лише зайві метадані
+     * store that strips only the unused metadata
+     * хранилище, которое убирает только лишние метаданные
+     */
+    public static <T extends HasMetadata> PruningItemStore<T> metadataOnly() {
+        return new PruningItemStore<>(PruningItemStore::pruneMetadata);
+    }
+    
+    @Override
+    public T put(String key, T obj) {
+        pruner.accept(obj);
+        return super.put(key, obj);
+    }
+    
+    /**
+     * прибирає managedFields та анотацію kubectl apply - зазвичай найбільші частини метаданих
+     * strips managedFields and the kubectl apply annotation - usually the largest parts of the metadata
+     * убирает managedFields и аннотацию kubectl apply - обычно самые большие части метаданных
+     */
+    public static void pruneMetadata(HasMetadata resource) {
+        ObjectMeta metadata = resource.getMetadata();
+        metadata.setManagedFields(null);
+        
+        Map<String, String> annotations = metadata.getAnnotations();
+        if (annotations != null && annotations.remove(LAST_APPLIED_ANNOTATION) != null && annotations.isEmpty()) {
+            metadata.setAnnotations(null);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.sparky.operator.cache;
+
+import com.sparky.operator.metrics.OperatorMetrics;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * кеш побудованого бажаного стану: аплікація, чиї входи не змінилися, отримує той самий об'єкт
+ * без повторної побудови графа fabric8 і Quantity
+ * cache of the rendered desired state: an application whose inputs did not change gets the same object
+ * without rebuilding the fabric8 graph and the Quantity objects
+ * кэш построенного желаемого состояния: приложение, чьи входы не изменились, получает тот же объект
+ * без повторного построения графа fabric8 и Quantity
+ *
+ * ключ - список входів побудови (uid, потрібні частини специфікації); він порівнюється повністю, а не лише за хешем,
+ * тож колізія не поверне застарілий об'єкт. обмежений кількістю аплікацій, найдовше невикористані витісняються
+ * the key is the list of render inputs (uid, the relevant spec sections); it is compared in full rather than by hash alone,
+ * so a collision never returns a stale object. bounded by the number of applications, least recently used ones are evicted
+ * ключ - список входов построения (uid, нужные части спецификации); он сравнивается полностью, а не только по хешу,
+ * поэтому коллизия не вернет устаревший объект. ограничен количеством приложений, дольше всех неиспользуемые вытесняются
+ *
+ * збережені об'єкти спільні для всіх примирень, тому викликачі їх лише читають і серіалізують
+ * stored objects are shared by every reconcile, so callers only read and serialize them
+ * сохраненные объекты общие для всех примирений, поэтому вызывающие их только читают и сериализуют
+ */
+public class RenderCache {
+    private final int maxApps;
+    
+    // ключ аплікації namespace/name -> побудовані ресурси за видом; порядок доступу для витіснення
+    // application key namespace/name -> rendered resources by kind; access order for eviction
+    // ключ приложения namespace/name -> построенные ресурсы по виду; порядок доступа для вытеснения
+    private final LinkedHashMap<String, Map<String, Rendered>> apps;
+    
+    /**
+     * @param maxApps скільки аплікацій тримати; 0 вимикає кеш /
+     *                how many applications to keep; 0 disables the cache /
+     *                сколько приложений держать; 0 выключает кэш
+     */
+    public RenderCache(int maxApps) {
+        this.maxApps = Math.max(0, maxApps);
+        this.apps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, Rendered>> eldest) {
+                return size() > RenderCache.this.maxApps;
+            }
+        };
+    }
+    
+    /**
+     * вимкнений кеш: кожен виклик будує об'єкт заново
+     * disabled cache: every call renders the object anew
+     * выключенный кэш: каждый вызов строит объект заново
+     */
+    public static RenderCache disabled() {
+        return new RenderCache(0);
+    }
+    
+    /**
+     * побудований ресурс аплікації; будує заново, лише якщо входи відрізняються від збережених
+     * rendered resource of an application; renders anew only if the inputs differ from the stored ones
+     * построенный ресурс приложения; строит заново, только если входы отличаются от сохраненных
+     *
+     * @param kind     вид ресурсу, наприклад deployment / resource kind, e.g. deployment / вид ресурса, например deployment
+     * @param inputs   усе, від чого залежить результат; після виклику не змінюється /
+     *                 everything the result depends on; not modified after the call /
+     *                 все, от чего зависит результат; после вызова не меняется
+     * @param renderer побудова ресурсу / renders the resource / построение ресурса
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T render(HasMetadata app, String kind, List<?> inputs, Supplier<T> renderer) {
+        if (maxApps == 0) {
+            return renderer.get();
+        }
+        
+        String key = Cache.metaNamespaceKeyFunc(app);
+        synchronized (apps) {
+            Map<String, Rendered> rendered = apps.get(key);
+            Rendered cached = rendered != null ? rendered.get(kind) : null;
+            if (cached != null && cached.inputs.equals(inputs)) {
+                OperatorMetrics.RENDER_CACHE.labels(kind, "hit").inc();
+                return (T) cached.object;
+            }
+        }
+        
+        // будуємо поза блокуванням - кроки інших аплікацій не чекають
+        // render outside the lock - steps of other applications do not wait
+        // строим вне блокировки - шаги других приложений не ждут
+        T object = renderer.get();
+        synchronized (apps) {
+            apps.computeIfAbsent(key, k -> new HashMap<>()).put(kind, new Rendered(inputs, object));
+        }
+        OperatorMetrics.RENDER_CACHE.labels(kind, "miss").inc();
+        return object;
+    }
+    
+    /**
+     * прибирає всі ресурси видаленої аплікації
+     * removes every resource of a deleted application
+     * убирает все ресурсы удаленного приложения
+     */
+    public void evict(String key) {
+        synchronized (apps) {
+            apps.remove(key);
+        }
+    }
+    
+    public int size() {
+        synchronized (apps) {
+            return apps.size();
+        }
+    }
+    
+    private static final class Rendered {
+        private final List<?> inputs;
+        private final Object object;
+        
+        private Rendered(List<?> inputs, Object object) {
+            this.inputs = inputs;
+            this.object = object;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.sparky.operator.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * інформери одного типу ресурсу в межах області спостереження: один на весь кластер
+ * або по одному на кожен дозволений простір імен
+ * informers of one resource type within the watch scope: one for the whole cluster
+ * or one per allowed namespace
+ * информеры одного типа ресурса в пределах области наблюдения: один на весь кластер
+ * или по одному на каждое разрешенное пространство имен
+ */
+public class ScopedInformers<T extends HasMetadata> {
+    // інформер на весь кластер; null, якщо спостерігаємо окремі простори імен
+    // cluster-wide informer; null when individual namespaces are watched
+    // информер на весь кластер; null, если наблюдаем отдельные пространства имен
+    private final SharedIndexInformer<T> clusterInformer;
+    private final Map<String, SharedIndexInformer<T>> namespaceInformers;
+    
+    private ScopedInformers(SharedIndexInformer<T> clusterInformer, Map<String, SharedIndexInformer<T>> namespaceInformers) {
+        this.clusterInformer = clusterInformer;
+        this.namespaceInformers = namespaceInformers;
+    }
+    
+    /**
+     * створює інформери для області спостереження
+     * creates the informers for the watch scope
+     * создает информеры для области наблюдения
+     *
+     * @param namespaces дозволені простори імен; порожній список - увесь кластер /
+     *                   allowed namespaces; an empty list means the whole cluster /
+     *                   разрешенные пространства имен; пустой список - весь кластер
+     * @param factory    інформер для простору імен або null для всього кластера /
+     *                   informer for a namespace or null for the whole cluster /
+     *                   информер для пространства имен или null для всего кластера
+     */
+    public static <T extends HasMetadata> ScopedInformers<T> create(Collection<String> namespaces,
+                                                                   Function<String, SharedIndexInformer<T>> factory) {
+        if (namespaces.isEmpty()) {
+            return new ScopedInformers<>(factory.apply(null), Collections.emptyMap());
+        }
+        
+        Map<String, SharedIndexInformer<T>> informers = new LinkedHashMap<>();
+        for (String namespace : namespaces) {
+            informers.put(namespace, factory.apply(namespace));
+        }
+        return new ScopedInformers<>(null, Collections.unmodifiableMap(informers));
+    }
+    
+    /**
+     * операція над одним простором імен або над усім кластером, якщо namespace дорівнює null
+     * operation on one namespace or on the whole cluster when namespace is null
+     * операция над одним пространством имен или над всем кластером, если namespace равен null
+     */
+    public static <T extends HasMetadata, L extends KubernetesResourceList<T>, R extends Resource<T>>
+            FilterWatchListDeletable<T, L, R> inScope(MixedOperation<T, L, R> operation, String namespace) {
+        return namespace == null ? operation.inAnyNamespace() : operation.inNamespace(namespace);
+    }
+    
+    /**
+     * інформер, що бачить простір імен, або null, якщо простір імен поза областю
+     * the informer that sees the namespace, or null if the namespace is out of scope
+     * информер, который видит пространство имен, или null, если пространство имен вне области
+     */
+    public SharedIndexInformer<T> informerFor(String namespace) {
+        return clusterInformer != null ? clusterInformer : namespaceInformers.get(namespace);
+    }
+    
+    /**
+     * виконує дію для кожного інформера, наприклад щоб додати індекс або обробник
+     * runs an action for every informer, e.g. to add an index or a handler
+     * выполняет действие для каждого информера, например чтобы добавить индекс или обработчик
+     */
+    public void forEach(Consumer<SharedIndexInformer<T>> action) {
+        if (clusterInformer != null) {
+            action.accept(clusterInformer);
+        }
+        namespaceInformers.values().forEach(action);
+    }
+    
+    public T get(String namespace, String name) {
+        SharedIndexInformer<T> informer = informerFor(namespace);
+        return informer != null ? informer.getIndexer().getByKey(Cache.namespaceKeyFunc(namespace, name)) : null;
+    }
+    
+    /**
+     * об'єкт за ключем namespace/name
+     * object by its namespace/name key
+     * объект по ключу namespace/name
+     */
+    public T getByKey(String key) {
+        int slash = key.indexOf('/');
+        return get(key.substring(0, slash), key.substring(slash + 1));
+    }
+    
+    /**
+     * об'єкти простору імен за значенням індексу
+     * objects of a namespace by index value
+     * объекты пространства имен по значению индекса
+     */
+    public List<T> byIndex(String namespace, String indexName, String indexKey) {
+        SharedIndexInformer<T> informer = informerFor(namespace);
+        return informer != null ? informer.getIndexer().byIndex(indexName, indexKey) : Collections.emptyList();
+    }
+    
+    /**
+     * усі закешовані об'єкти в області
+     * all cached objects in the scope
+     * все закэшированные объекты в области
+     */
+    public List<T> list() {
+        List<T> all = new ArrayList<>();
+        forEach(informer -> all.addAll(informer.getStore().list()));
+        return all;
+    }
+    
+    /**
+     * запускає всі інформери; завершується після першої синхронізації кожного
+     * starts all informers; completes after the initial sync of each
+     * запускает все информеры; завершается после первой синхронизации каждого
+     */
+    public CompletableFuture<Void> start() {
+        List<CompletableFuture<Void>> started = new ArrayList<>();
+        forEach(informer -> started.add(informer.start().toCompletableFuture()));
+        return CompletableFuture.allOf(started.toArray(new CompletableFuture[0]));
+    }
+    
+    public void stop() {
+        forEach(SharedIndexInformer::stop);
+    }
+}
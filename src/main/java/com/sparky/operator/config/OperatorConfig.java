@@ -0,0 +1,564 @@
+package com.sparky.operator.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * налаштування оператора зі змінних середовища
+ * operator settings from environment variables
+ * настройки оператора из переменных среды
+ */
+public class OperatorConfig {
+    private static final Logger logger = LoggerFactory.getLogger(OperatorConfig.class);
+    
+    // кількість потоків, що обробляють чергу примирення
+    // number of threads processing the reconcile queue
+    // количество потоков, обрабатывающих очередь примирения
+    private int workerThreads = 8;
+    
+    // потоки виконання примирень: auto (віртуальні, якщо jvm їх підтримує), virtual або platform
+    // reconcile execution threads: auto (virtual when the jvm supports them), virtual or platform
+    // потоки выполнения примирений: auto (виртуальные, если jvm их поддерживает), virtual или platform
+    private String executorMode = "auto";
+    
+    // кількість робочих циклів на віртуальних потоках, тобто одночасних примирень
+    // number of worker loops on virtual threads, i.e. concurrent reconciles
+    // количество рабочих циклов на виртуальных потоках, то есть одновременных примирений
+    private int virtualWorkerThreads = 1024;
+    
+    // скільки запитів клієнт кубернетеса тримає одночасно; решта чекає в черзі диспетчера http.
+    // 0 - два на робочий цикл плюс запас для watch
+    // how many requests the kubernetes client keeps in flight at once; the rest wait in the http dispatcher queue.
+    // 0 - two per worker loop plus room for watches
+    // сколько запросов клиент кубернетеса держит одновременно; остальные ждут в очереди диспетчера http.
+    // 0 - два на рабочий цикл плюс запас для watch
+    private int apiMaxConcurrentRequests = 0;
+    
+    // кількість потоків для паралельних кроків примирення
+    // number of threads for parallel reconciliation steps
+    // количество потоков для параллельных шагов примирения
+    private int stepThreads = 16;
+    
+    // початкова та максимальна затримка повторів після помилки
+    // initial and maximum retry delay after an error
+    // начальная и максимальная задержка повторов после ошибки
+    private long backoffBaseMillis = 1000;
+    private long backoffMaxMillis = 5 * 60 * 1000L;
+    
+    // частка затримки, на яку її можна випадково зменшити
+    // fraction of the delay it may be randomly reduced by
+    // доля задержки, на которую ее можно случайно уменьшить
+    private double backoffJitter = 0.5;
+    
+    // як часто перевіряти базу даних, що ще створюється
+    // how often to check a database that is still being created
+    // как часто проверять базу данных, которая еще создается
+    private long databasePollSeconds = 20;
+    
+    // режим роботи кількох реплік: none, leader або sharded
+    // multi-replica mode: none, leader or sharded
+    // режим работы нескольких реплик: none, leader или sharded
+    private String haMode = "none";
+    
+    // простір імен для lease-об'єктів лідерства та членства
+    // namespace for the leadership and membership lease objects
+    // пространство имен для lease-объектов лидерства и членства
+    private String leaseNamespace = "kube-system";
+    
+    // скільки секунд lease дійсний без поновлення
+    // how many seconds a lease stays valid without renewal
+    // сколько секунд lease действителен без обновления
+    private int leaseDurationSeconds = 15;
+    
+    // унікальне ім'я цієї репліки
+    // unique name of this replica
+    // уникальное имя этой реплики
+    private String identity = UUID.randomUUID().toString();
+    
+    // порт http-сервера метрик prometheus; 0 вимикає сервер
+    // port of the prometheus metrics http server; 0 disables the server
+    // порт http-сервера метрик prometheus; 0 выключает сервер
+    private int metricsPort = 8080;
+    
+    // адреса api rds замість стандартної регіональної, наприклад заглушка для навантажувальних тестів; null - стандартна
+    // rds api address instead of the regional default, e.g. a stub for load tests; null - the default
+    // адрес api rds вместо стандартного регионального, например заглушка для нагрузочных тестов; null - стандартный
+    private String rdsEndpoint;
+    
+    // прибирати з об'єктів у кешах інформерів поля, яких оператор не читає (managedFields, анотацію kubectl, статус)
+    // strip fields the operator never reads from objects in the informer caches (managedFields, kubectl annotation, status)
+    // убирать из объектов в кэшах информеров поля, которые оператор не читает (managedFields, аннотацию kubectl, статус)
+    private boolean cachePrune = true;
+    
+    // простори імен, які спостерігає оператор, по інформеру на кожен; порожній список - увесь кластер
+    // namespaces the operator watches, one informer each; an empty list means the whole cluster
+    // пространства имен, которые наблюдает оператор, по информеру на каждое; пустой список - весь кластер
+    private List<String> watchNamespaces = Collections.emptyList();
+    
+    // селектор міток для SpringBootApp, наприклад tenant-group=a; null - усі аплікації
+    // label selector for SpringBootApp, e.g. tenant-group=a; null means every application
+    // селектор меток для SpringBootApp, например tenant-group=a; null - все приложения
+    private String watchLabelSelector;
+    
+    // як часто інформер повторно надсилає всі аплікації; розбіжності видно з подій створених ресурсів,
+    // тож це лише запасна перевірка; 0 вимикає повтори
+    // how often the informer replays every application; drift is seen from events of the created resources,
+    // so this is only a safety net; 0 disables the replay
+    // как часто информер повторно присылает все приложения; расхождения видны из событий созданных ресурсов,
+    // поэтому это лишь запасная проверка; 0 выключает повторы
+    private long resyncSeconds = 10 * 60 * 60L;
+    
+    // для скількох аплікацій тримати побудований бажаний стан; 0 вимикає кеш побудови
+    // how many applications to keep the rendered desired state for; 0 disables the render cache
+    // для скольких приложений держать построенное желаемое состояние; 0 выключает кэш построения
+    private int renderCacheSize = 10000;
+    
+    // швидкість (аплікацій за секунду) і сплеск початкової синхронізації після старту; 0 вимикає обмеження
+    // rate (applications per second) and burst of the initial sync after startup; 0 disables the limit
+    // скорость (приложений в секунду) и всплеск начальной синхронизации после старта; 0 выключает ограничение
+    private double initialSyncRate = 50;
+    private int initialSyncBurst = 50;
+    
+    // частка робочих потоків для фонових смуг черги разом (повтори, ресинхронізація) і межа старіння ключа в секундах
+    // share of the worker threads for the background queue lanes together (retries, resync) and the key aging limit in seconds
+    // доля рабочих потоков для фоновых полос очереди вместе (повторы, ресинхронизация) и предел старения ключа в секундах
+    private double queueBackgroundShare = 0.5;
+    private long queueAgingSeconds = 30;
+    
+    // скільки примирень одного простору імен виконуються одночасно (0 - без обмеження)
+    // і ваги просторів імен у вигляді namespace=weight; решта має вагу 1
+    // how many reconciles of one namespace run at the same time (0 - no limit)
+    // and namespace weights as namespace=weight; the rest have weight 1
+    // сколько примирений одного пространства имен выполняются одновременно (0 - без ограничения)
+    // и веса пространств имен в виде namespace=weight; остальные имеют вес 1
+    private int namespaceMaxInFlight = 0;
+    private Map<String, Integer> namespaceWeights = Collections.emptyMap();
+    
+    // куди надсилати спани примирень: ендпоінт otlp/http колектора або локальний файл, якщо колектора немає;
+    // без обох трасування вимкнене. частка трас, що записуються
+    // where to send reconcile spans: an otlp/http collector endpoint or a local file when there is no collector;
+    // with neither tracing is off. fraction of traces that are recorded
+    // куда отправлять спаны примирений: эндпоинт otlp/http коллектора или локальный файл, если коллектора нет;
+    // без обоих трассировка выключена. доля трасс, которые записываются
+    private String otlpEndpoint = null;
+    private String traceFile = null;
+    private double traceSampleRatio = 1.0;
+    
+    /**
+     * читає налаштування зі змінних середовища
+     * reads settings from environment variables
+     * читает настройки из переменных среды
+     */
+    public static OperatorConfig fromEnvironment() {
+        OperatorConfig config = new OperatorConfig();
+        config.setWorkerThreads(getIntEnv("SPARKY_WORKER_THREADS", config.getWorkerThreads()));
+        config.setExecutorMode(getStringEnv("SPARKY_EXECUTOR", config.getExecutorMode()));
+        config.setVirtualWorkerThreads(getIntEnv("SPARKY_VIRTUAL_WORKER_THREADS", config.getVirtualWorkerThreads()));
+        config.setApiMaxConcurrentRequests(getIntEnv("SPARKY_API_MAX_CONCURRENT_REQUESTS", config.getApiMaxConcurrentRequests()));
+        config.setStepThreads(getIntEnv("SPARKY_STEP_THREADS", config.getStepThreads()));
+        config.setBackoffBaseMillis(getLongEnv("SPARKY_BACKOFF_BASE_MS", config.getBackoffBaseMillis()));
+        config.setBackoffMaxMillis(getLongEnv("SPARKY_BACKOFF_MAX_MS", config.getBackoffMaxMillis()));
+        config.setBackoffJitter(getDoubleEnv("SPARKY_BACKOFF_JITTER", config.getBackoffJitter()));
+        config.setDatabasePollSeconds(getLongEnv("SPARKY_DATABASE_POLL_SECONDS", config.getDatabasePollSeconds()));
+        config.setHaMode(getStringEnv("SPARKY_HA_MODE", config.getHaMode()));
+        config.setLeaseNamespace(getStringEnv("SPARKY_LEASE_NAMESPACE", getStringEnv("POD_NAMESPACE", config.getLeaseNamespace())));
+        config.setLeaseDurationSeconds(getIntEnv("SPARKY_LEASE_DURATION_SECONDS", config.getLeaseDurationSeconds()));
+        config.setIdentity(getStringEnv("POD_NAME", getStringEnv("HOSTNAME", config.getIdentity())));
+        config.setMetricsPort(getIntEnv("SPARKY_METRICS_PORT", config.getMetricsPort()));
+        config.setRdsEndpoint(getStringEnv("SPARKY_RDS_ENDPOINT", config.getRdsEndpoint()));
+        config.setCachePrune(getBooleanEnv("SPARKY_CACHE_PRUNE", config.isCachePrune()));
+        config.setWatchNamespaces(getListEnv("SPARKY_WATCH_NAMESPACES", config.getWatchNamespaces()));
+        config.setWatchLabelSelector(getStringEnv("SPARKY_WATCH_LABEL_SELECTOR", config.getWatchLabelSelector()));
+        config.setResyncSeconds(getLongEnv("SPARKY_RESYNC_SECONDS", config.getResyncSeconds()));
+        config.setRenderCacheSize(getIntEnv("SPARKY_RENDER_CACHE_SIZE", config.getRenderCacheSize()));
+        config.setInitialSyncRate(getDoubleEnv("SPARKY_INITIAL_SYNC_RATE", config.getInitialSyncRate()));
+        config.setInitialSyncBurst(getIntEnv("SPARKY_INITIAL_SYNC_BURST", config.getInitialSyncBurst()));
+        config.setQueueBackgroundShare(getDoubleEnv("SPARKY_QUEUE_BACKGROUND_SHARE", config.getQueueBackgroundShare()));
+        config.setQueueAgingSeconds(getLongEnv("SPARKY_QUEUE_AGING_SECONDS", config.getQueueAgingSeconds()));
+        config.setNamespaceMaxInFlight(getIntEnv("SPARKY_NAMESPACE_MAX_IN_FLIGHT", config.getNamespaceMaxInFlight()));
+        config.setNamespaceWeights(getWeightsEnv("SPARKY_NAMESPACE_WEIGHTS", config.getNamespaceWeights()));
+        config.setOtlpEndpoint(getStringEnv("SPARKY_OTLP_ENDPOINT",
+                getStringEnv("OTEL_EXPORTER_OTLP_TRACES_ENDPOINT", config.getOtlpEndpoint())));
+        config.setTraceFile(getStringEnv("SPARKY_TRACE_FILE", config.getTraceFile()));
+        config.setTraceSampleRatio(getDoubleEnv("SPARKY_TRACE_SAMPLE_RATIO", config.getTraceSampleRatio()));
+        return config;
+    }
+    
+    /**
+     * отримує рядкове значення зі змінної середовища
+     * gets string value from environment variable
+     * получает строковое значение из переменной среды
+     */
+    protected static String getStringEnv(String name, String defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+    
+    /**
+     * отримує цілочисельне значення зі змінної середовища
+     * gets integer value from environment variable
+     * получает целочисленное значение из переменной среды
+     */
+    protected static int getIntEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("некоректне значення {}={}, використовується {}", name, value, defaultValue); // invalid value, using default
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * отримує довге цілочисельне значення зі змінної середовища
+     * gets long integer value from environment variable
+     * получает длинное целочисленное значение из переменной среды
+     */
+    protected static long getLongEnv(String name, long defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("некоректне значення {}={}, використовується {}", name, value, defaultValue); // invalid value, using default
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * отримує дробове значення зі змінної середовища
+     * gets fractional value from environment variable
+     * получает дробное значение из переменной среды
+     */
+    protected static double getDoubleEnv(String name, double defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("некоректне значення {}={}, використовується {}", name, value, defaultValue); // invalid value, using default
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * отримує логічне значення зі змінної середовища
+     * gets boolean value from environment variable
+     * получает логическое значение из переменной среды
+     */
+    protected static boolean getBooleanEnv(String name, boolean defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        if (!normalized.equals("true") && !normalized.equals("false")) {
+            logger.warn("некоректне значення {}={}, використовується {}", name, value, defaultValue); // invalid value, using default
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(normalized);
+    }
+    
+    /**
+     * отримує список значень через кому зі змінної середовища; порожні елементи та повтори пропускаються
+     * gets a comma-separated list from environment variable; empty items and duplicates are skipped
+     * получает список значений через запятую из переменной среды; пустые элементы и повторы пропускаются
+     */
+    protected static List<String> getListEnv(String name, List<String> defaultValue) {
+        String value = System.getenv(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        
+        Set<String> items = new LinkedHashSet<>();
+        for (String item : value.split(",")) {
+            if (!item.trim().isEmpty()) {
+                items.add(item.trim());
+            }
+        }
+        return new ArrayList<>(items);
+    }
+    
+    /**
+     * отримує ваги зі змінної середовища у вигляді name=weight,name=weight
+     * gets weights from environment variable as name=weight,name=weight
+     * получает веса из переменной среды в виде name=weight,name=weight
+     */
+    protected static Map<String, Integer> getWeightsEnv(String name, Map<String, Integer> defaultValue) {
+        List<String> items = getListEnv(name, Collections.emptyList());
+        if (items.isEmpty()) {
+            return defaultValue;
+        }
+        
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String item : items) {
+            int eq = item.indexOf('=');
+            try {
+                weights.put(item.substring(0, eq).trim(), Math.max(1, Integer.parseInt(item.substring(eq + 1).trim())));
+            } catch (RuntimeException e) {
+                logger.warn("некоректна вага {} у {}, пропускається", item, name); // invalid weight, skipped
+            }
+        }
+        return weights;
+    }
+    
+    // стандартні геттери та сеттери
+    // standard getters and setters
+    // стандартные геттеры и сеттеры
+    
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+    
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = Math.max(1, workerThreads);
+    }
+    
+    public String getExecutorMode() {
+        return executorMode;
+    }
+    
+    public void setExecutorMode(String executorMode) {
+        this.executorMode = executorMode.toLowerCase(Locale.ROOT);
+    }
+    
+    public int getVirtualWorkerThreads() {
+        return virtualWorkerThreads;
+    }
+    
+    public void setVirtualWorkerThreads(int virtualWorkerThreads) {
+        this.virtualWorkerThreads = Math.max(1, virtualWorkerThreads);
+    }
+    
+    public int getApiMaxConcurrentRequests() {
+        return apiMaxConcurrentRequests;
+    }
+    
+    public void setApiMaxConcurrentRequests(int apiMaxConcurrentRequests) {
+        this.apiMaxConcurrentRequests = Math.max(0, apiMaxConcurrentRequests);
+    }
+    
+    public int getStepThreads() {
+        return stepThreads;
+    }
+    
+    public void setStepThreads(int stepThreads) {
+        this.stepThreads = Math.max(1, stepThreads);
+    }
+    
+    public long getBackoffBaseMillis() {
+        return backoffBaseMillis;
+    }
+    
+    public void setBackoffBaseMillis(long backoffBaseMillis) {
+        this.backoffBaseMillis = backoffBaseMillis;
+    }
+    
+    public long getBackoffMaxMillis() {
+        return backoffMaxMillis;
+    }
+    
+    public void setBackoffMaxMillis(long backoffMaxMillis) {
+        this.backoffMaxMillis = backoffMaxMillis;
+    }
+    
+    public double getBackoffJitter() {
+        return backoffJitter;
+    }
+    
+    public void setBackoffJitter(double backoffJitter) {
+        this.backoffJitter = backoffJitter;
+    }
+    
+    public long getDatabasePollSeconds() {
+        return databasePollSeconds;
+    }
+    
+    public void setDatabasePollSeconds(long databasePollSeconds) {
+        this.databasePollSeconds = databasePollSeconds;
+    }
+    
+    public String getHaMode() {
+        return haMode;
+    }
+    
+    public void setHaMode(String haMode) {
+        this.haMode = haMode.toLowerCase(Locale.ROOT);
+    }
+    
+    public String getLeaseNamespace() {
+        return leaseNamespace;
+    }
+    
+    public void setLeaseNamespace(String leaseNamespace) {
+        this.leaseNamespace = leaseNamespace;
+    }
+    
+    public int getLeaseDurationSeconds() {
+        return leaseDurationSeconds;
+    }
+    
+    public void setLeaseDurationSeconds(int leaseDurationSeconds) {
+        this.leaseDurationSeconds = Math.max(3, leaseDurationSeconds);
+    }
+    
+    public String getIdentity() {
+        return identity;
+    }
+    
+    public void setIdentity(String identity) {
+        this.identity = identity;
+    }
+    
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+    
+    public void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+    
+    public String getRdsEndpoint() {
+        return rdsEndpoint;
+    }
+    
+    public void setRdsEndpoint(String rdsEndpoint) {
+        this.rdsEndpoint = rdsEndpoint;
+    }
+    
+    public boolean isCachePrune() {
+        return cachePrune;
+    }
+    
+    public void setCachePrune(boolean cachePrune) {
+        this.cachePrune = cachePrune;
+    }
+    
+    public List<String> getWatchNamespaces() {
+        return watchNamespaces;
+    }
+    
+    public void setWatchNamespaces(List<String> watchNamespaces) {
+        this.watchNamespaces = Collections.unmodifiableList(new ArrayList<>(watchNamespaces));
+    }
+    
+    public String getWatchLabelSelector() {
+        return watchLabelSelector;
+    }
+    
+    public void setWatchLabelSelector(String watchLabelSelector) {
+        this.watchLabelSelector = watchLabelSelector;
+    }
+    
+    public long getResyncSeconds() {
+        return resyncSeconds;
+    }
+    
+    public void setResyncSeconds(long resyncSeconds) {
+        this.resyncSeconds = Math.max(0, resyncSeconds);
+    }
+    
+    public int getRenderCacheSize() {
+        return renderCacheSize;
+    }
+    
+    public void setRenderCacheSize(int renderCacheSize) {
+        this.renderCacheSize = Math.max(0, renderCacheSize);
+    }
+    
+    public double getInitialSyncRate() {
+        return initialSyncRate;
+    }
+    
+    public void setInitialSyncRate(double initialSyncRate) {
+        this.initialSyncRate = Math.max(0, initialSyncRate);
+    }
+    
+    public int getInitialSyncBurst() {
+        return initialSyncBurst;
+    }
+    
+    public void setInitialSyncBurst(int initialSyncBurst) {
+        this.initialSyncBurst = Math.max(1, initialSyncBurst);
+    }
+    
+    public double getQueueBackgroundShare() {
+        return queueBackgroundShare;
+    }
+    
+    public void setQueueBackgroundShare(double queueBackgroundShare) {
+        this.queueBackgroundShare = Math.min(1.0, Math.max(0.0, queueBackgroundShare));
+    }
+    
+    public long getQueueAgingSeconds() {
+        return queueAgingSeconds;
+    }
+    
+    public void setQueueAgingSeconds(long queueAgingSeconds) {
+        this.queueAgingSeconds = Math.max(1, queueAgingSeconds);
+    }
+    
+    public int getNamespaceMaxInFlight() {
+        return namespaceMaxInFlight;
+    }
+    
+    public void setNamespaceMaxInFlight(int namespaceMaxInFlight) {
+        this.namespaceMaxInFlight = Math.max(0, namespaceMaxInFlight);
+    }
+    
+    public Map<String, Integer> getNamespaceWeights() {
+        return namespaceWeights;
+    }
+    
+    public void setNamespaceWeights(Map<String, Integer> namespaceWeights) {
+        this.namespaceWeights = namespaceWeights;
+    }
+    
+    public String getOtlpEndpoint() {
+        return otlpEndpoint;
+    }
+    
+    public void setOtlpEndpoint(String otlpEndpoint) {
+        this.otlpEndpoint = otlpEndpoint;
+    }
+    
+    public String getTraceFile() {
+        return traceFile;
+    }
+    
+    public void setTraceFile(String traceFile) {
+        this.traceFile = traceFile;
+    }
+    
+    public double getTraceSampleRatio() {
+        return traceSampleRatio;
+    }
+    
+    public void setTraceSampleRatio(double traceSampleRatio) {
+        this.traceSampleRatio = Math.min(1.0, Math.max(0.0, traceSampleRatio));
+    }
+}
@@ -0,0 +1,35 @@
+package com.sparky.operator.controller;
+
+import java.util.List;
+
+/**
+ * один або кілька кроків примирення завершилися з помилкою
+ * one or more reconciliation steps failed
+ * один или несколько шагов примирения завершились с ошибкой
+ */
+public class ReconcileException extends RuntimeException {
+    private final List<StepResult> results;
+    
+    public ReconcileException(String message, List<StepResult> results) {
+        super(message);
+        this.results = results;
+        
+        // перша помилка стає причиною, решта додаються як пригнічені
+        // the first error becomes the cause, the rest are added as suppressed
+        // первая ошибка становится причиной, остальные добавляются как подавленные
+        for (StepResult result : results) {
+            if (result.getError() == null) {
+                continue;
+            }
+            if (getCause() == null) {
+                initCause(result.getError());
+            } else {
+                addSuppressed(result.getError());
+            }
+        }
+    }
+    
+    public List<StepResult> getResults() {
+        return results;
+    }
+}
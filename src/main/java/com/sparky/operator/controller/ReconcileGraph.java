@@ -0,0 +1,111 @@
+package com.sparky.operator.controller;
+
+import io.opentelemetry.context.Context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * невеликий ациклічний граф кроків примирення; незалежні кроки виконуються паралельно
+ * small acyclic graph of reconciliation steps; independent steps run in parallel
+ * небольшой ациклический граф шагов примирения; независимые шаги выполняются параллельно
+ *
+ * залежність можна вказати лише на вже доданий крок, тому цикл неможливий
+ * a dependency may only name an already added step, so a cycle is impossible
+ * зависимость можно указать только на уже добавленный шаг, поэтому цикл невозможен
+ */
+public class ReconcileGraph {
+    private final Map<String, Step> steps = new LinkedHashMap<>();
+    
+    /**
+     * додає крок, що запуститься після успішного виконання всіх його залежностей
+     * adds a step that runs after all its dependencies succeed
+     * добавляет шаг, который запустится после успешного выполнения всех его зависимостей
+     */
+    public ReconcileGraph addStep(String name, Runnable action, String... dependsOn) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("крок вже існує / step already exists: " + name);
+        }
+        for (String dependency : dependsOn) {
+            if (!steps.containsKey(dependency)) {
+                throw new IllegalArgumentException("невідома залежність / unknown dependency: " + dependency);
+            }
+        }
+        
+        steps.put(name, new Step(name, action, Arrays.asList(dependsOn)));
+        return this;
+    }
+    
+    /**
+     * виконує граф на виконавці та чекає завершення всіх кроків
+     * executes the graph on the executor and waits for all steps to finish
+     * выполняет граф на исполнителе и ждет завершения всех шагов
+     *
+     * @return результати в порядку додавання кроків / results in step order / результаты в порядке добавления шагов
+     */
+    public List<StepResult> execute(Executor executor) {
+        Map<String, CompletableFuture<StepResult>> futures = new LinkedHashMap<>();
+        
+        // кроки продовжують трасу примирення в потоках виконавця
+        // the steps continue the reconcile trace on the executor threads
+        // шаги продолжают трассу примирения в потоках исполнителя
+        Executor traced = Context.current().wrap(executor);
+        
+        for (Step step : steps.values()) {
+            CompletableFuture<?>[] dependencies = step.dependsOn.stream()
+                    .map(futures::get)
+                    .toArray(CompletableFuture[]::new);
+            
+            CompletableFuture<StepResult> future = CompletableFuture.allOf(dependencies)
+                    .thenApplyAsync(ignored -> {
+                        // пропускаємо крок, якщо хоча б одна залежність не виконалася; мапу майбутніх
+                        // ще заповнює потік, що викликав, тому читаємо лише захоплений масив
+                        // skip the step if at least one dependency did not succeed; the calling thread
+                        // is still filling the futures map, so only the captured array is read
+                        // пропускаем шаг, если хотя бы одна зависимость не выполнилась; карту будущих
+                        // еще заполняет вызвавший поток, поэтому читаем только захваченный массив
+                        for (CompletableFuture<?> dependency : dependencies) {
+                            if (((StepResult) dependency.join()).getStatus() != StepResult.Status.SUCCEEDED) {
+                                return StepResult.skipped(step.name);
+                            }
+                        }
+                        return run(step);
+                    }, traced);
+            
+            futures.put(step.name, future);
+        }
+        
+        List<StepResult> results = new ArrayList<>();
+        for (CompletableFuture<StepResult> future : futures.values()) {
+            results.add(future.join());
+        }
+        return results;
+    }
+    
+    private static StepResult run(Step step) {
+        long start = System.nanoTime();
+        try {
+            step.action.run();
+            return StepResult.succeeded(step.name, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            return StepResult.failed(step.name, (System.nanoTime() - start) / 1_000_000, e);
+        }
+    }
+    
+    private static class Step {
+        private final String name;
+        private final Runnable action;
+        private final List<String> dependsOn;
+        
+        private Step(String name, Runnable action, List<String> dependsOn) {
+            this.name = name;
+            this.action = action;
+            this.dependsOn = dependsOn;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.sparky.operator.controller;
+
+import java.time.Duration;
+
+/**
+ * результат примирення - чи треба повторити його через певний час
+ * reconciliation result - whether it should be repeated after some time
+ * результат примирения - нужно ли повторить его через определенное время
+ */
+public class ReconcileResult {
+    private static final ReconcileResult DONE = new ReconcileResult(null);
+    
+    private final Duration requeueAfter;
+    
+    private ReconcileResult(Duration requeueAfter) {
+        this.requeueAfter = requeueAfter;
+    }
+    
+    /**
+     * примирення завершено, повтор не потрібен
+     * reconciliation finished, no requeue needed
+     * примирение завершено, повтор не нужен
+     */
+    public static ReconcileResult done() {
+        return DONE;
+    }
+    
+    /**
+     * повторити примирення через фіксовану затримку (наприклад, база даних ще створюється)
+     * repeat reconciliation after a fixed delay (for example, the database is still being created)
+     * повторить примирение через фиксированную задержку (например, база данных еще создается)
+     */
+    public static ReconcileResult requeueAfter(Duration delay) {
+        return new ReconcileResult(delay);
+    }
+    
+    public boolean isRequeue() {
+        return requeueAfter != null;
+    }
+    
+    public Duration getRequeueAfter() {
+        return requeueAfter;
+    }
+}
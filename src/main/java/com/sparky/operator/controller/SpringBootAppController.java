@@ -1,12 +1,28 @@
 package com.sparky.operator.controller;
 
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.RenderCache;
+import com.sparky.operator.config.OperatorConfig;
 import com.sparky.operator.crd.SpringBootApp;
 import com.sparky.operator.crd.SpringBootAppSpec;
+import com.sparky.operator.metrics.OperatorMetrics;
+import com.sparky.operator.metrics.RequestAccounting;
+import com.sparky.operator.queue.ReconcileExecutors;
 import com.sparky.operator.service.*;
+import com.sparky.operator.tracing.Tracing;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.opentelemetry.api.trace.Span;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
 /**
  * контролер для обробки спринг бут аплікацій
  * controller for processing spring boot applications
@@ -15,134 +31,289 @@ import org.slf4j.LoggerFactory;
 public class SpringBootAppController {
     private static final Logger logger = LoggerFactory.getLogger(SpringBootAppController.class);
     
+    // назви кроків примирення
+    // reconciliation step names
+    // названия шагов примирения
+    public static final String STEP_DATABASE = "database";
+    public static final String STEP_CONFIG = "config";
+    public static final String STEP_DEPLOYMENT = "deployment";
+    public static final String STEP_SERVICE = "service";
+    public static final String STEP_MONITORING = "monitoring";
+    
     private final KubernetesClient client;
+    private final OperatorConfig config;
     private final DeploymentService deploymentService;
     private final ServiceService serviceService;
     private final DatabaseService databaseService;
     private final ConfigService configService;
     private final MonitoringService monitoringService;
+    private final StatusService statusService;
+    private final FinalizerService finalizerService;
+    
+    // побудований бажаний стан аплікацій, спільний для сервісів
+    // rendered desired state of the applications, shared by the services
+    // построенное желаемое состояние приложений, общее для сервисов
+    private final RenderCache renderCache;
     
-    public SpringBootAppController(KubernetesClient client) {
+    // обмежений пул для паралельних кроків примирення
+    // bounded pool for parallel reconciliation steps
+    // ограниченный пул для параллельных шагов примирения
+    private final ExecutorService stepExecutor;
+    
+    public SpringBootAppController(KubernetesClient client, OperatorConfig config, OwnedResourceCache ownedResourceCache,
+                                   Consumer<String> requeue) {
         this.client = client;
-        this.deploymentService = new DeploymentService(client);
-        this.serviceService = new ServiceService(client);
-        this.databaseService = new DatabaseService(client);
-        this.configService = new ConfigService(client);
+        this.config = config;
+        this.renderCache = new RenderCache(config.getRenderCacheSize());
+        this.statusService = new StatusService(client);
+        this.deploymentService = new DeploymentService(client, ownedResourceCache, renderCache);
+        this.serviceService = new ServiceService(client, ownedResourceCache, renderCache);
+        this.databaseService = new DatabaseService(client, config, requeue);
+        this.configService = new ConfigService(client, ownedResourceCache, renderCache);
         this.monitoringService = new MonitoringService(client);
+        this.finalizerService = new FinalizerService(client);
+        
+        this.stepExecutor = ReconcileExecutors.forMode(config.getExecutorMode()).stepExecutor(config.getStepThreads(), "sparky-step");
+    }
+    
+    /**
+     * основна логіка примирення; помилки не перехоплюються, щоб черга повторила спробу з затримкою
+     * main reconciliation logic; errors are not caught so the queue retries with backoff
+     * основная логика примирения; ошибки не перехватываются, чтобы очередь повторила попытку с задержкой
+     */
+    public ReconcileResult reconcile(SpringBootApp app) {
+        ReconcileResult result = ReconcileResult.done();
+        
+        // аплікацію видаляють - лишилося прибрати зовнішні ресурси
+        // the application is being deleted - only external resources are left to clean up
+        // приложение удаляют - осталось убрать внешние ресурсы
+        if (app.getMetadata().getDeletionTimestamp() != null) {
+            Span.current().updateName("delete");
+            return cleanup(app);
+        }
+        
+        // фіналізатор потрібен лише аплікаціям з базою даних - решту прибирає збирач сміття
+        // only applications with a database need the finalizer - the garbage collector handles the rest
+        // финализатор нужен только приложениям с базой данных - остальное убирает сборщик мусора
+        SpringBootAppSpec spec = app.getSpec();
+        boolean databaseEnabled = spec.getDatabase() != null && spec.getDatabase().isEnabled();
+        if (databaseEnabled && !finalizerService.hasFinalizer(app)) {
+            RequestAccounting.run("finalizer", () -> finalizerService.addFinalizer(app));
+        }
+        
+        // покоління могло вже бути застосоване, але створені ресурси могли змінити або видалити вручну;
+        // кожен крок порівнює бажаний стан з кешем і нічого не пише, якщо розбіжностей немає
+        // the generation may already be applied, but the created resources may have been edited or deleted by hand;
+        // every step compares the desired state with the cache and writes nothing when there is no drift
+        // поколение могло уже быть применено, но созданные ресурсы могли изменить или удалить вручную;
+        // каждый шаг сравнивает желаемое состояние с кэшем и ничего не пишет, если расхождений нет
+        logger.info("починаємо примирення для {}", app.getMetadata().getName());
+        logger.info("починаємо примирення для {}", app.getMetadata().getName());
+        logger.info("начинаем примирение для {}", app.getMetadata().getName());
+        
+        boolean monitoringEnabled = spec.getMonitoring() != null && spec.getMonitoring().isEnabled();
+        
+        // будуємо граф кроків: лише справжні залежності, решта виконується паралельно
+        // build the step graph: only real dependencies, everything else runs in parallel
+        // строим граф шагов: только настоящие зависимости, остальное выполняется параллельно
+        AtomicReference<DatabaseInstance> database = new AtomicReference<>();
+        StatusWriter status = statusService.writer(app);
+        ReconcileGraph graph = new ReconcileGraph();
+        
+        // база даних aws - її ендпоінт потрібен конфігурації; крок лише просуває стан і не чекає на aws
+        // aws database - its endpoint is needed by the configuration; the step only advances the state and never waits for aws
+        // база данных aws - ее эндпоинт нужен конфигурации; шаг только продвигает состояние и не ждет aws
+        if (databaseEnabled) {
+            graph.addStep(STEP_DATABASE, step("database", "createOrUpdateDatabase",
+                    () -> database.set(databaseService.createOrUpdateDatabase(app, status))));
+        }
+        
+        // конфігмап та секрет мають існувати до деплойменту
+        // the configmap and secret must exist before the deployment
+        // конфигмап и секрет должны существовать до деплоймента
+        graph.addStep(STEP_CONFIG, step("config", "createOrUpdateConfigResources", () -> {
+                    DatabaseInstance instance = database.get();
+                    configService.createOrUpdateConfigResources(app, instance);
+                    
+                    // ендпоінт потрапив у конфігурацію - база даних підключена
+                    // the endpoint made it into the configuration - the database is wired
+                    // эндпоинт попал в конфигурацию - база данных подключена
+                    if (instance != null && instance.getState() == DatabaseState.AVAILABLE) {
+                        databaseService.markWired(instance, status);
+                    }
+                }), databaseEnabled ? new String[] {STEP_DATABASE} : new String[0]);
+        graph.addStep(STEP_DEPLOYMENT, step("deployment", "createOrUpdateDeployment",
+                () -> deploymentService.createOrUpdateDeployment(app)), STEP_CONFIG);
+        
+        // сервіс ні від чого не залежить
+        // the service depends on nothing
+        // сервис ни от чего не зависит
+        graph.addStep(STEP_SERVICE, step("service", "createOrUpdateService", () -> serviceService.createOrUpdateService(app)));
+        
+        // моніторинг налаштовуємо, коли аплікація вже розгорнута
+        // monitoring is configured once the application is deployed
+        // мониторинг настраиваем, когда приложение уже развернуто
+        if (monitoringEnabled) {
+            graph.addStep(STEP_MONITORING, step("monitoring", "setupMonitoring", () -> monitoringService.setupMonitoring(app)),
+                    STEP_DEPLOYMENT, STEP_SERVICE);
+        }
+        
+        // базу даних вимкнули, а фіналізатор лишився з часів, коли вона була: коли деплоймент вже без її ендпоінта,
+        // видаляємо інстанс і знімаємо фіналізатор, як при видаленні аплікації
+        // the database was disabled but the finalizer is left from when it was on: once the deployment no longer uses
+        // its endpoint, the instance is deleted and the finalizer dropped, as on application deletion
+        // базу данных выключили, а финализатор остался с тех пор, когда она была: когда деплоймент уже без ее эндпоинта,
+        // удаляем инстанс и снимаем финализатор, как при удалении приложения
+        AtomicBoolean databaseGone = new AtomicBoolean(true);
+        if (!databaseEnabled && finalizerService.hasFinalizer(app)) {
+            graph.addStep(STEP_DATABASE, step("database", "deleteDatabase", () -> {
+                        if (!databaseService.deleteDatabase(app)) {
+                            databaseGone.set(false);
+                            return;
+                        }
+                        RequestAccounting.run("finalizer", () -> finalizerService.removeFinalizer(app));
+                    }), STEP_DEPLOYMENT);
+        }
+        
+        List<StepResult> results = graph.execute(stepExecutor);
+        logger.info("кроки примирення для {}: {}", app.getMetadata().getName(), results); // reconcile steps
+        for (StepResult stepResult : results) {
+            OperatorMetrics.STEP_DURATION
+                    .labels(stepResult.getStep(), stepResult.getStatus().name().toLowerCase())
+                    .observe(stepResult.getDurationMillis() / 1000.0);
+        }
+        
+        // покоління вважається застосованим лише після успіху всіх кроків
+        // the generation counts as applied only after every step succeeded
+        // поколение считается примененным только после успеха всех шагов
+        boolean succeeded = results.stream().allMatch(stepResult -> stepResult.getStatus() == StepResult.Status.SUCCEEDED);
+        if (succeeded) {
+            status.observedGeneration(app.getMetadata().getGeneration());
+        }
+        
+        // усі зміни статусу за примирення - одним записом, навіть якщо якийсь крок не вдався
+        // all status changes of the reconcile in one write, even if some step failed
+        // все изменения статуса за примирение - одной записью, даже если какой-то шаг не удался
+        RequestAccounting.run("status", status::flush);
+        
+        // хоча б один крок не виконався - черга повторить примирення з затримкою
+        // at least one step did not succeed - the queue retries the reconcile with backoff
+        // хотя бы один шаг не выполнился - очередь повторит примирение с задержкой
+        if (!succeeded) {
+            throw new ReconcileException("примирення не завершено для " + app.getMetadata().getName(), results);
+        }
+        
+        logger.info("примирення завершено для {}", app.getMetadata().getName());
+        logger.info("примирення завершено для {}", app.getMetadata().getName());
+        logger.info("примирение завершено для {}", app.getMetadata().getName());
+        
+        // кеш rds поверне аплікацію в чергу, коли інстанс зникне; повтор за часом - запасний шлях
+        // the rds cache requeues the application when the instance disappears; the timed requeue is a fallback
+        // кэш rds вернет приложение в очередь, когда инстанс исчезнет; повтор по времени - запасной путь
+        if (!databaseGone.get()) {
+            return ReconcileResult.requeueAfter(Duration.ofSeconds(config.getDatabasePollSeconds()));
+        }
+        return result;
     }
     
     /**
-     * основна логіка примирення
-     * main reconciliation logic
-     * основная логика примирения
+     * крок графа у власному спані; його запити до api записуються на вказаний сервіс
+     * a graph step in its own span; its api requests are accounted to the given service
+     * шаг графа в собственном спане; его запросы к api записываются на указанный сервис
      */
-    public void reconcile(SpringBootApp app) {
-        try {
-            logger.info("починаємо примирення для {}", app.getMetadata().getName());
-            logger.info("починаємо примирення для {}", app.getMetadata().getName());
-            logger.info("начинаем примирение для {}", app.getMetadata().getName());
-            
-            // отримуємо специфікацію
-            // get specification
-            // получаем спецификацию
-            SpringBootAppSpec spec = app.getSpec();
-            
-            // створюємо або оновлюємо деплоймент
-            // create or update deployment
-            // создаем или обновляем деплоймент
-            deploymentService.createOrUpdateDeployment(app);
-            
-            // створюємо або оновлюємо сервіс
-            // create or update service
-            // создаем или обновляем сервис
-            serviceService.createOrUpdateService(app);
-            
-            // якщо ввімкнено базу даних
-            // if database is enabled
-            // если включена база данных
-            if (spec.getDatabase() != null && spec.getDatabase().isEnabled()) {
-                // створюємо або отримуємо базу даних aws
-                // create or get aws database
-                // создаем или получаем базу данных aws
-                databaseService.createOrUpdateDatabase(app);
-            }
-            
-            // створюємо конфігураційні ресурси
-            // create configuration resources
-            // создаем конфигурационные ресурсы
-            configService.createOrUpdateConfigResources(app);
-            
-            // якщо ввімкнено моніторинг
-            // if monitoring is enabled
-            // если включен мониторинг
-            if (spec.getMonitoring() != null && spec.getMonitoring().isEnabled()) {
-                // налаштовуємо моніторинг
-                // configure monitoring
-                // настраиваем мониторинг
-                monitoringService.setupMonitoring(app);
-            }
-            
-            logger.info("примирення завершено для {}", app.getMetadata().getName());
-            logger.info("примирення завершено для {}", app.getMetadata().getName());
-            logger.info("примирение завершено для {}", app.getMetadata().getName());
-        } catch (Exception e) {
-            logger.error("помилка під час примирення " + app.getMetadata().getName(), e);
-            logger.error("помилка під час примирення " + app.getMetadata().getName(), e);
-            logger.error("ошибка во время примирения " + app.getMetadata().getName(), e);
+    private static Runnable step(String caller, String name, Runnable action) {
+        return Tracing.step(name, RequestAccounting.as(caller, action));
+    }
+    
+    /**
+     * прибирання видаленої аплікації: надсилає видалення бази даних і знімає фіналізатор, коли її вже немає;
+     * потік не чекає на aws, тож масове видалення не блокує примирення інших аплікацій
+     * cleanup of a deleted application: sends the database deletion and drops the finalizer once it is gone;
+     * the thread never waits for aws, so a mass deletion does not block reconciles of other applications
+     * уборка удаленного приложения: отправляет удаление базы данных и снимает финализатор, когда ее уже нет;
+     * поток не ждет aws, поэтому массовое удаление не блокирует примирение других приложений
+     */
+    private ReconcileResult cleanup(SpringBootApp app) {
+        if (!finalizerService.hasFinalizer(app)) {
+            return ReconcileResult.done();
+        }
+        
+        // кеш rds поверне аплікацію в чергу, коли інстанс зникне; повтор за часом - запасний шлях
+        // the rds cache requeues the application when the instance disappears; the timed requeue is a fallback
+        // кэш rds вернет приложение в очередь, когда инстанс исчезнет; повтор по времени - запасной путь
+        if (!RequestAccounting.call("database", () -> databaseService.deleteDatabase(app))) {
+            return ReconcileResult.requeueAfter(Duration.ofSeconds(config.getDatabasePollSeconds()));
         }
+        
+        RequestAccounting.run("finalizer", () -> finalizerService.removeFinalizer(app));
+        logger.info("прибирання завершено для {}", app.getMetadata().getName()); // cleanup finished
+        return ReconcileResult.done();
     }
     
     /**
-     * видалення ресурсів
-     * resource deletion
-     * удаление ресурсов
+     * чи аплікація вже збіжна: поточне покоління застосоване, база даних (якщо є) підключена, вимкнену вже видалено
+     * і аплікацію не видаляють; таку аплікацію після перезапуску досить лише перевірити
+     * whether the application is already converged: the current generation is applied, the database (if any) is wired,
+     * a disabled one is already deleted and the application is not being deleted; after a restart such an application
+     * only needs verifying
+     * сошлось ли уже приложение: текущее поколение применено, база данных (если есть) подключена, выключенная уже удалена
+     * и приложение не удаляют; такое приложение после перезапуска достаточно лишь проверить
      */
-    public void delete(SpringBootApp app) {
-        try {
-            logger.info("видалення ресурсів для {}", app.getMetadata().getName());
-            logger.info("видалення ресурсів для {}", app.getMetadata().getName());
-            logger.info("удаление ресурсов для {}", app.getMetadata().getName());
-            
-            // видаляємо всі створені ресурси в зворотньому порядку
-            // delete all created resources in reverse order
-            // удаляем все созданные ресурсы в обратном порядке
-            
-            // видаляємо моніторинг
-            // delete monitoring
-            // удаляем мониторинг
-            if (app.getSpec().getMonitoring() != null && app.getSpec().getMonitoring().isEnabled()) {
-                monitoringService.deleteMonitoring(app);
-            }
-            
-            // видаляємо конфігураційні ресурси
-            // delete configuration resources
-            // удаляем конфигурационные ресурсы
-            configService.deleteConfigResources(app);
-            
-            // видаляємо базу даних
-            // delete database
-            // удаляем базу данных
-            if (app.getSpec().getDatabase() != null && app.getSpec().getDatabase().isEnabled()) {
-                databaseService.deleteDatabase(app);
-            }
-            
-            // видаляємо сервіс
-            // delete service
-            // удаляем сервис
-            serviceService.deleteService(app);
-            
-            // видаляємо деплоймент
-            // delete deployment
-            // удаляем деплоймент
-            deploymentService.deleteDeployment(app);
-            
-            logger.info("видалення завершено для {}", app.getMetadata().getName());
-            logger.info("видалення завершено для {}", app.getMetadata().getName());
-            logger.info("удаление завершено для {}", app.getMetadata().getName());
-        } catch (Exception e) {
-            logger.error("помилка під час видалення " + app.getMetadata().getName(), e);
-            logger.error("помилка під час видалення " + app.getMetadata().getName(), e);
-            logger.error("ошибка во время удаления " + app.getMetadata().getName(), e);
+    public boolean isConverged(SpringBootApp app) {
+        if (app.getMetadata().getDeletionTimestamp() != null || !statusService.isObserved(app)) {
+            return false;
         }
+        SpringBootAppSpec spec = app.getSpec();
+        boolean databaseEnabled = spec.getDatabase() != null && spec.getDatabase().isEnabled();
+        if (!databaseEnabled) {
+            return !finalizerService.hasFinalizer(app);
+        }
+        return DatabaseState.fromPhase(app.getStatus().getPhase()) == DatabaseState.WIRED;
+    }
+    
+    /**
+     * забуває побудований стан видаленої аплікації
+     * forgets the rendered state of a deleted application
+     * забывает построенное состояние удаленного приложения
+     */
+    public void forget(String key) {
+        renderCache.evict(key);
+    }
+    
+    /**
+     * запускає фонові кеші зовнішніх ресурсів; лише там, де обробляється черга
+     * starts the background caches of external resources; only where the queue is processed
+     * запускает фоновые кэши внешних ресурсов; только там, где обрабатывается очередь
+     */
+    public void start() {
+        databaseService.start();
+    }
+    
+    /**
+     * обмежує кеші зовнішніх ресурсів просторами імен цієї репліки; викликається до {@link #start()}
+     * limits the external resource caches to this replica's namespaces; called before {@link #start()}
+     * ограничивает кэши внешних ресурсов пространствами имен этой реплики; вызывается до {@link #start()}
+     */
+    public void scopeTo(Predicate<String> ownsNamespace) {
+        databaseService.scopeTo(ownsNamespace);
+    }
+    
+    /**
+     * простори імен репліки змінилися - кеші зовнішніх ресурсів перечитуються
+     * the replica's namespaces changed - the external resource caches are read again
+     * пространства имен реплики изменились - кэши внешних ресурсов перечитываются
+     */
+    public void rebalanced() {
+        databaseService.relist();
+    }
+    
+    /**
+     * зупиняє пул кроків примирення
+     * shuts down the reconciliation step pool
+     * останавливает пул шагов примирения
+     */
+    public void close() {
+        stepExecutor.shutdownNow();
+        databaseService.close();
     }
 }
\ No newline at end of file
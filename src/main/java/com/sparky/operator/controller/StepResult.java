@@ -0,0 +1,67 @@
+package com.sparky.operator.controller;
+
+/**
+ * результат одного кроку примирення
+ * result of a single reconciliation step
+ * результат одного шага примирения
+ */
+public class StepResult {
+    /**
+     * стан кроку
+     * step state
+     * состояние шага
+     */
+    public enum Status {
+        SUCCEEDED,
+        FAILED,
+        // не запускався, бо залежність не виконалася
+        // not run because a dependency did not succeed
+        // не запускался, потому что зависимость не выполнилась
+        SKIPPED
+    }
+    
+    private final String step;
+    private final Status status;
+    private final long durationMillis;
+    private final Exception error;
+    
+    private StepResult(String step, Status status, long durationMillis, Exception error) {
+        this.step = step;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.error = error;
+    }
+    
+    public static StepResult succeeded(String step, long durationMillis) {
+        return new StepResult(step, Status.SUCCEEDED, durationMillis, null);
+    }
+    
+    public static StepResult failed(String step, long durationMillis, Exception error) {
+        return new StepResult(step, Status.FAILED, durationMillis, error);
+    }
+    
+    public static StepResult skipped(String step) {
+        return new StepResult(step, Status.SKIPPED, 0, null);
+    }
+    
+    public String getStep() {
+        return step;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public Exception getError() {
+        return error;
+    }
+    
+    @Override
+    public String toString() {
+        return step + "=" + status + "(" + durationMillis + "ms)";
+    }
+}
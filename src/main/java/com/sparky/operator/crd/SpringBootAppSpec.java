@@ -18,10 +18,10 @@ public class SpringBootAppSpec {
     // порты для сервиса
     private Map<String, Integer> ports;
     
-    // репліки деплоймента
-    // deployment replicas
-    // реплики деплоймента
-    private int replicas = 1;
+    // репліки деплоймента; не задані - кількістю керує автоскейлер або значення за замовчуванням кубернетеса
+    // deployment replicas; when unset the count is left to an autoscaler or the kubernetes default
+    // реплики деплоймента; не заданы - количеством управляет автоскейлер или значение по умолчанию кубернетеса
+    private Integer replicas;
     
     // ліміти ресурсів
     // resource limits
@@ -58,11 +58,11 @@ public class SpringBootAppSpec {
         this.ports = ports;
     }
     
-    public int getReplicas() {
+    public Integer getReplicas() {
         return replicas;
     }
     
-    public void setReplicas(int replicas) {
+    public void setReplicas(Integer replicas) {
         this.replicas = replicas;
     }
     
@@ -33,6 +33,11 @@ public class SpringBootAppStatus {
     // эндпоинт базы данных
     private String databaseEndpoint;
     
+    // покоління специфікації, яке оператор вже застосував
+    // spec generation the operator has already applied
+    // поколение спецификации, которое оператор уже применил
+    private Long observedGeneration;
+    
     // стандартні геттери та сеттери
     // standard getters and setters
     // стандартные геттеры и сеттеры
@@ -76,4 +81,12 @@ public class SpringBootAppStatus {
     public void setDatabaseEndpoint(String databaseEndpoint) {
         this.databaseEndpoint = databaseEndpoint;
     }
+    
+    public Long getObservedGeneration() {
+        return observedGeneration;
+    }
+    
+    public void setObservedGeneration(Long observedGeneration) {
+        this.observedGeneration = observedGeneration;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.sparky.operator.ha;
+
+import com.sparky.operator.service.BaseService;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.api.model.coordination.v1.Lease;
+import io.fabric8.kubernetes.api.model.coordination.v1.LeaseSpecBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * членство реплік в режимі active-active: кожна репліка поновлює власний lease,
+ * а живі lease-и утворюють кільце, яке ділить простори імен між репліками
+ * replica membership in active-active mode: every replica renews its own lease,
+ * and the live leases form the ring that splits namespaces between replicas
+ * членство реплик в режиме active-active: каждая реплика обновляет собственный lease,
+ * а живые lease-ы образуют кольцо, которое делит пространства имен между репликами
+ *
+ * під час перебалансування дві репліки можуть недовго обробляти той самий простір імен;
+ * це безпечно, бо запис ресурсів і створення rds ідемпотентні
+ * during a rebalance two replicas may briefly handle the same namespace;
+ * this is safe because resource writes and rds creation are idempotent
+ * во время перебалансировки две реплики могут недолго обрабатывать то же пространство имен;
+ * это безопасно, потому что запись ресурсов и создание rds идемпотентны
+ */
+public class ShardMembership {
+    private static final Logger logger = LoggerFactory.getLogger(ShardMembership.class);
+    
+    // мітка, за якою репліки знаходять lease-и одна одної
+    // label replicas use to find each other's leases
+    // метка, по которой реплики находят lease-ы друг друга
+    public static final String MEMBER_LABEL = "sparky-operator-member";
+    
+    private final KubernetesClient client;
+    private final String namespace;
+    private final String identity;
+    private final int leaseDurationSeconds;
+    
+    // викликається зі старим і новим кільцем, коли склад реплік змінюється
+    // called with the old and new ring when the replica set changes
+    // вызывается со старым и новым кольцом, когда состав реплик меняется
+    private final BiConsumer<ShardRing, ShardRing> rebalanceListener;
+    
+    private final ScheduledExecutorService scheduler;
+    private volatile ShardRing ring = new ShardRing(Collections.emptySet());
+    
+    public ShardMembership(KubernetesClient client, String namespace, String identity, int leaseDurationSeconds,
+                           BiConsumer<ShardRing, ShardRing> rebalanceListener) {
+        this.client = client;
+        this.namespace = namespace;
+        this.identity = identity;
+        this.leaseDurationSeconds = leaseDurationSeconds;
+        this.rebalanceListener = rebalanceListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sparky-shard-membership");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * реєструє репліку, будує перше кільце і запускає поновлення lease
+     * registers the replica, builds the first ring and starts lease renewal
+     * регистрирует реплику, строит первое кольцо и запускает обновление lease
+     */
+    public void start() {
+        refresh();
+        
+        // поновлюємо втричі частіше за строк дії, щоб пропущене поновлення не вибило репліку
+        // renew three times per lease duration so one missed renewal does not drop the replica
+        // обновляем втрое чаще срока действия, чтобы пропущенное обновление не выбило реплику
+        long periodMillis = TimeUnit.SECONDS.toMillis(leaseDurationSeconds) / 3;
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * зупиняє поновлення і видаляє власний lease, щоб інші репліки забрали простори імен одразу
+     * stops renewal and deletes the own lease so other replicas take over the namespaces right away
+     * останавливает обновление и удаляет собственный lease, чтобы другие реплики забрали пространства имен сразу
+     */
+    public void stop() {
+        scheduler.shutdownNow();
+        try {
+            client.leases().inNamespace(namespace).withName(leaseName()).delete();
+        } catch (KubernetesClientException e) {
+            logger.warn("не вдалося видалити lease {}: {}", leaseName(), e.getMessage()); // could not delete lease
+        }
+    }
+    
+    /**
+     * чи обробляє ця репліка простір імен
+     * whether this replica handles the namespace
+     * обрабатывает ли эта реплика пространство имен
+     */
+    public boolean owns(String namespace) {
+        return identity.equals(ring.ownerOf(namespace));
+    }
+    
+    /**
+     * чи обробляла ця репліка простір імен у кільці
+     * whether this replica handled the namespace in the given ring
+     * обрабатывала ли эта реплика пространство имен в кольце
+     */
+    public boolean owns(ShardRing shardRing, String namespace) {
+        return identity.equals(shardRing.ownerOf(namespace));
+    }
+    
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.error("помилка оновлення членства реплік", e); // error refreshing replica membership
+        }
+    }
+    
+    /**
+     * поновлює власний lease, читає живі lease-и і перебудовує кільце, якщо склад змінився
+     * renews the own lease, reads the live leases and rebuilds the ring if the set changed
+     * обновляет собственный lease, читает живые lease-ы и перестраивает кольцо, если состав изменился
+     */
+    private void refresh() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        
+        Lease lease = new Lease();
+        lease.setMetadata(new ObjectMetaBuilder()
+                .withName(leaseName())
+                .withNamespace(namespace)
+                .addToLabels(MEMBER_LABEL, "true")
+                .build());
+        lease.setSpec(new LeaseSpecBuilder()
+                .withHolderIdentity(identity)
+                .withLeaseDurationSeconds(leaseDurationSeconds)
+                .withRenewTime(now)
+                .build());
+        client.resource(lease).fieldManager(BaseService.FIELD_MANAGER).forceConflicts().serverSideApply();
+        
+        // живі - ті, хто поновив lease протягом строку дії
+        // live are those that renewed their lease within its duration
+        // живые - те, кто обновил lease в течение срока действия
+        Set<String> members = new TreeSet<>();
+        members.add(identity);
+        for (Lease member : client.leases().inNamespace(namespace).withLabel(MEMBER_LABEL, "true").list().getItems()) {
+            if (member.getSpec() == null || member.getSpec().getHolderIdentity() == null
+                    || member.getSpec().getRenewTime() == null) {
+                continue;
+            }
+            int duration = member.getSpec().getLeaseDurationSeconds() != null
+                    ? member.getSpec().getLeaseDurationSeconds() : leaseDurationSeconds;
+            if (member.getSpec().getRenewTime().plusSeconds(duration).isAfter(now)) {
+                members.add(member.getSpec().getHolderIdentity());
+            }
+        }
+        
+        ShardRing previous = ring;
+        if (previous.getMembers().equals(members)) {
+            return;
+        }
+        
+        ShardRing current = new ShardRing(members);
+        ring = current;
+        logger.info("склад реплік змінився: {} -> {}", previous.getMembers(), members); // replica set changed
+        rebalanceListener.accept(previous, current);
+    }
+    
+    private String leaseName() {
+        String name = ("sparky-member-" + identity).toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9.-]", "-");
+        return name.length() > 253 ? name.substring(0, 253) : name;
+    }
+}
@@ -0,0 +1,70 @@
+package com.sparky.operator.ha;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * кільце узгодженого хешування просторів імен між репліками оператора
+ * consistent hashing ring of namespaces across operator replicas
+ * кольцо согласованного хеширования пространств имен между репликами оператора
+ *
+ * кожна репліка займає кілька віртуальних точок, тому при додаванні чи втраті репліки
+ * переїжджає лише приблизно 1/n просторів імен
+ * every replica takes several virtual points, so when a replica joins or leaves
+ * only about 1/n of the namespaces move
+ * каждая реплика занимает несколько виртуальных точек, поэтому при добавлении или потере реплики
+ * переезжает только примерно 1/n пространств имен
+ */
+public class ShardRing {
+    // кількість віртуальних точок на репліку
+    // number of virtual points per replica
+    // количество виртуальных точек на реплику
+    static final int VIRTUAL_NODES = 128;
+    
+    private final SortedSet<String> members;
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+    
+    public ShardRing(Collection<String> members) {
+        this.members = Collections.unmodifiableSortedSet(new TreeSet<>(members));
+        for (String member : this.members) {
+            for (int i = 0; i < VIRTUAL_NODES; i++) {
+                ring.put(hash(member + "#" + i), member);
+            }
+        }
+    }
+    
+    /**
+     * репліка, що обробляє простір імен; null, якщо кільце порожнє
+     * the replica handling the namespace; null if the ring is empty
+     * реплика, обрабатывающая пространство имен; null, если кольцо пустое
+     */
+    public String ownerOf(String namespace) {
+        if (ring.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(namespace));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+    
+    public Set<String> getMembers() {
+        return members;
+    }
+    
+    private static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.sparky.operator.metrics;
+
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.sync.RequestBody;
+
+/**
+ * рахує виклики aws, їх тривалість разом з повторами sdk і байти тіла за операцією та сервісом, що викликає
+ * counts aws calls, their duration including sdk retries and body bytes by operation and calling service
+ * считает вызовы aws, их длительность вместе с повторами sdk и байты тела по операции и вызывающему сервису
+ */
+public class AwsMetricsInterceptor implements ExecutionInterceptor {
+    private static final ExecutionAttribute<Long> START = new ExecutionAttribute<>("SparkyRequestStart");
+    
+    // сервіс читається в потоці виклику; далі виклик може перейти на потоки sdk
+    // the service is read on the calling thread; the call may move to sdk threads afterwards
+    // сервис читается в потоке вызова; дальше вызов может перейти на потоки sdk
+    private static final ExecutionAttribute<String> CALLER = new ExecutionAttribute<>("SparkyCaller");
+    
+    // код відповіді останньої спроби
+    // status code of the last attempt
+    // код ответа последней попытки
+    private static final ExecutionAttribute<Integer> STATUS = new ExecutionAttribute<>("SparkyStatusCode");
+    
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        attributes.putAttribute(START, System.nanoTime());
+        attributes.putAttribute(CALLER, RequestAccounting.caller());
+        RequestAccounting.sending(RequestAccounting.AWS);
+    }
+    
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes attributes) {
+        long bytes = context.requestBody().flatMap(RequestBody::optionalContentLength)
+                .orElseGet(() -> context.asyncRequestBody().flatMap(AsyncRequestBody::contentLength).orElse(0L));
+        if (bytes > 0) {
+            OperatorMetrics.AWS_PAYLOAD_BYTES.labels(service(attributes), operation(attributes), caller(attributes), "sent").inc(bytes);
+            stats(attributes).sent(bytes);
+        }
+    }
+    
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes attributes) {
+        attributes.putAttribute(STATUS, context.httpResponse().statusCode());
+        long bytes = context.httpResponse().firstMatchingHeader("Content-Length").map(Long::parseLong).orElse(0L);
+        if (bytes > 0) {
+            OperatorMetrics.AWS_PAYLOAD_BYTES.labels(service(attributes), operation(attributes), caller(attributes), "received").inc(bytes);
+            stats(attributes).received(bytes);
+        }
+    }
+    
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        record(attributes, false);
+    }
+    
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        record(attributes, true);
+    }
+    
+    private static void record(ExecutionAttributes attributes, boolean failed) {
+        String service = service(attributes);
+        String operation = operation(attributes);
+        String caller = caller(attributes);
+        Integer status = attributes.getAttribute(STATUS);
+        String code = status != null ? status.toString() : "none";
+        
+        OperatorMetrics.AWS_REQUESTS.labels(service, operation, caller, code).inc();
+        Long start = attributes.getAttribute(START);
+        if (start != null) {
+            long nanos = System.nanoTime() - start;
+            OperatorMetrics.AWS_REQUEST_DURATION.labels(service, operation, caller).observe(nanos / 1e9);
+            stats(attributes).completed(code, failed, nanos);
+        }
+    }
+    
+    private static String service(ExecutionAttributes attributes) {
+        return attributes.getOptionalAttribute(SdkExecutionAttribute.SERVICE_NAME).orElse("unknown");
+    }
+    
+    private static String operation(ExecutionAttributes attributes) {
+        return attributes.getOptionalAttribute(SdkExecutionAttribute.OPERATION_NAME).orElse("unknown");
+    }
+    
+    private static String caller(ExecutionAttributes attributes) {
+        return attributes.getOptionalAttribute(CALLER).orElse(RequestAccounting.BACKGROUND);
+    }
+    
+    /**
+     * рядок обліку: для aws дієслово - операція, а ресурс - сервіс
+     * the accounting row: for aws the verb is the operation and the resource is the service
+     * строка учета: для aws глагол - операция, а ресурс - сервис
+     */
+    private static RequestAccounting.RequestStats stats(ExecutionAttributes attributes) {
+        return RequestAccounting.stats(RequestAccounting.AWS, operation(attributes), service(attributes), caller(attributes));
+    }
+}
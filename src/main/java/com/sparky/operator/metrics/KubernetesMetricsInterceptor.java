@@ -0,0 +1,250 @@
+package com.sparky.operator.metrics;
+
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import io.prometheus.client.Counter;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * рахує запити до api кубернетеса, їх тривалість і байти тіла за дієсловом, ресурсом і сервісом, що викликає
+ * counts kubernetes api requests, their duration and body bytes by verb, resource and calling service
+ * считает запросы к api кубернетеса, их длительность и байты тела по глаголу, ресурсу и вызывающему сервису
+ *
+ * клієнт перебудовує запит після before() і одразу на тому ж потоці викликає consumer() з готовим запитом, тому час старту
+ * і сервіс переходять від before() до consumer() у змінній потоку, а до after() на потоках http-клієнта - у мапі за id запиту;
+ * на api-сервер нічого зайвого не надсилається
+ * the client rebuilds the request after before() and right away calls consumer() with the final request on the same thread,
+ * so the start time and the service go from before() to consumer() in a thread local, and on to after() on the http client
+ * threads in a map by request id; nothing extra is sent to the api server
+ * клиент перестраивает запрос после before() и сразу на том же потоке вызывает consumer() с готовым запросом, поэтому время
+ * старта и сервис переходят от before() к consumer() в переменной потока, а до after() на потоках http-клиента - в карте по id
+ * запроса; на api-сервер ничего лишнего не отправляется
+ *
+ * повтори, які fabric8 планує на власному потоці, не мають контексту примирення і записуються на background
+ * retries fabric8 schedules on its own thread carry no reconcile context and are accounted to background
+ * повторы, которые fabric8 планирует на собственном потоке, не имеют контекста примирения и записываются на background
+ */
+public class KubernetesMetricsInterceptor implements Interceptor {
+    public static final String NAME = "sparky-metrics";
+    
+    // запити між before() і consumer() на цьому потоці та запити в дорозі за id; запит, що впав без відповіді,
+    // не викликає after(), тому застарілі записи прибираються
+    // requests between before() and consumer() on this thread and requests in flight by id; a request that failed
+    // without a response never calls after(), so stale records are swept
+    // запросы между before() и consumer() на этом потоке и запросы в пути по id; запрос, упавший без ответа,
+    // не вызывает after(), поэтому устаревшие записи убираются
+    private static final int SWEEP_THRESHOLD = 1024;
+    private static final long STALE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private final ThreadLocal<Started> starting = new ThreadLocal<>();
+    private final Map<UUID, Started> inFlight = new ConcurrentHashMap<>();
+    
+    @Override
+    public void before(BasicBuilder builder, HttpRequest request, RequestTags tags) {
+        String caller = RequestAccounting.caller();
+        starting.set(new Started(caller));
+        RequestAccounting.sending(RequestAccounting.KUBERNETES);
+        
+        String body = request.bodyString();
+        if (body != null && !body.isEmpty()) {
+            String verb = verbOf(request.method(), request.uri());
+            String resource = resourceOf(request.uri());
+            long bytes = utf8Length(body);
+            OperatorMetrics.KUBERNETES_PAYLOAD_BYTES.labels(verb, resource, caller, "sent").inc(bytes);
+            RequestAccounting.stats(RequestAccounting.KUBERNETES, verb, resource, caller).sent(bytes);
+        }
+    }
+    
+    @Override
+    public AsyncBody.Consumer<List<ByteBuffer>> consumer(AsyncBody.Consumer<List<ByteBuffer>> consumer, HttpRequest request) {
+        Started started = starting.get();
+        starting.remove();
+        String caller = RequestAccounting.BACKGROUND;
+        if (started != null) {
+            caller = started.caller;
+            if (inFlight.size() > SWEEP_THRESHOLD) {
+                sweep();
+            }
+            inFlight.put(request.id(), started);
+        }
+        
+        String verb = verbOf(request.method(), request.uri());
+        String resource = resourceOf(request.uri());
+        return new CountingConsumer(consumer,
+                OperatorMetrics.KUBERNETES_PAYLOAD_BYTES.labels(verb, resource, caller, "received"),
+                RequestAccounting.stats(RequestAccounting.KUBERNETES, verb, resource, caller));
+    }
+    
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        // вебсокети не проходять через consumer(), тож для них немає ні сервісу, ні часу старту
+        // websockets skip consumer(), so there is neither a service nor a start time for them
+        // вебсокеты не проходят через consumer(), поэтому для них нет ни сервиса, ни времени старта
+        Started started = inFlight.remove(request.id());
+        String verb = verbOf(request.method(), request.uri());
+        String resource = resourceOf(request.uri());
+        String caller = started != null ? started.caller : RequestAccounting.BACKGROUND;
+        String code = Integer.toString(response.code());
+        OperatorMetrics.KUBERNETES_REQUESTS.labels(verb, resource, caller, code).inc();
+        
+        if (started != null) {
+            long nanos = System.nanoTime() - started.startedAt;
+            OperatorMetrics.KUBERNETES_REQUEST_DURATION.labels(verb, resource, caller).observe(nanos / 1e9);
+            RequestAccounting.stats(RequestAccounting.KUBERNETES, verb, resource, caller)
+                    .completed(code, response.code() >= 400, nanos);
+        }
+    }
+    
+    private void sweep() {
+        long now = System.nanoTime();
+        inFlight.values().removeIf(started -> now - started.startedAt >= STALE_NANOS);
+    }
+    
+    /**
+     * дієслово api-сервера, як у його аудиті: get і list, watch, create, update, patch, delete і deletecollection
+     * the api server verb as in its audit log: get and list, watch, create, update, patch, delete and deletecollection
+     * глагол api-сервера, как в его аудите: get и list, watch, create, update, patch, delete и deletecollection
+     */
+    public static String verbOf(String method, URI uri) {
+        boolean named = namedResource(uri.getPath().split("/"));
+        switch (method) {
+            case "GET":
+                String query = uri.getRawQuery();
+                if (query != null && query.contains("watch=true")) {
+                    return "watch";
+                }
+                return named ? "get" : "list";
+            case "POST":
+                return "create";
+            case "PUT":
+                return "update";
+            case "PATCH":
+                return "patch";
+            case "DELETE":
+                return named ? "delete" : "deletecollection";
+            default:
+                return method.toLowerCase();
+        }
+    }
+    
+    /**
+     * індекс сегмента з типом ресурсу або -1 для шляхів поза api ресурсів
+     * index of the segment holding the resource type or -1 for paths outside the resource api
+     * индекс сегмента с типом ресурса или -1 для путей вне api ресурсов
+     */
+    private static int resourceIndex(String[] segments) {
+        // /api/{version}/... або /apis/{group}/{version}/...
+        // /api/{version}/... or /apis/{group}/{version}/...
+        // /api/{version}/... или /apis/{group}/{version}/...
+        int index;
+        if (segments.length > 2 && "api".equals(segments[1])) {
+            index = 3;
+        } else if (segments.length > 3 && "apis".equals(segments[1])) {
+            index = 4;
+        } else {
+            return -1;
+        }
+        
+        if (segments.length > index + 2 && "namespaces".equals(segments[index])) {
+            index += 2;
+        }
+        return segments.length <= index ? -1 : index;
+    }
+    
+    private static boolean namedResource(String[] segments) {
+        int index = resourceIndex(segments);
+        return index >= 0 && segments.length > index + 1;
+    }
+    
+    private static long utf8Length(String text) {
+        long bytes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes++;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+    
+    /**
+     * тип ресурсу зі шляху запиту, наприклад configmaps для /api/v1/namespaces/ns/configmaps/name
+     * resource type from the request path, e.g. configmaps for /api/v1/namespaces/ns/configmaps/name
+     * тип ресурса из пути запроса, например configmaps для /api/v1/namespaces/ns/configmaps/name
+     */
+    public static String resourceOf(URI uri) {
+        String[] segments = uri.getPath().split("/");
+        int index = resourceIndex(segments);
+        if (index < 0) {
+            return "other";
+        }
+        
+        // підресурс на кшталт status пишемо разом з ресурсом
+        // a subresource such as status is reported together with the resource
+        // подресурс вроде status пишем вместе с ресурсом
+        String resource = segments[index];
+        if (segments.length > index + 2) {
+            resource = resource + "/" + segments[index + 2];
+        }
+        return resource;
+    }
+    
+    private static final class Started {
+        private final String caller;
+        private final long startedAt = System.nanoTime();
+        
+        private Started(String caller) {
+            this.caller = caller;
+        }
+    }
+    
+    /**
+     * рахує байти тіла відповіді по мірі надходження; віддає обгорнутого споживача тим, хто його шукає через unwrap
+     * counts response body bytes as they arrive; hands out the wrapped consumer to whoever looks it up through unwrap
+     * считает байты тела ответа по мере поступления; отдает обернутого потребителя тем, кто ищет его через unwrap
+     */
+    private static final class CountingConsumer implements AsyncBody.Consumer<List<ByteBuffer>> {
+        private final AsyncBody.Consumer<List<ByteBuffer>> delegate;
+        private final Counter.Child received;
+        private final RequestAccounting.RequestStats stats;
+        
+        private CountingConsumer(AsyncBody.Consumer<List<ByteBuffer>> delegate, Counter.Child received,
+                RequestAccounting.RequestStats stats) {
+            this.delegate = delegate;
+            this.received = received;
+            this.stats = stats;
+        }
+        
+        @Override
+        public void consume(List<ByteBuffer> value, AsyncBody asyncBody) throws Exception {
+            long bytes = 0;
+            for (ByteBuffer buffer : value) {
+                bytes += buffer.remaining();
+            }
+            received.inc(bytes);
+            stats.received(bytes);
+            delegate.consume(value, asyncBody);
+        }
+        
+        @Override
+        public <U> U unwrap(Class<U> target) {
+            return target.isInstance(this) ? target.cast(this) : delegate.unwrap(target);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.sparky.operator.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.HTTPServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * метрики оператора у форматі prometheus
+ * operator metrics in prometheus format
+ * метрики оператора в формате prometheus
+ *
+ * всі метрики реєструються в реєстрі за замовчуванням і віддаються вбудованим http-сервером на /metrics
+ * all metrics are registered in the default registry and served by the embedded http server on /metrics
+ * все метрики регистрируются в реестре по умолчанию и отдаются встроенным http-сервером на /metrics
+ */
+public final class OperatorMetrics {
+    // межі гістограм у секундах: від швидких звернень до кешу до довгих викликів aws
+    // histogram buckets in seconds: from fast cache hits to long aws calls
+    // границы гистограмм в секундах: от быстрых обращений к кэшу до долгих вызовов aws
+    private static final double[] LATENCY_BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+    
+    public static final Histogram STEP_DURATION = Histogram.build()
+            .name("sparky_reconcile_step_duration_seconds")
+            .help("Duration of one reconcile step.")
+            .labelNames("step", "status")
+            .buckets(LATENCY_BUCKETS)
+            .register();
+    
+    public static final Histogram RECONCILE_DURATION = Histogram.build()
+            .name("sparky_reconcile_duration_seconds")
+            .help("Duration of handling one work queue key.")
+            .buckets(LATENCY_BUCKETS)
+            .register();
+    
+    public static final Counter RECONCILE_TOTAL = Counter.build()
+            .name("sparky_reconcile_total")
+            .help("Handled work queue keys by outcome.")
+            .labelNames("outcome")
+            .register();
+    
+    public static final Counter INFORMER_EVENTS = Counter.build()
+            .name("sparky_informer_events_total")
+            .help("Informer events received.")
+            .labelNames("resource", "event")
+            .register();
+    
+    public static final Gauge QUEUE_DEPTH = Gauge.build()
+            .name("sparky_workqueue_depth")
+            .help("Keys waiting in the work queue, by priority lane.")
+            .labelNames("priority")
+            .register();
+    
+    public static final Gauge INITIAL_SYNC_PENDING = Gauge.build()
+            .name("sparky_initial_sync_pending")
+            .help("Keys held by the rate-limited initial sync, by priority: changed spec or already converged.")
+            .labelNames("priority")
+            .register();
+    
+    public static final Histogram QUEUE_WAIT = Histogram.build()
+            .name("sparky_workqueue_wait_seconds")
+            .help("Time a key waited in the work queue before a worker took it, by priority lane.")
+            .labelNames("priority")
+            .buckets(LATENCY_BUCKETS)
+            .register();
+    
+    public static final Counter QUEUE_RETRIES = Counter.build()
+            .name("sparky_workqueue_retries_total")
+            .help("Keys put back into the work queue after a failure.")
+            .register();
+    
+    public static final Gauge NAMESPACE_QUEUED = Gauge.build()
+            .name("sparky_namespace_queued")
+            .help("Keys waiting in the work queue, by namespace.")
+            .labelNames("namespace")
+            .register();
+    
+    public static final Gauge NAMESPACE_IN_FLIGHT = Gauge.build()
+            .name("sparky_namespace_in_flight")
+            .help("Reconciles running right now, by namespace; capped by the per-namespace quota.")
+            .labelNames("namespace")
+            .register();
+    
+    public static final Counter NAMESPACE_THROTTLED = Counter.build()
+            .name("sparky_namespace_throttled_total")
+            .help("Times a worker passed over a namespace because it had reached its in-flight quota.")
+            .labelNames("namespace")
+            .register();
+    
+    public static final Counter KUBERNETES_REQUESTS = Counter.build()
+            .name("sparky_kubernetes_requests_total")
+            .help("Kubernetes API requests by verb, resource, calling service and status code.")
+            .labelNames("verb", "resource", "caller", "code")
+            .register();
+    
+    public static final Histogram KUBERNETES_REQUEST_DURATION = Histogram.build()
+            .name("sparky_kubernetes_request_duration_seconds")
+            .help("Kubernetes API request duration until the response headers.")
+            .labelNames("verb", "resource", "caller")
+            .buckets(LATENCY_BUCKETS)
+            .register();
+    
+    public static final Counter KUBERNETES_PAYLOAD_BYTES = Counter.build()
+            .name("sparky_kubernetes_payload_bytes_total")
+            .help("Kubernetes API request and response body bytes, by verb, resource, calling service and direction.")
+            .labelNames("verb", "resource", "caller", "direction")
+            .register();
+    
+    public static final Counter AWS_REQUESTS = Counter.build()
+            .name("sparky_aws_requests_total")
+            .help("AWS API calls by service, operation, calling service and status code of the last attempt (none without a response).")
+            .labelNames("service", "operation", "caller", "code")
+            .register();
+    
+    public static final Histogram AWS_REQUEST_DURATION = Histogram.build()
+            .name("sparky_aws_request_duration_seconds")
+            .help("AWS API call duration including sdk retries.")
+            .labelNames("service", "operation", "caller")
+            .buckets(LATENCY_BUCKETS)
+            .register();
+    
+    public static final Counter AWS_PAYLOAD_BYTES = Counter.build()
+            .name("sparky_aws_payload_bytes_total")
+            .help("AWS API request and response body bytes of every attempt, by service, operation, calling service and direction.")
+            .labelNames("service", "operation", "caller", "direction")
+            .register();
+    
+    public static final Histogram RECONCILE_API_REQUESTS = Histogram.build()
+            .name("sparky_reconcile_api_requests")
+            .help("API requests made by one reconcile, by api: kubernetes or aws.")
+            .labelNames("api")
+            .buckets(0, 1, 2, 3, 5, 8, 13, 21, 34, 55)
+            .register();
+    
+    public static final Gauge CACHE_OBJECTS = Gauge.build()
+            .name("sparky_cache_objects")
+            .help("Objects held in an informer cache.")
+            .labelNames("cache")
+            .register();
+    
+    public static final Gauge CACHE_OBJECT_BYTES = Gauge.build()
+            .name("sparky_cache_object_bytes")
+            .help("Approximate size of one cached object: average serialized JSON size of a sample of the cache.")
+            .labelNames("cache")
+            .register();
+    
+    public static final Counter RENDER_CACHE = Counter.build()
+            .name("sparky_render_cache_total")
+            .help("Desired-state renders served from the render cache (hit) or built anew (miss), by resource kind.")
+            .labelNames("kind", "result")
+            .register();
+    
+    // скільки об'єктів кешу серіалізувати на кожен збір метрик
+    // how many cached objects to serialize on every scrape
+    // сколько объектов кэша сериализовать на каждый сбор метрик
+    private static final int CACHE_SAMPLE_SIZE = 64;
+    
+    public static final String DEBUG_REQUESTS_PATH = "/debug/requests";
+    
+    private OperatorMetrics() {
+    }
+    
+    /**
+     * рахує об'єкти кешу інформера та їхній середній розмір під час кожного збору метрик
+     * counts the objects of an informer cache and their average size on every scrape
+     * считает объекты кэша информера и их средний размер при каждом сборе метрик
+     */
+    public static void monitorCache(String cache, Supplier<List<?>> objects) {
+        CACHE_OBJECTS.setChild(new Gauge.Child() {
+            @Override
+            public double get() {
+                return objects.get().size();
+            }
+        }, cache);
+        CACHE_OBJECT_BYTES.setChild(new Gauge.Child() {
+            @Override
+            public double get() {
+                return averageSerializedSize(objects.get());
+            }
+        }, cache);
+    }
+    
+    /**
+     * середній розмір json рівномірної вибірки об'єктів; розмір у купі пропорційний йому
+     * average json size of an even sample of the objects; the heap size is proportional to it
+     * средний размер json равномерной выборки объектов; размер в куче пропорционален ему
+     */
+    private static double averageSerializedSize(List<?> objects) {
+        if (objects.isEmpty()) {
+            return 0;
+        }
+        
+        int step = Math.max(1, objects.size() / CACHE_SAMPLE_SIZE);
+        long bytes = 0;
+        int sampled = 0;
+        for (int i = 0; i < objects.size() && sampled < CACHE_SAMPLE_SIZE; i += step) {
+            bytes += Serialization.asJson(objects.get(i)).length();
+            sampled++;
+        }
+        return (double) bytes / sampled;
+    }
+    
+    /**
+     * запускає http-сервер метрик на фоновому потоці; поруч з /metrics віддає облік запитів на /debug/requests
+     * starts the metrics http server on a background thread; next to /metrics it serves the request accounting on /debug/requests
+     * запускает http-сервер метрик на фоновом потоке; рядом с /metrics отдает учет запросов на /debug/requests
+     */
+    public static HTTPServer startServer(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 3);
+        server.createContext(DEBUG_REQUESTS_PATH, OperatorMetrics::serveRequests);
+        return new HTTPServer.Builder()
+                .withHttpServer(server)
+                .withRegistry(CollectorRegistry.defaultRegistry)
+                .withDaemonThreads(true)
+                .build();
+    }
+    
+    private static void serveRequests(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = Serialization.jsonMapper().writerWithDefaultPrettyPrinter()
+                    .writeValueAsBytes(RequestAccounting.snapshot());
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+}
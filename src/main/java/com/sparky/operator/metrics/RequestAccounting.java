@@ -0,0 +1,269 @@
+package com.sparky.operator.metrics;
+
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.ContextKey;
+import io.opentelemetry.context.Scope;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * облік запитів до api кубернетеса та aws: скільки запитів, якими дієсловами, до яких ресурсів і від якого сервісу
+ * оператора, скільки байтів і з якими кодами; і скільки запитів коштує одне примирення
+ * accounting of kubernetes and aws api requests: how many requests, with which verbs, to which resources and from which
+ * operator service, how many bytes and with which codes; and how many requests one reconcile costs
+ * учет запросов к api кубернетеса и aws: сколько запросов, какими глаголами, к каким ресурсам и от какого сервиса
+ * оператора, сколько байтов и с какими кодами; и сколько запросов стоит одно примирение
+ *
+ * сервіс, що викликає, і лічильник примирення їдуть у контексті opentelemetry, тож доходять до кроків графа
+ * на інших потоках; інтерцептори клієнтів читають їх у потоці, що надсилає запит
+ * the calling service and the reconcile counter travel in the opentelemetry context, so they reach the graph steps
+ * on other threads; the client interceptors read them on the thread that sends the request
+ * вызывающий сервис и счетчик примирения едут в контексте opentelemetry, поэтому доходят до шагов графа
+ * на других потоках; интерцепторы клиентов читают их в потоке, который отправляет запрос
+ */
+public final class RequestAccounting {
+    public static final String KUBERNETES = "kubernetes";
+    public static final String AWS = "aws";
+    
+    // запити поза примиренням: інформери, вибори лідера, фонове опитування rds
+    // requests outside a reconcile: informers, leader election, background rds polling
+    // запросы вне примирения: информеры, выборы лидера, фоновый опрос rds
+    public static final String BACKGROUND = "background";
+    
+    // запити примирення поза кроком, що назвав свій сервіс
+    // reconcile requests outside a step that named its service
+    // запросы примирения вне шага, который назвал свой сервис
+    public static final String RECONCILE = "reconcile";
+    
+    private static final ContextKey<String> CALLER = ContextKey.named("sparky-caller");
+    private static final ContextKey<Reconcile> RECONCILE_REQUESTS = ContextKey.named("sparky-reconcile-requests");
+    
+    // рядок на кожне поєднання api, дієслова, ресурсу і сервісу; їх кількість обмежена кодом оператора
+    // a row per combination of api, verb, resource and service; their number is bounded by the operator's code
+    // строка на каждое сочетание api, глагола, ресурса и сервиса; их количество ограничено кодом оператора
+    private static final Map<String, RequestStats> STATS = new ConcurrentHashMap<>();
+    
+    private static final LongAdder RECONCILES = new LongAdder();
+    private static final LongAdder RECONCILE_KUBERNETES = new LongAdder();
+    private static final LongAdder RECONCILE_AWS = new LongAdder();
+    private static final LongAccumulator RECONCILE_KUBERNETES_MAX = new LongAccumulator(Math::max, 0);
+    private static final LongAccumulator RECONCILE_AWS_MAX = new LongAccumulator(Math::max, 0);
+    
+    private RequestAccounting() {
+    }
+    
+    /**
+     * дія, запити якої записуються на вказаний сервіс
+     * an action whose requests are accounted to the given service
+     * действие, запросы которого записываются на указанный сервис
+     */
+    public static Runnable as(String caller, Runnable action) {
+        return () -> run(caller, action);
+    }
+    
+    public static void run(String caller, Runnable action) {
+        try (Scope ignored = Context.current().with(CALLER, caller).makeCurrent()) {
+            action.run();
+        }
+    }
+    
+    public static <T> T call(String caller, Supplier<T> action) {
+        try (Scope ignored = Context.current().with(CALLER, caller).makeCurrent()) {
+            return action.get();
+        }
+    }
+    
+    /**
+     * сервіс, від імені якого поточний потік надсилає запит
+     * the service on whose behalf the current thread sends a request
+     * сервис, от имени которого текущий поток отправляет запрос
+     */
+    public static String caller() {
+        Context context = Context.current();
+        String caller = context.get(CALLER);
+        if (caller != null) {
+            return caller;
+        }
+        return context.get(RECONCILE_REQUESTS) != null ? RECONCILE : BACKGROUND;
+    }
+    
+    /**
+     * новий лічильник запитів одного примирення; діє, поки контекст з ним поточний
+     * a new request counter for one reconcile; counts while a context holding it is current
+     * новый счетчик запросов одного примирения; считает, пока контекст с ним текущий
+     */
+    public static Reconcile reconcile() {
+        return new Reconcile();
+    }
+    
+    /**
+     * запит надсилається з поточного потоку; зараховується примиренню, якщо воно є
+     * a request is being sent from the current thread; counts towards the reconcile if there is one
+     * запрос отправляется из текущего потока; засчитывается примирению, если оно есть
+     */
+    public static void sending(String api) {
+        Reconcile reconcile = Context.current().get(RECONCILE_REQUESTS);
+        if (reconcile == null) {
+            return;
+        }
+        if (KUBERNETES.equals(api)) {
+            reconcile.kubernetes.incrementAndGet();
+        } else {
+            reconcile.aws.incrementAndGet();
+        }
+    }
+    
+    public static RequestStats stats(String api, String verb, String resource, String caller) {
+        return STATS.computeIfAbsent(api + ' ' + verb + ' ' + resource + ' ' + caller,
+                key -> new RequestStats(api, verb, resource, caller));
+    }
+    
+    /**
+     * знімок обліку для /debug/requests: спершу найчастіші запити
+     * accounting snapshot for /debug/requests: the most frequent requests first
+     * снимок учета для /debug/requests: сначала самые частые запросы
+     */
+    public static Map<String, Object> snapshot() {
+        long reconciles = RECONCILES.sum();
+        Map<String, Object> perReconcile = new LinkedHashMap<>();
+        perReconcile.put("reconciles", reconciles);
+        perReconcile.put("kubernetes_mean", reconciles == 0 ? 0.0 : (double) RECONCILE_KUBERNETES.sum() / reconciles);
+        perReconcile.put("kubernetes_max", RECONCILE_KUBERNETES_MAX.get());
+        perReconcile.put("aws_mean", reconciles == 0 ? 0.0 : (double) RECONCILE_AWS.sum() / reconciles);
+        perReconcile.put("aws_max", RECONCILE_AWS_MAX.get());
+        
+        List<RequestStats> rows = new ArrayList<>(STATS.values());
+        rows.sort(Comparator.comparingLong((RequestStats stats) -> stats.count.sum()).reversed());
+        List<Map<String, Object>> requests = new ArrayList<>();
+        for (RequestStats stats : rows) {
+            requests.add(stats.toJson());
+        }
+        
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("per_reconcile", perReconcile);
+        json.put("requests", requests);
+        return json;
+    }
+    
+    /**
+     * запити одного примирення
+     * requests of one reconcile
+     * запросы одного примирения
+     */
+    public static final class Reconcile {
+        private final AtomicInteger kubernetes = new AtomicInteger();
+        private final AtomicInteger aws = new AtomicInteger();
+        
+        private Reconcile() {
+        }
+        
+        public Context storeIn(Context context) {
+            return context.with(RECONCILE_REQUESTS, this);
+        }
+        
+        /**
+         * записує підсумок примирення; запити, що ще летять з кроків після помилки, вже не враховуються
+         * records the reconcile totals; requests still in flight from steps after a failure are not counted
+         * записывает итог примирения; запросы, которые еще летят из шагов после ошибки, уже не учитываются
+         */
+        public void finish() {
+            int kubernetesRequests = kubernetes.get();
+            int awsRequests = aws.get();
+            OperatorMetrics.RECONCILE_API_REQUESTS.labels(KUBERNETES).observe(kubernetesRequests);
+            OperatorMetrics.RECONCILE_API_REQUESTS.labels(AWS).observe(awsRequests);
+            RECONCILES.increment();
+            RECONCILE_KUBERNETES.add(kubernetesRequests);
+            RECONCILE_AWS.add(awsRequests);
+            RECONCILE_KUBERNETES_MAX.accumulate(kubernetesRequests);
+            RECONCILE_AWS_MAX.accumulate(awsRequests);
+        }
+        
+        public int getKubernetes() {
+            return kubernetes.get();
+        }
+        
+        public int getAws() {
+            return aws.get();
+        }
+    }
+    
+    /**
+     * лічильники одного рядка обліку
+     * counters of one accounting row
+     * счетчики одной строки учета
+     */
+    public static final class RequestStats {
+        private final String api;
+        private final String verb;
+        private final String resource;
+        private final String caller;
+        
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder sentBytes = new LongAdder();
+        private final LongAdder receivedBytes = new LongAdder();
+        private final Map<String, LongAdder> codes = new ConcurrentHashMap<>();
+        
+        private RequestStats(String api, String verb, String resource, String caller) {
+            this.api = api;
+            this.verb = verb;
+            this.resource = resource;
+            this.caller = caller;
+        }
+        
+        /**
+         * запит завершився з кодом; помилка - код від 400 або відсутня відповідь
+         * the request completed with a code; an error is a code of 400 and above or no response at all
+         * запрос завершился с кодом; ошибка - код от 400 или отсутствующий ответ
+         */
+        public void completed(String code, boolean error, long durationNanos) {
+            count.increment();
+            if (error) {
+                errors.increment();
+            }
+            nanos.add(durationNanos);
+            maxNanos.accumulate(durationNanos);
+            codes.computeIfAbsent(code, key -> new LongAdder()).increment();
+        }
+        
+        public void sent(long bytes) {
+            sentBytes.add(bytes);
+        }
+        
+        public void received(long bytes) {
+            receivedBytes.add(bytes);
+        }
+        
+        private Map<String, Object> toJson() {
+            long requests = count.sum();
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("api", api);
+            json.put("verb", verb);
+            json.put("resource", resource);
+            json.put("caller", caller);
+            json.put("count", requests);
+            json.put("errors", errors.sum());
+            
+            Map<String, Long> byCode = new TreeMap<>();
+            codes.forEach((code, adder) -> byCode.put(code, adder.sum()));
+            json.put("codes", byCode);
+            json.put("mean_ms", requests == 0 ? 0.0 : nanos.sum() / 1e6 / requests);
+            json.put("max_ms", maxNanos.get() / 1e6);
+            json.put("sent_bytes", sentBytes.sum());
+            json.put("received_bytes", receivedBytes.sum());
+            return json;
+        }
+    }
+}
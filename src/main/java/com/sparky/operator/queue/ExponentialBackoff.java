@@ -0,0 +1,72 @@
+package com.sparky.operator.queue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * експоненційна затримка повторів для кожного ключа окремо, з обмеженням та джитером
+ * per-key exponential retry delay with a cap and jitter
+ * экспоненциальная задержка повторов для каждого ключа отдельно, с ограничением и джиттером
+ */
+public class ExponentialBackoff {
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final double jitter;
+    
+    // кількість невдач поспіль для кожного ключа
+    // number of consecutive failures per key
+    // количество неудач подряд для каждого ключа
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    
+    /**
+     * @param jitter частка затримки (0..1), на яку її можна випадково зменшити
+     *               fraction of the delay (0..1) it may be randomly reduced by
+     *               доля задержки (0..1), на которую ее можно случайно уменьшить
+     */
+    public ExponentialBackoff(long baseDelayMillis, long maxDelayMillis, double jitter) {
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.jitter = Math.min(1.0, Math.max(0.0, jitter));
+    }
+    
+    /**
+     * реєструє ще одну невдачу та повертає затримку до наступної спроби
+     * records one more failure and returns the delay before the next attempt
+     * регистрирует еще одну неудачу и возвращает задержку до следующей попытки
+     */
+    public long nextDelayMillis(String key) {
+        int attempt = failures.merge(key, 1, Integer::sum) - 1;
+        
+        // base * 2^attempt, подвоюємо лише до обмеження, щоб уникнути переповнення
+        // base * 2^attempt, doubling only up to the cap to avoid overflow
+        // base * 2^attempt, удваиваем только до ограничения, чтобы избежать переполнения
+        long delay = baseDelayMillis;
+        for (int i = 0; i < attempt && delay < maxDelayMillis; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayMillis);
+        
+        // розносимо повтори в часі, щоб вони не приходили пачкою
+        // spread retries out so they do not arrive as a burst
+        // разносим повторы во времени, чтобы они не приходили пачкой
+        if (jitter > 0) {
+            delay -= (long) (delay * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        
+        return Math.max(1, delay);
+    }
+    
+    /**
+     * скидає лічильник невдач після успішної обробки
+     * resets the failure counter after successful processing
+     * сбрасывает счетчик неудач после успешной обработки
+     */
+    public void forget(String key) {
+        failures.remove(key);
+    }
+    
+    public int getFailures(String key) {
+        return failures.getOrDefault(key, 0);
+    }
+}
@@ -0,0 +1,182 @@
+package com.sparky.operator.queue;
+
+import com.sparky.operator.metrics.OperatorMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * початкова синхронізація після старту оператора: інформер надсилає onAdd для кожної аплікації одразу,
+ * тож ці ключі потрапляють у робочу чергу не всі разом, а через обмежувач швидкості;
+ * аплікації зі зміненою специфікацією йдуть першими, вже збіжні перевіряються після них
+ * initial sync after the operator starts: the informer fires onAdd for every application at once,
+ * so these keys reach the work queue through a rate limiter rather than all together;
+ * applications with a changed spec go first, already converged ones are verified after them
+ * начальная синхронизация после старта оператора: информер присылает onAdd для каждого приложения сразу,
+ * поэтому эти ключи попадают в рабочую очередь не все вместе, а через ограничитель скорости;
+ * приложения с измененной спецификацией идут первыми, уже сошедшиеся проверяются после них
+ *
+ * режим завершується, коли інформери синхронізовано і всі відкладені ключі передано в чергу;
+ * після цього {@link #offer} повертає false і події йдуть у чергу напряму
+ * the mode ends once the informers are synced and every held key has been passed to the queue;
+ * after that {@link #offer} returns false and events go to the queue directly
+ * режим завершается, когда информеры синхронизированы и все отложенные ключи переданы в очередь;
+ * после этого {@link #offer} возвращает false и события идут в очередь напрямую
+ */
+public class InitialSyncQueue {
+    private static final Logger logger = LoggerFactory.getLogger(InitialSyncQueue.class);
+    
+    private final WorkQueue workQueue;
+    private final TokenBucket bucket;
+    
+    // аплікації, чия специфікація змінилася з останнього примирення, і вже збіжні аплікації
+    // applications whose spec changed since the last reconcile, and already converged applications
+    // приложения, чья спецификация изменилась с последнего примирения, и уже сошедшиеся приложения
+    private final Deque<String> changed = new ArrayDeque<>();
+    private final Deque<String> converged = new ArrayDeque<>();
+    private final Set<String> held = new HashSet<>();
+    
+    private boolean active;
+    private boolean synced = false;
+    private Thread feeder;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changedState = lock.newCondition();
+    
+    /**
+     * @param ratePerSecond скільки ключів за секунду передавати в чергу; 0 вимикає режим /
+     *                      how many keys per second to pass to the queue; 0 disables the mode /
+     *                      сколько ключей в секунду передавать в очередь; 0 выключает режим
+     */
+    public InitialSyncQueue(WorkQueue workQueue, double ratePerSecond, int burst) {
+        this.workQueue = workQueue;
+        this.active = ratePerSecond > 0;
+        this.bucket = active ? new TokenBucket(ratePerSecond, burst) : null;
+    }
+    
+    /**
+     * відкладає ключ до його черги в початковій синхронізації
+     * holds the key until its turn in the initial sync
+     * откладывает ключ до его очереди в начальной синхронизации
+     *
+     * @param converged чи аплікація вже збіжна і її досить лише перевірити /
+     *                  whether the application is already converged and only needs verifying /
+     *                  сошлось ли уже приложение и его достаточно лишь проверить
+     * @return false, якщо початкова синхронізація вже завершилася - ключ треба додати в чергу напряму /
+     *         false if the initial sync is already over - the key must be added to the queue directly /
+     *         false, если начальная синхронизация уже завершилась - ключ нужно добавить в очередь напрямую
+     */
+    public boolean offer(String key, boolean converged) {
+        lock.lock();
+        try {
+            if (!active) {
+                return false;
+            }
+            if (held.add(key)) {
+                (converged ? this.converged : changed).addLast(key);
+                updatePending();
+                changedState.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * інформери передали всі наявні аплікації; режим завершиться, щойно відкладені ключі закінчаться
+     * the informers delivered every existing application; the mode ends as soon as the held keys run out
+     * информеры передали все существующие приложения; режим завершится, как только отложенные ключи закончатся
+     */
+    public void synced() {
+        lock.lock();
+        try {
+            synced = true;
+            changedState.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * запускає потік, що передає відкладені ключі в робочу чергу
+     * starts the thread that passes the held keys to the work queue
+     * запускает поток, который передает отложенные ключи в рабочую очередь
+     */
+    public void start(ThreadFactory threadFactory) {
+        lock.lock();
+        try {
+            if (!active || feeder != null) {
+                return;
+            }
+            feeder = threadFactory.newThread(this::feed);
+            feeder.start();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public void stop() {
+        lock.lock();
+        try {
+            active = false;
+            changedState.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void feed() {
+        long started = System.nanoTime();
+        int fed = 0;
+        while (true) {
+            String key;
+            Priority priority;
+            lock.lock();
+            try {
+                while (active && changed.isEmpty() && converged.isEmpty() && !synced) {
+                    changedState.await();
+                }
+                if (!active) {
+                    return;
+                }
+                if (changed.isEmpty() && converged.isEmpty()) {
+                    active = false;
+                    break;
+                }
+                priority = !changed.isEmpty() ? Priority.SPEC : Priority.RESYNC;
+                key = priority == Priority.SPEC ? changed.pollFirst() : converged.pollFirst();
+                held.remove(key);
+                updatePending();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            
+            try {
+                bucket.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            workQueue.add(key, priority);
+            fed++;
+        }
+        logger.info("початкову синхронізацію завершено: {} аплікацій за {} с", fed,
+                (System.nanoTime() - started) / 1_000_000_000L); // initial sync finished
+    }
+    
+    private void updatePending() {
+        OperatorMetrics.INITIAL_SYNC_PENDING.labels("changed").set(changed.size());
+        OperatorMetrics.INITIAL_SYNC_PENDING.labels("converged").set(converged.size());
+    }
+}
@@ -0,0 +1,71 @@
+package com.sparky.operator.queue;
+
+/**
+ * клас пріоритету ключа в робочій черзі, від найважливішого до фонового
+ * priority class of a key in the work queue, from the most important to background work
+ * класс приоритета ключа в рабочей очереди, от самого важного до фоновой работы
+ *
+ * вага - частка вибору смуги, коли всі смуги мають ключі: зміна специфікації отримує 8 з 15 місць
+ * the weight is the lane's share of picks when every lane has keys: a spec change gets 8 of 15 slots
+ * вес - доля выбора полосы, когда все полосы имеют ключи: изменение спецификации получает 8 из 15 мест
+ */
+public enum Priority {
+    // користувач змінив специфікацію, створив або видаляє аплікацію
+    // the user changed the spec, created or is deleting the application
+    // пользователь изменил спецификацию, создал или удаляет приложение
+    SPEC(8),
+    
+    // створений ресурс або інстанс rds змінився в обхід оператора
+    // a created resource or an rds instance changed behind the operator's back
+    // созданный ресурс или инстанс rds изменился в обход оператора
+    DRIFT(4),
+    
+    // повтор після помилки або очікування бази даних
+    // a retry after an error or a wait for the database
+    // повтор после ошибки или ожидание базы данных
+    RETRY(2),
+    
+    // періодична ресинхронізація та перевірка вже збіжних аплікацій
+    // periodic resync and verification of already converged applications
+    // периодическая ресинхронизация и проверка уже сошедшихся приложений
+    RESYNC(1);
+    
+    private final int weight;
+    private final String label;
+    
+    Priority(int weight) {
+        this.weight = weight;
+        this.label = name().toLowerCase();
+    }
+    
+    public int getWeight() {
+        return weight;
+    }
+    
+    /**
+     * значення мітки priority у метриках
+     * value of the priority label in metrics
+     * значение метки priority в метриках
+     */
+    public String getLabel() {
+        return label;
+    }
+    
+    /**
+     * чи стоїть цей клас попереду іншого
+     * whether this class goes ahead of the other one
+     * стоит ли этот класс впереди другого
+     */
+    public boolean isAbove(Priority other) {
+        return ordinal() < other.ordinal();
+    }
+    
+    /**
+     * фонова робота, якій належить лише частина робочих потоків
+     * background work that gets only a share of the worker threads
+     * фоновая работа, которой принадлежит лишь часть рабочих потоков
+     */
+    public boolean isBackground() {
+        return this == RETRY || this == RESYNC;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sparky.operator.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * потоки для робочих циклів і кроків примирення відповідно до режиму SPARKY_EXECUTOR
+ * threads for the worker loops and reconcile steps according to the SPARKY_EXECUTOR mode
+ * потоки для рабочих циклов и шагов примирения в соответствии с режимом SPARKY_EXECUTOR
+ *
+ * це версія для java 11: лише звичайні потоки з обмеженим пулом; версія для java 21 лежить у
+ * src/main/java21 і потрапляє в META-INF/versions/21 багаторелізного jar
+ * this is the java 11 version: platform threads with a bounded pool only; the java 21 version lives in
+ * src/main/java21 and goes into META-INF/versions/21 of the multi-release jar
+ * это версия для java 11: только обычные потоки с ограниченным пулом; версия для java 21 лежит в
+ * src/main/java21 и попадает в META-INF/versions/21 многорелизного jar
+ */
+public class ReconcileExecutors {
+    private static final Logger logger = LoggerFactory.getLogger(ReconcileExecutors.class);
+    
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final String MODE_PLATFORM = "platform";
+    
+    private ReconcileExecutors() {
+    }
+    
+    /**
+     * вибирає потоки для режиму auto, virtual або platform
+     * picks the threads for the auto, virtual or platform mode
+     * выбирает потоки для режима auto, virtual или platform
+     */
+    public static ReconcileExecutors forMode(String mode) {
+        if (MODE_VIRTUAL.equals(mode)) {
+            logger.warn("віртуальні потоки потребують java 21, використовуються звичайні потоки"); // virtual threads need java 21, using platform threads
+        }
+        return new ReconcileExecutors();
+    }
+    
+    /**
+     * чи працюють цикли та кроки на віртуальних потоках
+     * whether the loops and steps run on virtual threads
+     * работают ли циклы и шаги на виртуальных потоках
+     */
+    public boolean isVirtual() {
+        return false;
+    }
+    
+    /**
+     * фабрика фонових потоків з іменами prefix-0, prefix-1, ...
+     * factory of daemon threads named prefix-0, prefix-1, ...
+     * фабрика фоновых потоков с именами prefix-0, prefix-1, ...
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * виконавець кроків примирення з platformThreads потоками
+     * executor for reconcile steps with platformThreads threads
+     * исполнитель шагов примирения с platformThreads потоками
+     */
+    public ExecutorService stepExecutor(int platformThreads, String prefix) {
+        return Executors.newFixedThreadPool(platformThreads, threadFactory(prefix));
+    }
+}
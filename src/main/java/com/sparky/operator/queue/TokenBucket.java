@@ -0,0 +1,70 @@
+package com.sparky.operator.queue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * обмежувач швидкості "відро токенів": у середньому rate дозволів за секунду, до burst поспіль після простою
+ * token bucket rate limiter: rate permits per second on average, up to burst in a row after idling
+ * ограничитель скорости "ведро токенов": в среднем rate разрешений в секунду, до burst подряд после простоя
+ *
+ * дозвіл резервується одразу, а потік спить поза блокуванням, тож кілька споживачів отримують дозволи по черзі
+ * a permit is reserved at once and the thread sleeps outside the lock, so several consumers get permits in turn
+ * разрешение резервируется сразу, а поток спит вне блокировки, поэтому несколько потребителей получают разрешения по очереди
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final double burst;
+    
+    // доступні токени; від'ємне значення - дозволи, вже зарезервовані наперед
+    // available tokens; a negative value means permits already reserved ahead
+    // доступные токены; отрицательное значение - разрешения, уже зарезервированные наперед
+    private double tokens;
+    private long refilledAt;
+    
+    private final LongSupplier clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    public TokenBucket(double ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+    
+    TokenBucket(double ratePerSecond, int burst, LongSupplier clock) {
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.clock = clock;
+        this.refilledAt = clock.getAsLong();
+    }
+    
+    /**
+     * чекає, доки буде доступний один дозвіл
+     * waits until one permit is available
+     * ждет, пока будет доступно одно разрешение
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+    
+    /**
+     * резервує один дозвіл і повертає, скільки наносекунд чекати на нього
+     * reserves one permit and returns how many nanoseconds to wait for it
+     * резервирует одно разрешение и возвращает, сколько наносекунд ждать его
+     */
+    long reserve() {
+        lock.lock();
+        try {
+            long now = clock.getAsLong();
+            tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens / tokensPerNano);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package com.sparky.operator.queue;
+
+import com.sparky.operator.metrics.OperatorMetrics;
+import io.prometheus.client.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * черга ключів (namespace/name), яка об'єднує повторні події для одного ресурсу
+ * queue of keys (namespace/name) that merges repeated events for the same resource
+ * очередь ключей (namespace/name), которая объединяет повторные события для одного ресурса
+ *
+ * ключ, що вже чекає в черзі, не додається вдруге; ключ, що зараз обробляється,
+ * повертається в чергу лише після виклику {@link #done(String)}, тому один ключ
+ * ніколи не обробляється двома потоками одночасно
+ * a key already waiting is not added twice; a key being processed goes back to
+ * the queue only after {@link #done(String)}, so one key is never handled by
+ * two threads at the same time
+ * ключ, который уже ждет в очереди, не добавляется повторно; ключ, который сейчас
+ * обрабатывается, возвращается в очередь только после {@link #done(String)}, поэтому
+ * один ключ никогда не обрабатывается двумя потоками одновременно
+ *
+ * кожен {@link Priority} має власну смугу: смуги обираються зваженим круговим порядком, фонові смуги
+ * разом займають не більше заданої частки робочих потоків, а ключ, що чекає довше за межу старіння, йде першим;
+ * повторна подія з вищим пріоритетом переносить ключ, що вже чекає, у вищу смугу
+ * every {@link Priority} has its own lane: lanes are picked in weighted round robin, background lanes
+ * together take at most the configured share of the worker threads, and a key that waited past the aging limit goes first;
+ * a repeated event with a higher priority moves an already waiting key up to the higher lane
+ * каждый {@link Priority} имеет собственную полосу: полосы выбираются взвешенным круговым порядком, фоновые полосы
+ * вместе занимают не больше заданной доли рабочих потоков, а ключ, ждущий дольше предела старения, идет первым;
+ * повторное событие с более высоким приоритетом переносит уже ждущий ключ в более высокую полосу
+ *
+ * усередині смуги простори імен обслуговуються по колу, кожен до своєї ваги ключів за хід, і жоден не займає
+ * більше заданої кількості робочих потоків: тенант, що створює сотні аплікацій, сповільнює лише себе
+ * inside a lane namespaces are served in turn, each up to its weight in keys per turn, and none takes
+ * more than the configured number of worker threads: a tenant creating hundreds of applications slows down only itself
+ * внутри полосы пространства имен обслуживаются по кругу, каждое до своего веса ключей за ход, и ни одно не занимает
+ * больше заданного количества рабочих потоков: тенант, создающий сотни приложений, замедляет только себя
+ *
+ * блокування - ReentrantLock, а не synchronized: віртуальний потік, що чекає в synchronized, займає потік-носій
+ * the lock is a ReentrantLock, not synchronized: a virtual thread waiting inside synchronized holds on to its carrier thread
+ * блокировка - ReentrantLock, а не synchronized: виртуальный поток, ждущий в synchronized, занимает поток-носитель
+ */
+public class WorkQueue {
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueue.class);
+    
+    private static final long DEFAULT_AGING_MILLIS = 30_000;
+    
+    // смуги в порядку пріоритету
+    // lanes in priority order
+    // полосы в порядке приоритета
+    private final Lane[] lanes;
+    
+    // ключі, що чекають у смугах, і їх поточний запис; записи, замінені переносом у вищу смугу, пропускаються
+    // keys waiting in the lanes and their current entry; entries replaced by a move to a higher lane are skipped
+    // ключи, ждущие в полосах, и их текущая запись; записи, замененные переносом в более высокую полосу, пропускаются
+    private final Map<String, Entry> queued = new HashMap<>();
+    
+    // ключі, що потребують обробки, з найвищим пріоритетом серед їх подій
+    // keys that need processing, with the highest priority among their events
+    // ключи, которые требуют обработки, с наивысшим приоритетом среди их событий
+    private final Map<String, Priority> dirty = new HashMap<>();
+    
+    // ключі, що обробляються зараз, і смуга, з якої їх взято
+    // keys being processed right now and the lane they were taken from
+    // ключи, которые обрабатываются сейчас, и полоса, из которой их взяли
+    private final Map<String, Entry> processing = new HashMap<>();
+    
+    // ключі фонових смуг в обробці і їх спільна межа
+    // keys of the background lanes in processing and their combined limit
+    // ключи фоновых полос в обработке и их общий предел
+    private int backgroundInFlight;
+    private int backgroundLimit = Integer.MAX_VALUE;
+    
+    // ключі в черзі та в обробці за простором імен, межа обробки на простір імен і ваги просторів імен
+    // queued and in-flight keys by namespace, the in-flight limit per namespace and the namespace weights
+    // ключи в очереди и в обработке по пространству имен, предел обработки на пространство имен и веса пространств имен
+    private final Map<String, Integer> namespaceQueued = new HashMap<>();
+    private final Map<String, Integer> namespaceInFlight = new HashMap<>();
+    private int namespaceMaxInFlight = Integer.MAX_VALUE;
+    private Map<String, Integer> namespaceWeights = Collections.emptyMap();
+    
+    // після скількох наносекунд очікування ключ обслуговується поза черговістю смуг
+    // after how many nanoseconds of waiting a key is served regardless of lane order
+    // после скольких наносекунд ожидания ключ обслуживается вне очередности полос
+    private long agingNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_AGING_MILLIS);
+    
+    private boolean shuttingDown = false;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    
+    // затримки повторів після невдач
+    // retry delays after failures
+    // задержки повторов после неудач
+    private final ExponentialBackoff backoff;
+    
+    // планувальник відкладених додавань
+    // scheduler for delayed adds
+    // планировщик отложенных добавлений
+    private final ScheduledExecutorService delayScheduler;
+    
+    public WorkQueue(ExponentialBackoff backoff) {
+        this.backoff = backoff;
+        this.lanes = new Lane[Priority.values().length];
+        for (Priority priority : Priority.values()) {
+            lanes[priority.ordinal()] = new Lane(priority);
+        }
+        this.delayScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sparky-queue-delay");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * налаштовує частки смуг; без виклику фонові смуги не обмежені
+     * configures the lane shares; without this call background lanes are not limited
+     * настраивает доли полос; без вызова фоновые полосы не ограничены
+     *
+     * @param workers          кількість робочих потоків / number of worker threads / количество рабочих потоков
+     * @param backgroundShare  частка потоків (0..1) для всіх фонових смуг разом, але не менше одного потоку;
+     *                         за двох і більше потоків хоча б один лишається для специфікацій і дрейфу,
+     *                         а єдиний потік фонові смуги ділять з рештою /
+     *                         share of the threads (0..1) for all background lanes together, but at least one thread;
+     *                         with two or more threads at least one stays free for spec and drift,
+     *                         while a single thread is shared by the background lanes and the rest /
+     *                         доля потоков (0..1) для всех фоновых полос вместе, но не меньше одного потока;
+     *                         при двух и более потоках хотя бы один остается для спецификаций и дрейфа,
+     *                         а единственный поток фоновые полосы делят с остальными
+     * @param agingMillis      межа очікування, після якої ключ іде першим /
+     *                         waiting limit after which a key goes first /
+     *                         предел ожидания, после которого ключ идет первым
+     */
+    public void configureLanes(int workers, double backgroundShare, long agingMillis) {
+        lock.lock();
+        try {
+            int background = (int) Math.ceil(workers * Math.min(1.0, Math.max(0.0, backgroundShare)));
+            backgroundLimit = Math.max(1, Math.min(background, workers - 1));
+            if (workers < 2) {
+                logger.warn("один робочий потік: повтори і ресинхронізація можуть затримати зміни специфікацій і дрейф"); // a single worker: retries and resync may delay spec changes and drift
+            }
+            agingNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, agingMillis));
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * налаштовує квоти просторів імен; без виклику всі простори імен мають вагу 1 і не обмежені
+     * configures the namespace quotas; without this call every namespace has weight 1 and no limit
+     * настраивает квоты пространств имен; без вызова все пространства имен имеют вес 1 и не ограничены
+     *
+     * @param maxInFlight скільки ключів одного простору імен обробляються одночасно /
+     *                    how many keys of one namespace are processed at the same time /
+     *                    сколько ключей одного пространства имен обрабатываются одновременно
+     * @param weights     скільки ключів простір імен отримує за хід; відсутні мають вагу 1 /
+     *                    how many keys a namespace gets per turn; missing ones have weight 1 /
+     *                    сколько ключей пространство имен получает за ход; отсутствующие имеют вес 1
+     */
+    public void configureNamespaces(int maxInFlight, Map<String, Integer> weights) {
+        lock.lock();
+        try {
+            namespaceMaxInFlight = Math.max(1, maxInFlight);
+            namespaceWeights = new HashMap<>(weights);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * додає ключ до смуги заданого пріоритету
+     * adds key to the lane of the given priority
+     * добавляет ключ в полосу заданного приоритета
+     */
+    public void add(String key, Priority priority) {
+        lock.lock();
+        try {
+            Priority pending = dirty.get(key);
+            if (shuttingDown || (pending != null && !priority.isAbove(pending))) {
+                return;
+            }
+            
+            dirty.put(key, priority);
+            
+            // якщо ключ обробляється, він повернеться в чергу в done()
+            // if the key is being processed, done() puts it back
+            // если ключ обрабатывается, он вернется в очередь в done()
+            if (processing.containsKey(key)) {
+                return;
+            }
+            
+            // ключ уже чекає нижче - переносимо його, зберігаючи час очікування
+            // the key already waits lower - move it up, keeping its waiting time
+            // ключ уже ждет ниже - переносим его, сохраняя время ожидания
+            Entry waiting = queued.get(key);
+            if (waiting != null) {
+                lane(waiting.priority).size--;
+                updateDepth(waiting.priority);
+                count(namespaceQueued, OperatorMetrics.NAMESPACE_QUEUED, waiting.namespace, -1);
+            }
+            enqueue(key, priority, waiting != null ? waiting.enqueuedAt : System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * додає ключ до черги після затримки
+     * adds key to the queue after a delay
+     * добавляет ключ в очередь после задержки
+     */
+    public void addAfter(String key, long delayMillis, Priority priority) {
+        if (delayMillis <= 0) {
+            add(key, priority);
+            return;
+        }
+        
+        lock.lock();
+        try {
+            if (shuttingDown) {
+                return;
+            }
+            delayScheduler.schedule(() -> add(key, priority), delayMillis, TimeUnit.MILLISECONDS);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * повертає ключ у смугу повторів після експоненційної затримки
+     * puts the key back into the retry lane after an exponential backoff delay
+     * возвращает ключ в полосу повторов после экспоненциальной задержки
+     *
+     * @return затримка в мілісекундах / delay in milliseconds / задержка в миллисекундах
+     */
+    public long addRateLimited(String key) {
+        OperatorMetrics.QUEUE_RETRIES.inc();
+        long delay = backoff.nextDelayMillis(key);
+        addAfter(key, delay, Priority.RETRY);
+        return delay;
+    }
+    
+    /**
+     * скидає історію невдач ключа після успішної обробки
+     * clears the failure history of a key after successful processing
+     * сбрасывает историю неудач ключа после успешной обработки
+     */
+    public void forget(String key) {
+        backoff.forget(key);
+    }
+    
+    /**
+     * чекає наступний ключ; повертає null після зупинки черги
+     * waits for the next key; returns null after the queue is shut down
+     * ждет следующий ключ; возвращает null после остановки очереди
+     */
+    public String get() throws InterruptedException {
+        lock.lock();
+        try {
+            Entry entry;
+            while ((entry = nextEntry()) == null) {
+                if (shuttingDown) {
+                    return null;
+                }
+                notEmpty.await();
+            }
+            
+            Lane lane = lane(entry.priority);
+            String key = entry.key;
+            queued.remove(key);
+            lane.size--;
+            if (lane.priority.isBackground()) {
+                backgroundInFlight++;
+            }
+            processing.put(key, entry);
+            dirty.remove(key);
+            count(namespaceInFlight, OperatorMetrics.NAMESPACE_IN_FLIGHT, entry.namespace, 1);
+            count(namespaceQueued, OperatorMetrics.NAMESPACE_QUEUED, entry.namespace, -1);
+            
+            OperatorMetrics.QUEUE_WAIT.labels(lane.priority.getLabel()).observe((System.nanoTime() - entry.enqueuedAt) / 1e9);
+            updateDepth(lane.priority);
+            return key;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * позначає завершення обробки ключа
+     * marks key processing as finished
+     * отмечает завершение обработки ключа
+     */
+    public void done(String key) {
+        lock.lock();
+        try {
+            Entry taken = processing.remove(key);
+            if (taken != null && taken.priority.isBackground()) {
+                backgroundInFlight--;
+            }
+            if (taken != null) {
+                count(namespaceInFlight, OperatorMetrics.NAMESPACE_IN_FLIGHT, taken.namespace, -1);
+            }
+            
+            // за час обробки прийшли нові події - повертаємо ключ у чергу
+            // new events arrived during processing - put the key back
+            // за время обработки пришли новые события - возвращаем ключ в очередь
+            Priority pending = dirty.get(key);
+            if (pending != null) {
+                enqueue(key, pending, System.nanoTime());
+            } else if (taken != null) {
+                // звільнилося місце у смузі та в просторі імен - ключ, що чекав на нього, можна брати
+                // a slot in the lane and in the namespace is free - a key waiting for it can be taken
+                // освободилось место в полосе и в пространстве имен - ключ, ждавший его, можно брать
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private void enqueue(String key, Priority priority, long enqueuedAt) {
+        Entry entry = new Entry(key, namespaceOf(key), priority, enqueuedAt);
+        Lane lane = lane(priority);
+        queued.put(key, entry);
+        lane.arrivals.addLast(entry);
+        Deque<Entry> pending = lane.namespaces.get(entry.namespace);
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+            lane.namespaces.put(entry.namespace, pending);
+            lane.ring.addLast(entry.namespace);
+        }
+        pending.addLast(entry);
+        lane.size++;
+        count(namespaceQueued, OperatorMetrics.NAMESPACE_QUEUED, entry.namespace, 1);
+        updateDepth(priority);
+        notEmpty.signal();
+    }
+    
+    /**
+     * запис, який взяти наступним, або null, якщо доступних ключів немає
+     * the entry to take next, or null if no key is available
+     * запись, которую взять следующей, или null, если доступных ключей нет
+     *
+     * серед смуг із ключами та вільним місцем спершу та, чий найстаріший ключ чекає довше за межу старіння,
+     * інакше плавний зважений круговий вибір: кожна смуга накопичує свою вагу, обрана віддає суму ваг;
+     * в обраній смузі ключ дає коло просторів імен
+     * among lanes with keys and a free slot, first the one whose oldest key waited past the aging limit,
+     * otherwise smooth weighted round robin: every lane accumulates its weight, the chosen one pays back the total;
+     * in the chosen lane the namespace ring gives the key
+     * среди полос с ключами и свободным местом сначала та, чей самый старый ключ ждет дольше предела старения,
+     * иначе плавный взвешенный круговой выбор: каждая полоса накапливает свой вес, выбранная отдает сумму весов;
+     * в выбранной полосе ключ дает круг пространств имен
+     *
+     * кандидатів смуг шукають без зміни кіл; коло зсувається лише в смузі, з якої ключ справді взято
+     * lane candidates are found without touching the rings; a ring moves only in the lane the key is actually taken from
+     * кандидатов полос ищут без изменения кругов; круг сдвигается только в полосе, из которой ключ действительно взят
+     */
+    private Entry nextEntry() {
+        long now = System.nanoTime();
+        Entry aged = null;
+        Lane weighted = null;
+        int totalWeight = 0;
+        for (Lane lane : lanes) {
+            lane.candidate = null;
+            if (lane.size == 0) {
+                lane.clear();
+                continue;
+            }
+            if (lane.priority.isBackground() && backgroundInFlight >= backgroundLimit) {
+                continue;
+            }
+            
+            // усі простори імен смуги вичерпали свої квоти
+            // every namespace of the lane has used up its quota
+            // все пространства имен полосы исчерпали свои квоты
+            lane.candidate = nextInRing(lane);
+            if (lane.candidate == null) {
+                continue;
+            }
+            
+            Entry oldest = oldest(lane);
+            if (now - oldest.enqueuedAt >= agingNanos && hasCapacity(oldest.namespace)
+                    && (aged == null || oldest.enqueuedAt < aged.enqueuedAt)) {
+                aged = oldest;
+            }
+            lane.credit += lane.priority.getWeight();
+            totalWeight += lane.priority.getWeight();
+            if (weighted == null || lane.credit > weighted.credit) {
+                weighted = lane;
+            }
+        }
+        
+        if (aged != null) {
+            lane(aged.priority).credit -= totalWeight;
+            return aged;
+        }
+        if (weighted == null) {
+            return null;
+        }
+        weighted.credit -= totalWeight;
+        advanceRing(weighted, weighted.candidate.namespace);
+        return weighted.candidate;
+    }
+    
+    /**
+     * перший ключ за колом від простору імен, чий зараз хід, серед просторів імен з вільним місцем; коло не змінюється
+     * the first key in ring order from the namespace whose turn it is, among namespaces with a free slot; the ring is not changed
+     * первый ключ по кругу от пространства имен, чей сейчас ход, среди пространств имен со свободным местом; круг не меняется
+     */
+    private Entry nextInRing(Lane lane) {
+        for (String namespace : lane.ring) {
+            Entry head = liveHead(lane.namespaces.get(namespace));
+            if (head != null && hasCapacity(namespace)) {
+                return head;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * віддає хід простору імен, з якого взято ключ: простори імен без ключів виходять з кола, а ті, що чекали
+     * на вільне місце, пропускають хід; далі простір імен отримує свою вагу ключів за хід
+     * gives the turn to the namespace the key was taken from: namespaces without keys leave the ring and those waiting
+     * for a free slot pass their turn; then the namespace gets its weight in keys per turn
+     * отдает ход пространству имен, из которого взят ключ: пространства имен без ключей выходят из круга, а те, что ждали
+     * свободного места, пропускают ход; дальше пространство имен получает свой вес ключей за ход
+     */
+    private void advanceRing(Lane lane, String taken) {
+        String namespace;
+        while (!(namespace = lane.ring.peekFirst()).equals(taken)) {
+            if (liveHead(lane.namespaces.get(namespace)) == null) {
+                lane.ring.pollFirst();
+                lane.namespaces.remove(namespace);
+                lane.servedInTurn = 0;
+            } else {
+                OperatorMetrics.NAMESPACE_THROTTLED.labels(namespace).inc();
+                lane.passTurn();
+            }
+        }
+        
+        // простір імен отримав свою вагу ключів за хід - хід переходить до наступного
+        // the namespace got its weight in keys for this turn - the turn passes to the next one
+        // пространство имен получило свой вес ключей за ход - ход переходит к следующему
+        if (++lane.servedInTurn >= weightOf(taken)) {
+            lane.passTurn();
+        }
+    }
+    
+    /**
+     * перший чинний запис простору імен; записи взятих і перенесених у вищу смугу ключів відкидаються
+     * the first current entry of a namespace; entries of taken keys and of keys moved to a higher lane are dropped
+     * первая действующая запись пространства имен; записи взятых и перенесенных в более высокую полосу ключей отбрасываются
+     */
+    private Entry liveHead(Deque<Entry> pending) {
+        Entry head = pending.peekFirst();
+        while (head != null && queued.get(head.key) != head) {
+            pending.pollFirst();
+            head = pending.peekFirst();
+        }
+        return head;
+    }
+    
+    /**
+     * найстаріший чинний запис смуги; записи взятих і перенесених у вищу смугу ключів відкидаються
+     * the oldest current entry of a lane; entries of taken keys and of keys moved to a higher lane are dropped
+     * самая старая действующая запись полосы; записи взятых и перенесенных в более высокую полосу ключей отбрасываются
+     */
+    private Entry oldest(Lane lane) {
+        Entry head = lane.arrivals.peekFirst();
+        while (queued.get(head.key) != head) {
+            lane.arrivals.pollFirst();
+            head = lane.arrivals.peekFirst();
+        }
+        return head;
+    }
+    
+    private boolean hasCapacity(String namespace) {
+        return namespaceInFlight.getOrDefault(namespace, 0) < namespaceMaxInFlight;
+    }
+    
+    private int weightOf(String namespace) {
+        return namespaceWeights.getOrDefault(namespace, 1);
+    }
+    
+    private static String namespaceOf(String key) {
+        int slash = key.indexOf('/');
+        return slash < 0 ? "" : key.substring(0, slash);
+    }
+    
+    /**
+     * змінює лічильник простору імен і його метрику; нульові лічильники прибираються разом з рядом метрики,
+     * а простір імен, якого немає ні в черзі, ні в обробці, втрачає і ряд пропусків: простори імен ci приходять
+     * і зникають, тож ряди не накопичуються
+     * changes a namespace counter and its metric; zero counters are removed together with the metric series,
+     * and a namespace neither queued nor in flight also loses its throttle series: ci namespaces come and go,
+     * so the series do not pile up
+     * изменяет счетчик пространства имен и его метрику; нулевые счетчики убираются вместе с рядом метрики,
+     * а пространство имен, которого нет ни в очереди, ни в обработке, теряет и ряд пропусков: пространства имен ci
+     * приходят и исчезают, поэтому ряды не накапливаются
+     */
+    private void count(Map<String, Integer> counters, Gauge gauge, String namespace, int delta) {
+        int value = counters.merge(namespace, delta, Integer::sum);
+        if (value > 0) {
+            gauge.labels(namespace).set(value);
+            return;
+        }
+        
+        counters.remove(namespace);
+        gauge.remove(namespace);
+        if (!namespaceQueued.containsKey(namespace) && !namespaceInFlight.containsKey(namespace)) {
+            OperatorMetrics.NAMESPACE_THROTTLED.remove(namespace);
+        }
+    }
+    
+    private Lane lane(Priority priority) {
+        return lanes[priority.ordinal()];
+    }
+    
+    private void updateDepth(Priority priority) {
+        OperatorMetrics.QUEUE_DEPTH.labels(priority.getLabel()).set(lane(priority).size);
+    }
+    
+    /**
+     * кількість ключів, що чекають обробки
+     * number of keys waiting to be processed
+     * количество ключей, ожидающих обработки
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return queued.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * зупиняє чергу і будить всі потоки, що чекають
+     * shuts the queue down and wakes all waiting threads
+     * останавливает очередь и будит все ожидающие потоки
+     */
+    public void shutDown() {
+        lock.lock();
+        try {
+            shuttingDown = true;
+            delayScheduler.shutdownNow();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public boolean isShuttingDown() {
+        lock.lock();
+        try {
+            return shuttingDown;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private static final class Lane {
+        private final Priority priority;
+        
+        // записи в порядку надходження - для старіння
+        // entries in arrival order - for aging
+        // записи в порядке поступления - для старения
+        private final Deque<Entry> arrivals = new ArrayDeque<>();
+        
+        // записи кожного простору імен і коло просторів імен, перший у колі має хід
+        // entries of every namespace and the ring of namespaces, the first in the ring has the turn
+        // записи каждого пространства имен и круг пространств имен, первое в круге имеет ход
+        private final Map<String, Deque<Entry>> namespaces = new HashMap<>();
+        private final Deque<String> ring = new ArrayDeque<>();
+        private int servedInTurn;
+        
+        // чинні ключі в смузі і накопичена вага для кругового вибору
+        // current keys in the lane and accumulated weight for round robin
+        // действующие ключи в полосе и накопленный вес для кругового выбора
+        private int size;
+        private long credit;
+        
+        // запис, який смуга віддасть, якщо її оберуть
+        // the entry the lane gives out if it is chosen
+        // запись, которую полоса отдаст, если ее выберут
+        private Entry candidate;
+        
+        private Lane(Priority priority) {
+            this.priority = priority;
+        }
+        
+        private void passTurn() {
+            ring.addLast(ring.pollFirst());
+            servedInTurn = 0;
+        }
+        
+        /**
+         * порожня смуга відкидає записи вже взятих ключів
+         * an empty lane drops the entries of keys already taken
+         * пустая полоса отбрасывает записи уже взятых ключей
+         */
+        private void clear() {
+            if (!arrivals.isEmpty()) {
+                arrivals.clear();
+                namespaces.clear();
+                ring.clear();
+                servedInTurn = 0;
+            }
+            credit = 0;
+        }
+    }
+    
+    private static final class Entry {
+        private final String key;
+        private final String namespace;
+        private final Priority priority;
+        private final long enqueuedAt;
+        
+        private Entry(String key, String namespace, Priority priority, long enqueuedAt) {
+            this.key = key;
+            this.namespace = namespace;
+            this.priority = priority;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
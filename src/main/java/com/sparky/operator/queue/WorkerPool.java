@@ -0,0 +1,97 @@
+package com.sparky.operator.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * пул потоків, які забирають ключі з черги та передають їх обробнику
+ * thread pool that takes keys from the queue and passes them to the handler
+ * пул потоков, которые забирают ключи из очереди и передают их обработчику
+ */
+public class WorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPool.class);
+    
+    private final WorkQueue queue;
+    private final int threadCount;
+    private final ThreadFactory threadFactory;
+    private final Consumer<String> handler;
+    private final List<Thread> threads = new ArrayList<>();
+    
+    public WorkerPool(WorkQueue queue, int threadCount, ThreadFactory threadFactory, Consumer<String> handler) {
+        this.queue = queue;
+        this.threadCount = threadCount;
+        this.threadFactory = threadFactory;
+        this.handler = handler;
+    }
+    
+    /**
+     * запускає робочі потоки
+     * starts worker threads
+     * запускает рабочие потоки
+     */
+    public synchronized void start() {
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = threadFactory.newThread(this::processLoop);
+            thread.start();
+            threads.add(thread);
+        }
+        
+        logger.info("запущено {} робочих потоків", threadCount); // started worker threads
+    }
+    
+    /**
+     * зупиняє чергу та чекає завершення потоків
+     * shuts the queue down and waits for threads to finish
+     * останавливает очередь и ждет завершения потоков
+     */
+    public synchronized void stop() {
+        queue.shutDown();
+        
+        for (Thread thread : threads) {
+            try {
+                thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        threads.clear();
+    }
+    
+    /**
+     * цикл одного робочого потоку
+     * loop of a single worker thread
+     * цикл одного рабочего потока
+     */
+    private void processLoop() {
+        while (true) {
+            String key;
+            try {
+                key = queue.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            // черга зупинена
+            // queue is shut down
+            // очередь остановлена
+            if (key == null) {
+                return;
+            }
+            
+            try {
+                handler.accept(key);
+            } catch (Exception e) {
+                logger.error("помилка під час обробки " + key, e); // error while processing key
+            } finally {
+                queue.done(key);
+            }
+        }
+    }
+}
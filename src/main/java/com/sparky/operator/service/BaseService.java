@@ -1,6 +1,24 @@
 package com.sparky.operator.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.RenderCache;
+import com.sparky.operator.crd.SpringBootApp;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.OwnerReference;
+import io.fabric8.kubernetes.api.model.OwnerReferenceBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.utils.Serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiPredicate;
 
 /**
  * базовий сервіс для роботи з ресурсами кубернетеса
@@ -8,10 +26,46 @@ import io.fabric8.kubernetes.client.KubernetesClient;
  * базовый сервис для работы с ресурсами кубернетеса
  */
 public abstract class BaseService {
+    // ім'я менеджера полів для server-side apply; має бути стабільним між версіями оператора
+    // field manager name for server-side apply; must stay stable across operator versions
+    // имя менеджера полей для server-side apply; должно быть стабильным между версиями оператора
+    public static final String FIELD_MANAGER = "sparky-operator";
+    
+    // хеш бажаного стану, з якого побудовано записаний об'єкт
+    // hash of the desired state the written object was rendered from
+    // хеш желаемого состояния, из которого построен записанный объект
+    public static final String DESIRED_HASH_ANNOTATION = "sparky.com/desired-hash";
+    
+    // серіалізація для хешу: ключі мап відсортовані, щоб хеш не залежав від порядку вставки
+    // serialization for the hash: map keys are sorted so the hash does not depend on insertion order
+    // сериализация для хеша: ключи мап отсортированы, чтобы хеш не зависел от порядка вставки
+    private static final ObjectWriter HASH_WRITER = Serialization.jsonMapper().writer()
+            .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    
     protected final KubernetesClient client;
     
+    // кеш ресурсів оператора для читання поточного стану без запитів до api-сервера
+    // cache of operator resources for reading current state without api server requests
+    // кэш ресурсов оператора для чтения текущего состояния без запросов к api-серверу
+    protected final OwnedResourceCache cache;
+    
+    // побудований бажаний стан за входами побудови, щоб не будувати незмінні аплікації заново
+    // rendered desired state keyed by the render inputs, so unchanged applications are not rendered again
+    // построенное желаемое состояние по входам построения, чтобы не строить неизменные приложения заново
+    protected final RenderCache renders;
+    
     public BaseService(KubernetesClient client) {
+        this(client, null);
+    }
+    
+    public BaseService(KubernetesClient client, OwnedResourceCache cache) {
+        this(client, cache, RenderCache.disabled());
+    }
+    
+    public BaseService(KubernetesClient client, OwnedResourceCache cache, RenderCache renders) {
         this.client = client;
+        this.cache = cache;
+        this.renders = renders;
     }
     
     /**
@@ -22,4 +76,113 @@ public abstract class BaseService {
     protected String getResourceName(String appName, String resourceType) {
         return appName + "-" + resourceType;
     }
+    
+    /**
+     * посилання на аплікацію-власника: збирач сміття кубернетеса видаляє ресурс разом з аплікацією,
+     * навіть якщо оператор у цей час не працює
+     * reference to the owning application: the kubernetes garbage collector deletes the resource with the application,
+     * even if the operator is not running at the time
+     * ссылка на приложение-владельца: сборщик мусора кубернетеса удаляет ресурс вместе с приложением,
+     * даже если оператор в это время не работает
+     */
+    protected OwnerReference ownerReference(SpringBootApp app) {
+        return new OwnerReferenceBuilder()
+                .withApiVersion(HasMetadata.getApiVersion(SpringBootApp.class))
+                .withKind(HasMetadata.getKind(SpringBootApp.class))
+                .withName(app.getMetadata().getName())
+                .withUid(app.getMetadata().getUid())
+                .withController(true)
+                .withBlockOwnerDeletion(true)
+                .build();
+    }
+    
+    /**
+     * чи має наявний ресурс усі посилання на власників з бажаного стану
+     * whether the existing resource carries every owner reference of the desired state
+     * есть ли у существующего ресурса все ссылки на владельцев из желаемого состояния
+     */
+    protected static boolean hasOwnerReferences(HasMetadata existing, HasMetadata desired) {
+        List<OwnerReference> actual = existing.getMetadata().getOwnerReferences();
+        return actual != null && actual.containsAll(desired.getMetadata().getOwnerReferences());
+    }
+    
+    /**
+     * позначає бажаний стан анотацією з його хешем; викликається після побудови, тож з кешем побудови
+     * хеш рахується лише при зміні аплікації
+     * stamps the desired state with an annotation holding its hash; called after rendering, so with the render cache
+     * the hash is computed only when the application changes
+     * помечает желаемое состояние аннотацией с его хешем; вызывается после построения, поэтому с кэшем построения
+     * хеш считается только при изменении приложения
+     */
+    protected static <T extends HasMetadata> T stamp(T desired) {
+        String json;
+        try {
+            json = HASH_WRITER.writeValueAsString(desired);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("не вдалося серіалізувати " + desired.getMetadata().getName(), e);
+        }
+        
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        
+        StringBuilder hash = new StringBuilder();
+        for (int i = 0; i < 16; i++) {
+            hash.append(String.format("%02x", digest[i]));
+        }
+        if (desired.getMetadata().getAnnotations() == null) {
+            desired.getMetadata().setAnnotations(new HashMap<>());
+        }
+        desired.getMetadata().getAnnotations().put(DESIRED_HASH_ANNOTATION, hash.toString());
+        return desired;
+    }
+    
+    /**
+     * чи вже застосовано бажаний стан: хеш на живому об'єкті збігається з бажаним і ніхто не змінював об'єкт
+     * після запису оператора; інакше - повне порівняння полів, після якого об'єкт вважається звіреним
+     * (наприклад, перше примирення після перезапуску оператора)
+     * whether the desired state is already applied: the hash on the live object matches the desired one and nobody
+     * changed the object after the operator wrote it; otherwise a full field comparison, after which the object counts
+     * as checked (e.g. the first reconcile after an operator restart)
+     * применено ли уже желаемое состояние: хеш на живом объекте совпадает с желаемым и никто не менял объект
+     * после записи оператора; иначе - полное сравнение полей, после которого объект считается сверенным
+     * (например, первое примирение после перезапуска оператора)
+     */
+    protected <T extends HasMetadata> boolean isApplied(T existing, T desired, BiPredicate<T, T> upToDate) {
+        if (existing == null || existing.getMetadata().getAnnotations() == null
+                || !Objects.equals(existing.getMetadata().getAnnotations().get(DESIRED_HASH_ANNOTATION),
+                        desired.getMetadata().getAnnotations().get(DESIRED_HASH_ANNOTATION))) {
+            return false;
+        }
+        if (cache.isUnchangedSinceApplied(existing)) {
+            return true;
+        }
+        if (!upToDate.test(existing, desired)) {
+            return false;
+        }
+        cache.markApplied(existing);
+        return true;
+    }
+    
+    /**
+     * записує ресурс одним PATCH-запитом server-side apply, що містить лише поля оператора;
+     * конфлікти з іншими менеджерами вирішуються на користь оператора
+     * writes the resource with a single server-side apply PATCH carrying only the operator's fields;
+     * conflicts with other managers are resolved in the operator's favour
+     * записывает ресурс одним PATCH-запросом server-side apply, содержащим только поля оператора;
+     * конфликты с другими менеджерами решаются в пользу оператора
+     */
+    protected <T extends HasMetadata> T apply(T resource) {
+        T applied = client.resource(resource)
+                .fieldManager(FIELD_MANAGER)
+                .forceConflicts()
+                .serverSideApply();
+        if (cache != null && applied != null) {
+            cache.markApplied(applied);
+        }
+        return applied;
+    }
 }
\ No newline at end of file
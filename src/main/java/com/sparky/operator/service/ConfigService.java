@@ -1,5 +1,7 @@
 package com.sparky.operator.service;
 
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.RenderCache;
 import com.sparky.operator.crd.SpringBootApp;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
@@ -9,9 +11,13 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * сервіс для роботи з конфігураційними ресурсами
@@ -21,16 +27,22 @@ import java.util.Map;
 public class ConfigService extends BaseService {
     private static final Logger logger = LoggerFactory.getLogger(ConfigService.class);
     
-    public ConfigService(KubernetesClient client) {
-        super(client);
+    public ConfigService(KubernetesClient client, OwnedResourceCache cache) {
+        super(client, cache);
+    }
+    
+    public ConfigService(KubernetesClient client, OwnedResourceCache cache, RenderCache renders) {
+        super(client, cache, renders);
     }
     
     /**
      * створює або оновлює конфігураційні ресурси
      * creates or updates configuration resources
      * создает или обновляет конфигурационные ресурсы
+     *
+     * @param database база даних аплікації або null / the application's database or null / база данных приложения или null
      */
-    public void createOrUpdateConfigResources(SpringBootApp app) {
+    public void createOrUpdateConfigResources(SpringBootApp app, DatabaseInstance database) {
         String appName = app.getMetadata().getName();
         String namespace = app.getMetadata().getNamespace();
         
@@ -41,7 +53,7 @@ public class ConfigService extends BaseService {
         // створюємо конфігмап
         // create configmap
         // создаем конфигмап
-        createConfigMap(app);
+        createConfigMap(app, database);
         
         // створюємо секрет
         // create secret
@@ -54,45 +66,73 @@ public class ConfigService extends BaseService {
     }
     
     /**
-     * видаляє конфігураційні ресурси
-     * deletes configuration resources
-     * удаляет конфигурационные ресурсы
+     * створює конфігмап з параметрами аплікації
+     * creates configmap with application parameters
+     * создает конфигмап с параметрами приложения
      */
-    public void deleteConfigResources(SpringBootApp app) {
-        String appName = app.getMetadata().getName();
+    private void createConfigMap(SpringBootApp app, DatabaseInstance database) {
         String namespace = app.getMetadata().getNamespace();
         
-        logger.info("видалення конфігураційних ресурсів для {}", appName);
-        logger.info("видалення конфігураційних ресурсів для {}", appName);
-        logger.info("удаление конфигурационных ресурсов для {}", appName);
-        
-        // видаляємо конфігмап
-        // delete configmap
-        // удаляем конфигмап
-        client.configMaps()
-                .inNamespace(namespace)
-                .withName(getResourceName(appName, "config"))
-                .delete();
-        
-        // видаляємо секрет
-        // delete secret
-        // удаляем секрет
-        client.secrets()
-                .inNamespace(namespace)
-                .withName(getResourceName(appName, "secret"))
-                .delete();
-        
-        logger.info("конфігураційні ресурси видалено для {}", appName);
-        logger.info("конфігураційні ресурси видалено для {}", appName);
-        logger.info("конфигурационные ресурсы удалены для {}", appName);
+        ConfigMap configMap = buildConfigMap(app, database);
+        
+        // порівнюємо хеш бажаного стану з кешем - якщо нічого не змінилося, запит не потрібен
+        // compare the desired-state hash with the cache - if nothing changed, no request is needed
+        // сравниваем хеш желаемого состояния с кэшем - если ничего не изменилось, запрос не нужен
+        ConfigMap existing = cache.getConfigMap(namespace, configMap.getMetadata().getName());
+        if (isApplied(existing, configMap, (live, desired) ->
+                hasLabels(live.getMetadata().getLabels(), desired.getMetadata().getLabels())
+                        && hasOwnerReferences(live, desired)
+                        && Objects.equals(live.getData(), desired.getData()))) {
+            return;
+        }
+        
+        // застосовуємо конфігмап в кластері через server-side apply
+        // apply configmap in cluster with server-side apply
+        // применяем конфигмап в кластере через server-side apply
+        apply(configMap);
     }
     
     /**
-     * створює конфігмап з параметрами аплікації
-     * creates configmap with application parameters
-     * создает конфигмап с параметрами приложения
+     * створює секрет з кредами бази даних
+     * creates secret with database credentials
+     * создает секрет с кредами базы данных
      */
-    private void createConfigMap(SpringBootApp app) {
+    private void createSecret(SpringBootApp app) {
+        String namespace = app.getMetadata().getNamespace();
+        
+        Secret secret = buildSecret(app);
+        
+        // порівнюємо хеш бажаного стану з кешем - якщо нічого не змінилося, запит не потрібен
+        // compare the desired-state hash with the cache - if nothing changed, no request is needed
+        // сравниваем хеш желаемого состояния с кэшем - если ничего не изменилось, запрос не нужен
+        Secret existing = cache.getSecret(namespace, secret.getMetadata().getName());
+        if (isApplied(existing, secret, (live, desired) ->
+                hasLabels(live.getMetadata().getLabels(), desired.getMetadata().getLabels())
+                        && hasOwnerReferences(live, desired)
+                        && Objects.equals(live.getType(), desired.getType())
+                        && Objects.equals(live.getData(), desired.getData()))) {
+            return;
+        }
+        
+        // застосовуємо секрет в кластері через server-side apply
+        // apply secret in cluster with server-side apply
+        // применяем секрет в кластере через server-side apply
+        apply(secret);
+    }
+    
+    /**
+     * бажаний стан конфігмапу аплікації; будується заново, лише коли змінилися налаштування чи ендпоінт бази даних
+     * desired state of the application configmap; rendered anew only when the database settings or endpoint changed
+     * желаемое состояние конфигмапа приложения; строится заново, только когда изменились настройки или эндпоинт базы данных
+     */
+    ConfigMap buildConfigMap(SpringBootApp app, DatabaseInstance database) {
+        boolean databaseEnabled = app.getSpec().getDatabase() != null && app.getSpec().getDatabase().isEnabled();
+        List<Object> inputs = Arrays.asList(app.getMetadata().getUid(), databaseEnabled,
+                database != null ? database.getEndpoint() : null, database != null ? database.getPort() : null);
+        return renders.render(app, "configmap", inputs, () -> renderConfigMap(app, database));
+    }
+    
+    private ConfigMap renderConfigMap(SpringBootApp app, DatabaseInstance database) {
         String appName = app.getMetadata().getName();
         String namespace = app.getMetadata().getNamespace();
         
@@ -100,33 +140,30 @@ public class ConfigService extends BaseService {
         // create data for configmap
         // создаем данные для конфигмапа
         Map<String, String> configData = new HashMap<>();
-        configData.put("application.properties", createApplicationProperties(app));
+        configData.put("application.properties", createApplicationProperties(app, database));
         
-        // створюємо конфігмап
-        // create configmap
-        // создаем конфигмап
-        ConfigMap configMap = new ConfigMapBuilder()
+        return stamp(new ConfigMapBuilder()
                 .withNewMetadata()
                     .withName(getResourceName(appName, "config"))
                     .withNamespace(namespace)
                     .addToLabels("app", appName)
                     .addToLabels("sparky-operator-managed", "true")
+                    .withOwnerReferences(ownerReference(app))
                 .endMetadata()
                 .withData(configData)
-                .build();
-        
-        // створюємо або оновлюємо конфігмап в кластері
-        // create or update configmap in cluster
-        // создаем или обновляем конфигмап в кластере
-        client.configMaps().inNamespace(namespace).createOrReplace(configMap);
+                .build());
     }
     
     /**
-     * створює секрет з кредами бази даних
-     * creates secret with database credentials
-     * создает секрет с кредами базы данных
+     * бажаний стан секрету аплікації; залежить лише від самої аплікації
+     * desired state of the application secret; depends only on the application itself
+     * желаемое состояние секрета приложения; зависит только от самого приложения
      */
-    private void createSecret(SpringBootApp app) {
+    Secret buildSecret(SpringBootApp app) {
+        return renders.render(app, "secret", Collections.singletonList(app.getMetadata().getUid()), () -> renderSecret(app));
+    }
+    
+    private Secret renderSecret(SpringBootApp app) {
         String appName = app.getMetadata().getName();
         String namespace = app.getMetadata().getNamespace();
         
@@ -137,24 +174,17 @@ public class ConfigService extends BaseService {
         secretData.put("db-username", Base64.getEncoder().encodeToString("admin".getBytes()));
         secretData.put("db-password", Base64.getEncoder().encodeToString("TempPassword123!".getBytes()));
         
-        // створюємо секрет
-        // create secret
-        // создаем секрет
-        Secret secret = new SecretBuilder()
+        return stamp(new SecretBuilder()
                 .withNewMetadata()
                     .withName(getResourceName(appName, "secret"))
                     .withNamespace(namespace)
                     .addToLabels("app", appName)
                     .addToLabels("sparky-operator-managed", "true")
+                    .withOwnerReferences(ownerReference(app))
                 .endMetadata()
                 .withData(secretData)
                 .withType("Opaque")
-                .build();
-        
-        // створюємо або оновлюємо секрет в кластері
-        // create or update secret in cluster
-        // создаем или обновляем секрет в кластере
-        client.secrets().inNamespace(namespace).createOrReplace(secret);
+                .build());
     }
     
     /**
@@ -162,7 +192,7 @@ public class ConfigService extends BaseService {
      * creates application properties
      * создает свойства приложения
      */
-    private String createApplicationProperties(SpringBootApp app) {
+    String createApplicationProperties(SpringBootApp app, DatabaseInstance database) {
         StringBuilder props = new StringBuilder();
         props.append("# конфігурація спринг бут аплікації\n");
         props.append("# spring boot application configuration\n");
@@ -176,11 +206,21 @@ public class ConfigService extends BaseService {
             props.append("\n# налаштування бази даних\n");
             props.append("# database configuration\n");
             props.append("# настройки базы данных\n");
-            props.append("spring.datasource.url=jdbc:mysql://${DB_HOST:localhost}:${DB_PORT:3306}/${DB_NAME:").append(app.getMetadata().getName()).append("}\n");
+            // коли база даних доступна, її ендпоінт стає значенням за замовчуванням
+            // once the database is available, its endpoint becomes the default value
+            // когда база данных доступна, ее эндпоинт становится значением по умолчанию
+            boolean hasEndpoint = database != null && database.getEndpoint() != null;
+            String host = hasEndpoint ? database.getEndpoint() : "localhost";
+            int port = hasEndpoint && database.getPort() != null ? database.getPort() : 3306;
+            props.append("spring.datasource.url=jdbc:mysql://${DB_HOST:").append(host).append("}:${DB_PORT:").append(port).append("}/${DB_NAME:").append(app.getMetadata().getName()).append("}\n");
             props.append("spring.datasource.username=${DB_USERNAME:admin}\n");
             props.append("spring.datasource.password=${DB_PASSWORD:TempPassword123!}\n");
         }
         
         return props.toString();
     }
+    
+    private static boolean hasLabels(Map<String, String> actual, Map<String, String> expected) {
+        return actual != null && actual.entrySet().containsAll(expected.entrySet());
+    }
 }
\ No newline at end of file
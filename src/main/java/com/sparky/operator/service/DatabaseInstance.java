@@ -0,0 +1,45 @@
+package com.sparky.operator.service;
+
+/**
+ * знімок стану бази даних аплікації
+ * snapshot of an application's database state
+ * снимок состояния базы данных приложения
+ */
+public class DatabaseInstance {
+    private final DatabaseState state;
+    private final String identifier;
+    private final String endpoint;
+    private final Integer port;
+    
+    public DatabaseInstance(DatabaseState state, String identifier, String endpoint, Integer port) {
+        this.state = state;
+        this.identifier = identifier;
+        this.endpoint = endpoint;
+        this.port = port;
+    }
+    
+    public DatabaseState getState() {
+        return state;
+    }
+    
+    public String getIdentifier() {
+        return identifier;
+    }
+    
+    public String getEndpoint() {
+        return endpoint;
+    }
+    
+    public Integer getPort() {
+        return port;
+    }
+    
+    /**
+     * той самий інстанс в іншому стані
+     * the same instance in another state
+     * тот же инстанс в другом состоянии
+     */
+    public DatabaseInstance withState(DatabaseState newState) {
+        return new DatabaseInstance(newState, identifier, endpoint, port);
+    }
+}
@@ -1,53 +1,100 @@
 package com.sparky.operator.service;
 
+import com.sparky.operator.config.OperatorConfig;
 import com.sparky.operator.crd.SpringBootApp;
 import com.sparky.operator.crd.SpringBootAppSpec;
 import com.sparky.operator.crd.SpringBootAppStatus;
+import com.sparky.operator.metrics.AwsMetricsInterceptor;
+import com.sparky.operator.tracing.AwsTracingInterceptor;
 import io.fabric8.kubernetes.client.KubernetesClient;
-import io.fabric8.kubernetes.client.CustomResource;
-import io.fabric8.kubernetes.api.model.HasMetadata;
-import io.fabric8.kubernetes.api.model.ObjectMeta;
-import io.fabric8.kubernetes.client.dsl.MixedOperation;
-import io.fabric8.kubernetes.client.dsl.Resource;
-import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.rds.RdsClient;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.RdsAsyncClientBuilder;
 import software.amazon.awssdk.services.rds.model.*;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.UUID;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * сервіс для роботи з aws rds базами даних
  * service for working with aws rds databases
  * сервис для работы с aws rds базами данных
+ *
+ * база даних проходить стани Requested → Creating → Available → Wired; всі виклики aws
+ * асинхронні, тому потік примирення ніколи не чекає на створення інстансу - спільний
+ * кеш {@link RdsInventory} повертає аплікацію в чергу, коли стан її інстансу змінюється
+ * the database goes through Requested → Creating → Available → Wired; all aws calls
+ * are asynchronous, so a reconcile thread never waits for instance creation - the shared
+ * {@link RdsInventory} cache puts the application back in the queue when its instance changes
+ * база данных проходит состояния Requested → Creating → Available → Wired; все вызовы aws
+ * асинхронные, поэтому поток примирения никогда не ждет создания инстанса - общий
+ * кэш {@link RdsInventory} возвращает приложение в очередь, когда состояние его инстанса меняется
  * 
  * @author Андрій Будильников
  */
 public class DatabaseService extends BaseService {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
     
-    private final RdsClient rdsClient;
-    private final MixedOperation<SpringBootApp, KubernetesResourceList<SpringBootApp>, Resource<SpringBootApp>> springBootAppClient;
+    // стан інстансу, який aws вже видаляє
+    // status of an instance aws is already deleting
+    // состояние инстанса, который aws уже удаляет
+    private static final String DELETING_STATUS = "deleting";
     
-    public DatabaseService(KubernetesClient client) {
+    private final RdsAsyncClient rdsClient;
+    
+    // запити на створення, яких ще не видно в кеші rds, за ключем аплікації (namespace/name)
+    // create requests not yet visible in the rds cache, by application key (namespace/name)
+    // запросы на создание, которых еще не видно в кэше rds, по ключу приложения (namespace/name)
+    private final Map<String, Provisioning> provisioning = new ConcurrentHashMap<>();
+    
+    // запити на видалення, надіслані до aws, за ключем аплікації
+    // delete requests sent to aws, by application key
+    // запросы на удаление, отправленные в aws, по ключу приложения
+    private final Map<String, CompletableFuture<Void>> deleting = new ConcurrentHashMap<>();
+    
+    // спільний кеш rds-інстансів оператора з фоновим опитуванням
+    // shared cache of the operator's rds instances with background polling
+    // общий кэш rds-инстансов оператора с фоновым опросом
+    private final RdsInventory inventory;
+    
+    // повертає аплікацію в чергу примирення
+    // puts the application back into the reconcile queue
+    // возвращает приложение в очередь примирения
+    private final Consumer<String> requeue;
+    
+    public DatabaseService(KubernetesClient client, OperatorConfig config, Consumer<String> requeue) {
         super(client);
-        // ініціалізуємо aws rds клієнт
-        // initialize aws rds client
-        // инициализируем aws rds клиент
-        this.rdsClient = RdsClient.builder()
+        this.requeue = requeue;
+        // ініціалізуємо асинхронний aws rds клієнт
+        // initialize asynchronous aws rds client
+        // инициализируем асинхронный aws rds клиент
+        RdsAsyncClientBuilder rdsBuilder = RdsAsyncClient.builder()
                 .region(getAwsRegion()) // зробити конфігурованим / make configurable / сделать настраиваемым
                 .credentialsProvider(DefaultCredentialsProvider.create())
-                .build();
-        
-        // ініціалізуємо клієнт для роботи з кастомними ресурсами
-        // initialize client for working with custom resources
-        // инициализируем клиент для работы с кастомными ресурсами
-        this.springBootAppClient = client.resources(SpringBootApp.class);
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .addExecutionInterceptor(new AwsMetricsInterceptor())
+                        .addExecutionInterceptor(new AwsTracingInterceptor())
+                        .build());
+        if (config.getRdsEndpoint() != null) {
+            logger.info("api rds: {}", config.getRdsEndpoint()); // rds api endpoint override
+            rdsBuilder.endpointOverride(URI.create(config.getRdsEndpoint()));
+        }
+        this.rdsClient = rdsBuilder.build();
+        this.inventory = new RdsInventory(rdsClient, config.getDatabasePollSeconds(), this::onInstanceChanged);
     }
     
     /**
@@ -89,191 +136,344 @@ public class DatabaseService extends BaseService {
     }
     
     /**
-     * створює або отримує базу даних aws
-     * creates or gets aws database
-     * создает или получает базу данных aws
+     * стабільний ідентифікатор rds-інстансу для аплікації, однаковий при кожному примиренні
+     * stable rds instance identifier for an application, the same on every reconcile
+     * стабильный идентификатор rds-инстанса для приложения, одинаковый при каждом примирении
+     *
+     * правила rds: до 63 символів, літери, цифри та дефіси, починається з літери,
+     * без подвійних дефісів і дефісу в кінці; хеш у кінці розрізняє імена, що збіглися після заміни символів
+     * rds rules: up to 63 characters, letters, digits and hyphens, starts with a letter,
+     * no double hyphens and no trailing hyphen; the trailing hash tells apart names that collide after character replacement
+     * правила rds: до 63 символов, буквы, цифры и дефисы, начинается с буквы,
+     * без двойных дефисов и дефиса в конце; хеш в конце различает имена, совпавшие после замены символов
+     */
+    public static String databaseIdentifier(String namespace, String appName) {
+        String prefix = ("sparky-" + namespace + "-" + appName)
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9-]", "-")
+                .replaceAll("-{2,}", "-");
+        if (prefix.length() > 54) {
+            prefix = prefix.substring(0, 54);
+        }
+        while (prefix.endsWith("-")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        return prefix + "-" + shortHash(namespace + "/" + appName);
+    }
+    
+    private static String shortHash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 4; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * виконує перше опитування rds і запускає фоновий опитувач
+     * performs the first rds refresh and starts the background poller
+     * выполняет первый опрос rds и запускает фоновый опросчик
+     */
+    public void start() {
+        inventory.start();
+    }
+    
+    /**
+     * обмежує кеш rds просторами імен цієї репліки; викликається до {@link #start()}
+     * limits the rds cache to this replica's namespaces; called before {@link #start()}
+     * ограничивает кэш rds пространствами имен этой реплики; вызывается до {@link #start()}
      */
-    public void createOrUpdateDatabase(SpringBootApp app) {
+    public void scopeTo(Predicate<String> ownsNamespace) {
+        inventory.scopeTo(ownsNamespace);
+    }
+    
+    /**
+     * простори імен репліки змінилися - кеш rds перечитує повний список
+     * the replica's namespaces changed - the rds cache reads the full list again
+     * пространства имен реплики изменились - кэш rds перечитывает полный список
+     */
+    public void relist() {
+        inventory.relist();
+    }
+    
+    /**
+     * просуває стан бази даних аплікації, не чекаючи на aws
+     * advances the application's database state without waiting for aws
+     * продвигает состояние базы данных приложения, не дожидаясь aws
+     *
+     * @return поточний стан бази даних / current database state / текущее состояние базы данных
+     */
+    public DatabaseInstance createOrUpdateDatabase(SpringBootApp app, StatusWriter status) {
         String appName = app.getMetadata().getName();
         String namespace = app.getMetadata().getNamespace();
+        String key = Cache.metaNamespaceKeyFunc(app);
         
         logger.info("створення/оновлення бази даних для {}", appName);
         logger.info("створення/оновлення бази даних для {}", appName);
         logger.info("создание/обновление базы данных для {}", appName);
         
-        // отримуємо специфікацію бази даних
-        // get database specification
-        // получаем спецификацию базы данных
-        SpringBootAppSpec.DatabaseConfig dbConfig = app.getSpec().getDatabase();
+        // без знімка rds не можна відрізнити відсутній інстанс від ще не прочитаного
+        // without an rds snapshot a missing instance cannot be told from one not read yet
+        // без снимка rds нельзя отличить отсутствующий инстанс от еще не прочитанного
+        if (!inventory.isSynced()) {
+            throw new IllegalStateException("список rds-інстансів ще не синхронізовано / rds inventory is not synced yet");
+        }
         
-        // генеруємо унікальне ім'я для бази даних
-        // generate unique name for database
-        // генерируем уникальное имя для базы данных
-        String dbInstanceIdentifier = getResourceName(appName, "db-" + UUID.randomUUID().toString().substring(0, 8));
+        String dbInstanceIdentifier = databaseIdentifier(namespace, appName);
+        DatabaseInstance instance;
         
-        try {
-            // перевіряємо чи існує база даних
-            // check if database exists
-            // проверяем существует ли база данных
-            DescribeDbInstancesResponse response = rdsClient.describeDBInstances(
-                DescribeDbInstancesRequest.builder()
-                    .dbInstanceIdentifier(dbInstanceIdentifier)
-                    .build()
-            );
-            
-            // якщо існує, оновлюємо статус
-            // if exists, update status
-            // если существует, обновляем статус
-            if (!response.dbInstances().isEmpty()) {
-                DBInstance dbInstance = response.dbInstances().get(0);
-                updateAppStatus(app, dbInstance.dbInstanceIdentifier(), dbInstance.endpoint().address());
-                logger.info("база даних вже існує: {}", dbInstanceIdentifier);
-                logger.info("база даних вже існує: {}", dbInstanceIdentifier);
-                logger.info("база данных уже существует: {}", dbInstanceIdentifier);
-                return;
+        DBInstance existing = inventory.get(dbInstanceIdentifier);
+        if (existing != null) {
+            // інстанс видно в кеші - запит на створення більше не відстежуємо
+            // the instance is visible in the cache - the create request is no longer tracked
+            // инстанс виден в кэше - запрос на создание больше не отслеживаем
+            provisioning.remove(key);
+            instance = toDatabaseInstance(existing, app.getStatus());
+        } else {
+            Provisioning current = provisioning.get(key);
+            if (current == null) {
+                Provisioning started = new Provisioning(key, dbInstanceIdentifier);
+                current = provisioning.putIfAbsent(key, started);
+                if (current == null) {
+                    current = started;
+                    createInstance(app, started);
+                }
             }
-        } catch (RdsException e) {
-            // якщо база даних не існує, створюємо її
-            // if database doesn't exist, create it
-            // если база данных не существует, создаем ее
-            if (e.awsErrorDetails().errorCode().equals("DBInstanceNotFoundFault")) {
-                logger.info("база даних не знайдена, створюємо нову: {}", dbInstanceIdentifier);
-                logger.info("база даних не знайдена, створюємо нову: {}", dbInstanceIdentifier);
-                logger.info("база данных не найдена, создаем новую: {}", dbInstanceIdentifier);
-            } else {
-                logger.error("помилка під час перевірки бази даних", e);
-                logger.error("помилка під час перевірки бази даних", e);
-                logger.error("ошибка во время проверки базы данных", e);
-                throw e;
+            
+            // запит на створення завершився помилкою - передаємо її черзі для повтору
+            // the create request failed - pass the error to the queue for retry
+            // запрос на создание завершился ошибкой - передаем ее очереди для повтора
+            Throwable error = current.getError();
+            if (error != null) {
+                provisioning.remove(key, current);
+                if (error instanceof RuntimeException) {
+                    throw (RuntimeException) error;
+                }
+                throw new CompletionException(error);
             }
+            instance = current.getInstance();
         }
         
-        // створюємо нову базу даних
-        // create new database
-        // создаем новую базу данных
-        try {
-            CreateDbInstanceResponse createResponse = rdsClient.createDBInstance(
-                CreateDbInstanceRequest.builder()
-                    .dbInstanceIdentifier(dbInstanceIdentifier)
+        recordStatus(status, instance);
+        return instance;
+    }
+    
+    /**
+     * позначає, що ендпоінт бази даних записано в конфігурацію аплікації
+     * marks the database endpoint as written into the application configuration
+     * отмечает, что эндпоинт базы данных записан в конфигурацию приложения
+     */
+    public void markWired(DatabaseInstance instance, StatusWriter status) {
+        recordStatus(status, instance.withState(DatabaseState.WIRED));
+    }
+    
+    /**
+     * стан бази даних за описом інстансу з кешу
+     * database state from the cached instance description
+     * состояние базы данных по описанию инстанса из кэша
+     */
+    private static DatabaseInstance toDatabaseInstance(DBInstance dbInstance, SpringBootAppStatus status) {
+        if (dbInstance.endpoint() == null || dbInstance.endpoint().address() == null) {
+            return new DatabaseInstance(DatabaseState.CREATING, dbInstance.dbInstanceIdentifier(), null, null);
+        }
+        
+        // ендпоінт вже записано в конфігурацію - стан лишається Wired
+        // the endpoint is already in the configuration - the state stays Wired
+        // эндпоинт уже записан в конфигурацию - состояние остается Wired
+        String endpoint = dbInstance.endpoint().address();
+        boolean wired = status != null
+                && DatabaseState.WIRED.getPhase().equals(status.getPhase())
+                && endpoint.equals(status.getDatabaseEndpoint());
+        return new DatabaseInstance(wired ? DatabaseState.WIRED : DatabaseState.AVAILABLE,
+                dbInstance.dbInstanceIdentifier(), endpoint, dbInstance.endpoint().port());
+    }
+    
+    /**
+     * надсилає запит на створення інстансу з тегами оператора
+     * sends the instance create request with the operator tags
+     * отправляет запрос на создание инстанса с тегами оператора
+     */
+    private void createInstance(SpringBootApp app, Provisioning target) {
+        SpringBootAppSpec.DatabaseConfig dbConfig = app.getSpec().getDatabase();
+        
+        logger.info("база даних не знайдена, створюємо нову: {}", target.identifier); // database not found, creating new
+        inventory.expect(target.identifier);
+        
+        rdsClient.createDBInstance(CreateDbInstanceRequest.builder()
+                    .dbInstanceIdentifier(target.identifier)
                     .dbInstanceClass(dbConfig.getInstanceClass())
                     .engine(dbConfig.getEngine())
                     .allocatedStorage(dbConfig.getAllocatedStorage())
                     .masterUsername(dbConfig.getMasterUsername())
                     .masterUserPassword(generatePassword()) // TODO: згенерувати безпечний пароль
                     .publiclyAccessible(false)
-                    .build()
-            );
-            
-            // оновлюємо статус аплікації
-            // update application status
-            // обновляем статус приложения
-            updateAppStatus(app, dbInstanceIdentifier, null);
-            
-            logger.info("запит на створення бази даних відправлено: {}", dbInstanceIdentifier);
-            logger.info("запит на створення бази даних відправлено: {}", dbInstanceIdentifier);
-            logger.info("запрос на создание базы данных отправлен: {}", dbInstanceIdentifier);
-        } catch (RdsException e) {
-            logger.error("помилка під час створення бази даних", e);
-            logger.error("помилка під час створення бази даних", e);
-            logger.error("ошибка во время создания базы данных", e);
-            throw e;
+                    .tags(
+                        Tag.builder().key(RdsInventory.MANAGED_TAG).value("true").build(),
+                        Tag.builder().key(RdsInventory.NAMESPACE_TAG).value(app.getMetadata().getNamespace()).build(),
+                        Tag.builder().key(RdsInventory.APP_TAG).value(app.getMetadata().getName()).build())
+                    .build())
+                .whenComplete((response, error) -> {
+                    Throwable cause = unwrap(error);
+                    
+                    // інстанс вже існує, але ще не потрапив у кеш - чекаємо на наступне опитування
+                    // the instance exists but is not in the cache yet - wait for the next refresh
+                    // инстанс уже существует, но еще не попал в кэш - ждем следующего опроса
+                    if (cause != null && !(cause instanceof DbInstanceAlreadyExistsException)) {
+                        logger.error("помилка під час створення бази даних", cause); // error while creating database
+                        target.setError(cause);
+                        requeue.accept(target.key);
+                        return;
+                    }
+                    
+                    logger.info("запит на створення бази даних прийнято: {}", target.identifier); // create request accepted
+                    if (target.setInstance(new DatabaseInstance(DatabaseState.CREATING, target.identifier, null, null))) {
+                        requeue.accept(target.key);
+                    }
+                });
+    }
+    
+    /**
+     * повертає в чергу аплікацію, чий інстанс змінив стан між опитуваннями
+     * requeues the application whose instance changed state between refreshes
+     * возвращает в очередь приложение, чей инстанс изменил состояние между опросами
+     */
+    private void onInstanceChanged(DBInstance instance) {
+        String namespace = RdsInventory.tag(instance, RdsInventory.NAMESPACE_TAG);
+        String appName = RdsInventory.tag(instance, RdsInventory.APP_TAG);
+        if (namespace == null || appName == null) {
+            return;
         }
+        
+        logger.info("rds-інстанс {} змінив стан: {}", instance.dbInstanceIdentifier(), instance.dbInstanceStatus()); // rds instance changed state
+        requeue.accept(Cache.namespaceKeyFunc(namespace, appName));
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
     }
     
     /**
-     * видаляє базу даних aws
-     * deletes aws database
-     * удаляет базу данных aws
+     * просуває видалення бази даних aws, не чекаючи на aws; запит надсилається один раз,
+     * а кеш rds повертає аплікацію в чергу, коли інстанс зникає
+     * advances the aws database deletion without waiting for aws; the request is sent once,
+     * and the rds cache requeues the application when the instance disappears
+     * продвигает удаление базы данных aws, не дожидаясь aws; запрос отправляется один раз,
+     * а кэш rds возвращает приложение в очередь, когда инстанс исчезает
+     *
+     * @return true, якщо інстансу вже немає / true if the instance is gone / true, если инстанса уже нет
      */
-    public void deleteDatabase(SpringBootApp app) {
+    public boolean deleteDatabase(SpringBootApp app) {
         String appName = app.getMetadata().getName();
-        String databaseId = app.getStatus() != null ? app.getStatus().getDatabaseId() : null;
+        String key = Cache.metaNamespaceKeyFunc(app);
         
-        if (databaseId == null || databaseId.isEmpty()) {
-            logger.warn("ідентифікатор бази даних не знайдено для {}", appName);
-            logger.warn("ідентифікатор бази даних не знайдено для {}", appName);
-            logger.warn("идентификатор базы данных не найден для {}", appName);
-            return;
+        if (!inventory.isSynced()) {
+            throw new IllegalStateException("список rds-інстансів ще не синхронізовано / rds inventory is not synced yet");
         }
         
-        logger.info("видалення бази даних для {}", appName);
-        logger.info("видалення бази даних для {}", appName);
-        logger.info("удаление базы данных для {}", appName);
+        // запит на створення ще може додати інстанс - чекаємо, доки він з'явиться в кеші
+        // a create request may still add the instance - wait until it shows up in the cache
+        // запрос на создание еще может добавить инстанс - ждем, пока он появится в кэше
+        String databaseId = databaseIdentifier(app.getMetadata().getNamespace(), appName);
+        DBInstance existing = inventory.get(databaseId);
+        Provisioning pending = provisioning.get(key);
+        if (existing == null && pending != null && pending.getError() == null) {
+            logger.info("база даних {} ще створюється, видалення відкладено", databaseId); // database is still being created, deletion postponed
+            return false;
+        }
+        provisioning.remove(key);
         
-        try {
-            rdsClient.deleteDBInstance(
-                DeleteDbInstanceRequest.builder()
-                    .dbInstanceIdentifier(databaseId)
-                    .skipFinalSnapshot(true)
-                    .build()
-            );
-            
-            logger.info("запит на видалення бази даних відправлено: {}", databaseId);
-            logger.info("запит на видалення бази даних відправлено: {}", databaseId);
-            logger.info("запрос на удаление базы данных отправлен: {}", databaseId);
-        } catch (RdsException e) {
-            logger.error("помилка під час видалення бази даних", e);
-            logger.error("помилка під час видалення бази даних", e);
-            logger.error("ошибка во время удаления базы данных", e);
+        if (existing == null) {
+            deleting.remove(key);
+            inventory.forget(databaseId);
+            logger.info("базу даних видалено: {}", databaseId); // database deleted
+            return true;
         }
+        
+        // aws вже видаляє інстанс - чекаємо, доки він зникне з кешу
+        // aws is already deleting the instance - wait until it leaves the cache
+        // aws уже удаляет инстанс - ждем, пока он исчезнет из кэша
+        if (DELETING_STATUS.equals(existing.dbInstanceStatus())) {
+            return false;
+        }
+        
+        CompletableFuture<Void> request = deleting.get(key);
+        if (request == null) {
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            request = deleting.putIfAbsent(key, started);
+            if (request == null) {
+                deleteInstance(key, databaseId, started);
+                return false;
+            }
+        }
+        
+        // запит на видалення завершився помилкою - передаємо її черзі для повтору
+        // the delete request failed - pass the error to the queue for retry
+        // запрос на удаление завершился ошибкой - передаем ее очереди для повтора
+        if (request.isCompletedExceptionally()) {
+            deleting.remove(key, request);
+            request.join();
+        }
+        return false;
     }
     
     /**
-     * оновлює статус аплікації
-     * updates application status
-     * обновляет статус приложения
+     * надсилає запит на видалення інстансу без фінального знімка
+     * sends the instance delete request without a final snapshot
+     * отправляет запрос на удаление инстанса без финального снимка
      */
-    private void updateAppStatus(SpringBootApp app, String databaseId, String endpoint) {
-        // реалізувати оновлення статусу кастомного ресурсу
-        // implement custom resource status update
-        // реализовать обновление статуса кастомного ресурса
+    private void deleteInstance(String key, String databaseId, CompletableFuture<Void> target) {
+        logger.info("видалення бази даних: {}", databaseId); // deleting database
         
-        try {
-            // отримуємо поточний стан аплікації
-            // get current application state
-            // получаем текущее состояние приложения
-            SpringBootApp currentApp = springBootAppClient
-                .inNamespace(app.getMetadata().getNamespace())
-                .withName(app.getMetadata().getName())
-                .get();
-            
-            if (currentApp != null) {
-                // створюємо або оновлюємо статус
-                // create or update status
-                // создаем или обновляем статус
-                SpringBootAppStatus status = currentApp.getStatus();
-                if (status == null) {
-                    status = new SpringBootAppStatus();
-                }
-                
-                // оновлюємо поля статусу
-                // update status fields
-                // обновляем поля статуса
-                status.setDatabaseId(databaseId);
-                status.setDatabaseEndpoint(endpoint);
-                status.setPhase(endpoint != null ? "DatabaseReady" : "DatabaseCreating");
-                status.setMessage(endpoint != null ? 
-                    "Database " + databaseId + " is ready at " + endpoint : 
-                    "Database " + databaseId + " creation initiated");
-                
-                // оновлюємо ресурс в кластері
-                // update resource in cluster
-                // обновляем ресурс в кластере
-                currentApp.setStatus(status);
-                springBootAppClient
-                    .inNamespace(app.getMetadata().getNamespace())
-                    .withName(app.getMetadata().getName())
-                    .createOrReplace(currentApp);
-                
-                logger.info("статус аплікації оновлено: dbId={}, endpoint={}", databaseId, endpoint);
-                logger.info("статус аплікації оновлено: dbId={}, endpoint={}", databaseId, endpoint);
-                logger.info("статус приложения обновлен: dbId={}, endpoint={}", databaseId, endpoint);
-            }
-        } catch (Exception e) {
-            logger.error("помилка під час оновлення статусу аплікації", e);
-            logger.error("помилка під час оновлення статусу аплікації", e);
-            logger.error("ошибка во время обновления статуса приложения", e);
-        }
+        rdsClient.deleteDBInstance(DeleteDbInstanceRequest.builder()
+                    .dbInstanceIdentifier(databaseId)
+                    .skipFinalSnapshot(true)
+                    .build())
+                .whenComplete((response, error) -> {
+                    Throwable cause = unwrap(error);
+                    
+                    // база даних вже видалена - наступне опитування прибере її з кешу
+                    // the database is already deleted - the next refresh drops it from the cache
+                    // база данных уже удалена - следующий опрос уберет ее из кэша
+                    if (cause != null && !(cause instanceof DbInstanceNotFoundException)) {
+                        logger.error("помилка під час видалення бази даних", cause); // error while deleting database
+                        target.completeExceptionally(cause);
+                        requeue.accept(key);
+                        return;
+                    }
+                    
+                    logger.info("запит на видалення бази даних прийнято: {}", databaseId); // delete request accepted
+                    target.complete(null);
+                });
+    }
+    
+    /**
+     * зупиняє опитування та закриває клієнт aws
+     * stops polling and closes the aws client
+     * останавливает опрос и закрывает клиент aws
+     */
+    public void close() {
+        inventory.stop();
+        rdsClient.close();
+    }
+    
+    /**
+     * оновлює статус аплікації; запис відбудеться наприкінці примирення
+     * updates application status; the write happens at the end of the reconcile
+     * обновляет статус приложения; запись произойдет в конце примирения
+     */
+    private void recordStatus(StatusWriter status, DatabaseInstance instance) {
+        status.database(instance.getIdentifier(), instance.getEndpoint())
+                .phase(instance.getState().getPhase(), instance.getEndpoint() != null ? 
+                    "Database " + instance.getIdentifier() + " is ready at " + instance.getEndpoint() : 
+                    "Database " + instance.getIdentifier() + " is " + instance.getState().name().toLowerCase());
     }
     
     /**
@@ -287,4 +487,43 @@ public class DatabaseService extends BaseService {
         // TODO: реализовать генерацию безопасного пароля
         return "TempPassword123!";
     }
+    
+    /**
+     * стан створення бази даних однієї аплікації; змінюється з потоків aws та примирення
+     * creation state of one application's database; changed from aws and reconcile threads
+     * состояние создания базы данных одного приложения; меняется из потоков aws и примирения
+     */
+    private static class Provisioning {
+        private final String key;
+        private final String identifier;
+        private DatabaseInstance instance;
+        private Throwable error;
+        
+        private Provisioning(String key, String identifier) {
+            this.key = key;
+            this.identifier = identifier;
+            this.instance = new DatabaseInstance(DatabaseState.REQUESTED, identifier, null, null);
+        }
+        
+        private synchronized DatabaseInstance getInstance() {
+            return instance;
+        }
+        
+        /**
+         * @return true, якщо стан змінився / true if the state changed / true, если состояние изменилось
+         */
+        private synchronized boolean setInstance(DatabaseInstance newInstance) {
+            boolean changed = instance.getState() != newInstance.getState();
+            instance = newInstance;
+            return changed;
+        }
+        
+        private synchronized Throwable getError() {
+            return error;
+        }
+        
+        private synchronized void setError(Throwable error) {
+            this.error = error;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.sparky.operator.service;
+
+/**
+ * стани підготовки бази даних aws: Requested → Creating → Available → Wired
+ * aws database provisioning states: Requested → Creating → Available → Wired
+ * состояния подготовки базы данных aws: Requested → Creating → Available → Wired
+ */
+public enum DatabaseState {
+    // запит на створення ще не підтверджено aws
+    // the create request is not yet acknowledged by aws
+    // запрос на создание еще не подтвержден aws
+    REQUESTED("DatabaseRequested"),
+    
+    // інстанс створюється, оператор опитує його у фоні
+    // the instance is being created, the operator polls it in the background
+    // инстанс создается, оператор опрашивает его в фоне
+    CREATING("DatabaseCreating"),
+    
+    // інстанс доступний, ендпоінт відомий
+    // the instance is available, the endpoint is known
+    // инстанс доступен, эндпоинт известен
+    AVAILABLE("DatabaseAvailable"),
+    
+    // ендпоінт записано в конфігурацію аплікації
+    // the endpoint is written into the application configuration
+    // эндпоинт записан в конфигурацию приложения
+    WIRED("DatabaseWired");
+    
+    private final String phase;
+    
+    DatabaseState(String phase) {
+        this.phase = phase;
+    }
+    
+    /**
+     * значення поля status.phase для цього стану
+     * status.phase value for this state
+     * значение поля status.phase для этого состояния
+     */
+    public String getPhase() {
+        return phase;
+    }
+    
+    /**
+     * стан за значенням status.phase; null, якщо фаза не стосується бази даних
+     * state for a status.phase value; null if the phase is not a database phase
+     * состояние по значению status.phase; null, если фаза не относится к базе данных
+     */
+    public static DatabaseState fromPhase(String phase) {
+        for (DatabaseState state : values()) {
+            if (state.phase.equals(phase)) {
+                return state;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * чи база даних має ендпоінт
+     * whether the database has an endpoint
+     * есть ли у базы данных эндпоинт
+     */
+    public boolean hasEndpoint() {
+        return this == AVAILABLE || this == WIRED;
+    }
+}
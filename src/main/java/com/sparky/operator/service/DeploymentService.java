@@ -1,5 +1,7 @@
 package com.sparky.operator.service;
 
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.RenderCache;
 import com.sparky.operator.crd.SpringBootApp;
 import com.sparky.operator.crd.SpringBootAppSpec;
 import io.fabric8.kubernetes.api.model.*;
@@ -9,8 +11,13 @@ import io.fabric8.kubernetes.client.KubernetesClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * сервіс для роботи з деплойментами
@@ -20,8 +27,12 @@ import java.util.Map;
 public class DeploymentService extends BaseService {
     private static final Logger logger = LoggerFactory.getLogger(DeploymentService.class);
     
-    public DeploymentService(KubernetesClient client) {
-        super(client);
+    public DeploymentService(KubernetesClient client, OwnedResourceCache cache) {
+        super(client, cache);
+    }
+    
+    public DeploymentService(KubernetesClient client, OwnedResourceCache cache, RenderCache renders) {
+        super(client, cache, renders);
     }
     
     /**
@@ -37,23 +48,77 @@ public class DeploymentService extends BaseService {
         logger.info("створення/оновлення деплойменту для {}", appName);
         logger.info("создание/обновление деплоймента для {}", appName);
         
+        Deployment deployment = buildDeployment(app);
+        
+        // порівнюємо хеш бажаного стану з кешем - якщо нічого не змінилося, запит не потрібен
+        // compare the desired-state hash with the cache - if nothing changed, no request is needed
+        // сравниваем хеш желаемого состояния с кэшем - если ничего не изменилось, запрос не нужен
+        Deployment existing = cache.getDeployment(namespace, deployment.getMetadata().getName());
+        if (isApplied(existing, deployment, this::isUpToDate)) {
+            logger.debug("деплоймент не змінився для {}", appName); // deployment unchanged
+            return;
+        }
+        
+        // застосовуємо деплоймент в кластері через server-side apply
+        // apply deployment in cluster with server-side apply
+        // применяем деплоймент в кластере через server-side apply
+        apply(deployment);
+        
+        logger.info("деплоймент створено для {}", appName);
+        logger.info("деплоймент створено для {}", appName);
+        logger.info("деплоймент создан для {}", appName);
+    }
+    
+    /**
+     * бажаний стан деплойменту аплікації; будується заново, лише коли змінилися образ, репліки, порти чи ресурси
+     * desired state of the application deployment; rendered anew only when the image, replicas, ports or resources changed
+     * желаемое состояние деплоймента приложения; строится заново, только когда изменились образ, реплики, порты или ресурсы
+     */
+    Deployment buildDeployment(SpringBootApp app) {
+        String deploymentName = getResourceName(app.getMetadata().getName(), "app");
+        return buildDeployment(app, replicasOf(app, cache != null && cache.isAutoscaled(app.getMetadata().getNamespace(), deploymentName)));
+    }
+    
+    private Deployment buildDeployment(SpringBootApp app, Integer replicas) {
+        SpringBootAppSpec spec = app.getSpec();
+        SpringBootAppSpec.ResourceLimits resources = spec.getResources();
+        List<Object> inputs = Arrays.asList(app.getMetadata().getUid(), spec.getImage(), replicas, spec.getPorts(),
+                resources == null ? null : Arrays.asList(resources.getCpuRequest(), resources.getMemoryRequest(),
+                        resources.getCpuLimit(), resources.getMemoryLimit()));
+        return renders.render(app, "deployment", inputs, () -> renderDeployment(app, replicas));
+    }
+    
+    /**
+     * репліки, якими керує оператор: null, якщо їх не задано або деплойментом керує автоскейлер; тоді поле
+     * не потрапляє в apply і його власником лишається автоскейлер
+     * replicas managed by the operator: null when unset or when an autoscaler manages the deployment; the field then
+     * stays out of the apply and the autoscaler remains its owner
+     * реплики, которыми управляет оператор: null, если они не заданы или деплойментом управляет автоскейлер; тогда поле
+     * не попадает в apply и его владельцем остается автоскейлер
+     */
+    private static Integer replicasOf(SpringBootApp app, boolean autoscaled) {
+        return autoscaled ? null : app.getSpec().getReplicas();
+    }
+    
+    private Deployment renderDeployment(SpringBootApp app, Integer replicas) {
+        String appName = app.getMetadata().getName();
+        String namespace = app.getMetadata().getNamespace();
+        
         // отримуємо специфікацію
         // get specification
         // получаем спецификацию
         SpringBootAppSpec spec = app.getSpec();
         
-        // створюємо деплоймент
-        // create deployment
-        // создаем деплоймент
-        Deployment deployment = new DeploymentBuilder()
+        return stamp(new DeploymentBuilder()
                 .withNewMetadata()
                     .withName(getResourceName(appName, "app"))
                     .withNamespace(namespace)
                     .addToLabels("app", appName)
                     .addToLabels("sparky-operator-managed", "true")
+                    .withOwnerReferences(ownerReference(app))
                 .endMetadata()
                 .withNewSpec()
-                    .withReplicas(spec.getReplicas())
+                    .withReplicas(replicas)
                     .withNewSelector()
                         .addToMatchLabels("app", appName)
                     .endSelector()
@@ -71,39 +136,7 @@ public class DeploymentService extends BaseService {
                         .endSpec()
                     .endTemplate()
                 .endSpec()
-                .build();
-        
-        // створюємо або оновлюємо деплоймент в кластері
-        // create or update deployment in cluster
-        // создаем или обновляем деплоймент в кластере
-        client.apps().deployments().inNamespace(namespace).createOrReplace(deployment);
-        
-        logger.info("деплоймент створено для {}", appName);
-        logger.info("деплоймент створено для {}", appName);
-        logger.info("деплоймент создан для {}", appName);
-    }
-    
-    /**
-     * видаляє деплоймент
-     * deletes deployment
-     * удаляет деплоймент
-     */
-    public void deleteDeployment(SpringBootApp app) {
-        String appName = app.getMetadata().getName();
-        String namespace = app.getMetadata().getNamespace();
-        
-        logger.info("видалення деплойменту для {}", appName);
-        logger.info("видалення деплойменту для {}", appName);
-        logger.info("удаление деплоймента для {}", appName);
-        
-        client.apps().deployments()
-                .inNamespace(namespace)
-                .withName(getResourceName(appName, "app"))
-                .delete();
-        
-        logger.info("деплоймент видалено для {}", appName);
-        logger.info("деплоймент видалено для {}", appName);
-        logger.info("деплоймент удален для {}", appName);
+                .build());
     }
     
     /**
@@ -174,4 +207,61 @@ public class DeploymentService extends BaseService {
                 .withLimits(limits)
                 .build();
     }
+    
+    /**
+     * чи збігаються поля, якими керує оператор, у живого та бажаного деплойменту
+     * whether the fields owned by the operator match between the live and desired deployment
+     * совпадают ли поля, которыми управляет оператор, у живого и желаемого деплоймента
+     */
+    private boolean isUpToDate(Deployment existing, Deployment desired) {
+        if (existing.getSpec() == null || existing.getSpec().getTemplate() == null
+                || existing.getSpec().getTemplate().getSpec() == null) {
+            return false;
+        }
+        
+        if (!containsAll(existing.getMetadata().getLabels(), desired.getMetadata().getLabels())
+                || !hasOwnerReferences(existing, desired)
+                || (desired.getSpec().getReplicas() != null
+                        && !Objects.equals(existing.getSpec().getReplicas(), desired.getSpec().getReplicas()))
+                || !Objects.equals(existing.getSpec().getSelector(), desired.getSpec().getSelector())
+                || !containsAll(existing.getSpec().getTemplate().getMetadata().getLabels(),
+                        desired.getSpec().getTemplate().getMetadata().getLabels())) {
+            return false;
+        }
+        
+        List<Container> existingContainers = existing.getSpec().getTemplate().getSpec().getContainers();
+        Container desiredContainer = desired.getSpec().getTemplate().getSpec().getContainers().get(0);
+        if (existingContainers == null || existingContainers.size() != 1) {
+            return false;
+        }
+        Container existingContainer = existingContainers.get(0);
+        
+        // сервер доповнює порти протоколом за замовчуванням, тому порівнюємо лише ім'я та номер
+        // the server defaults the port protocol, so only name and number are compared
+        // сервер дополняет порты протоколом по умолчанию, поэтому сравниваем только имя и номер
+        return Objects.equals(existingContainer.getName(), desiredContainer.getName())
+                && Objects.equals(existingContainer.getImage(), desiredContainer.getImage())
+                && Objects.equals(portKeys(existingContainer.getPorts()), portKeys(desiredContainer.getPorts()))
+                && Objects.equals(quantities(existingContainer.getResources(), true), quantities(desiredContainer.getResources(), true))
+                && Objects.equals(quantities(existingContainer.getResources(), false), quantities(desiredContainer.getResources(), false));
+    }
+    
+    private static boolean containsAll(Map<String, String> actual, Map<String, String> expected) {
+        return actual != null && actual.entrySet().containsAll(expected.entrySet());
+    }
+    
+    private static Set<String> portKeys(List<ContainerPort> ports) {
+        if (ports == null) {
+            return Set.of();
+        }
+        return ports.stream()
+                .map(port -> port.getName() + ":" + port.getContainerPort())
+                .collect(Collectors.toSet());
+    }
+    
+    private static Map<String, Quantity> quantities(ResourceRequirements resources, boolean requests) {
+        Map<String, Quantity> values = resources == null ? null
+                : requests ? resources.getRequests() : resources.getLimits();
+        return values == null ? Map.of() : values;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.sparky.operator.service;
+
+import com.sparky.operator.crd.SpringBootApp;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.base.PatchContext;
+import io.fabric8.kubernetes.client.dsl.base.PatchType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * фіналізатор аплікації: тримає видалену аплікацію, доки оператор не прибере зовнішні ресурси (rds);
+ * ресурси кубернетеса видаляє збирач сміття за посиланнями на власника
+ * application finalizer: holds a deleted application until the operator cleans up external resources (rds);
+ * kubernetes resources are removed by the garbage collector through owner references
+ * финализатор приложения: держит удаленное приложение, пока оператор не уберет внешние ресурсы (rds);
+ * ресурсы кубернетеса удаляет сборщик мусора по ссылкам на владельца
+ */
+public class FinalizerService extends BaseService {
+    private static final Logger logger = LoggerFactory.getLogger(FinalizerService.class);
+    
+    public static final String FINALIZER = "sparky.com/finalizer";
+    
+    public FinalizerService(KubernetesClient client) {
+        super(client);
+    }
+    
+    /**
+     * чи має аплікація фіналізатор оператора
+     * whether the application carries the operator finalizer
+     * есть ли у приложения финализатор оператора
+     */
+    public boolean hasFinalizer(SpringBootApp app) {
+        List<String> finalizers = app.getMetadata().getFinalizers();
+        return finalizers != null && finalizers.contains(FINALIZER);
+    }
+    
+    /**
+     * додає фіналізатор json patch-ем; фіналізатори інших контролерів не змінюються
+     * adds the finalizer with a json patch; finalizers of other controllers are kept
+     * добавляет финализатор json patch-ем; финализаторы других контроллеров не меняются
+     */
+    public void addFinalizer(SpringBootApp app) {
+        List<String> finalizers = app.getMetadata().getFinalizers();
+        String patch = finalizers == null || finalizers.isEmpty()
+                ? "[{\"op\":\"add\",\"path\":\"/metadata/finalizers\",\"value\":[\"" + FINALIZER + "\"]}]"
+                : "[{\"op\":\"add\",\"path\":\"/metadata/finalizers/-\",\"value\":\"" + FINALIZER + "\"}]";
+        patch(app, patch);
+        logger.info("фіналізатор додано для {}", app.getMetadata().getName()); // finalizer added
+    }
+    
+    /**
+     * прибирає фіналізатор; перевірка test не дає видалити чужий запис, якщо список встиг змінитися
+     * removes the finalizer; the test operation keeps a foreign entry from being removed if the list has changed
+     * убирает финализатор; проверка test не дает удалить чужую запись, если список успел измениться
+     */
+    public void removeFinalizer(SpringBootApp app) {
+        int index = app.getMetadata().getFinalizers().indexOf(FINALIZER);
+        String path = "/metadata/finalizers/" + index;
+        patch(app, "[{\"op\":\"test\",\"path\":\"" + path + "\",\"value\":\"" + FINALIZER + "\"},"
+                + "{\"op\":\"remove\",\"path\":\"" + path + "\"}]");
+        logger.info("фіналізатор прибрано для {}", app.getMetadata().getName()); // finalizer removed
+    }
+    
+    private void patch(SpringBootApp app, String patch) {
+        client.resources(SpringBootApp.class)
+                .inNamespace(app.getMetadata().getNamespace())
+                .withName(app.getMetadata().getName())
+                .patch(PatchContext.of(PatchType.JSON), patch);
+    }
+}
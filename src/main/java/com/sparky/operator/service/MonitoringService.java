@@ -50,25 +50,4 @@ public class MonitoringService extends BaseService {
         logger.info("моніторинг налаштовано для {}", appName);
         logger.info("мониторинг настроен для {}", appName);
     }
-    
-    /**
-     * видаляє налаштування моніторингу
-     * deletes monitoring configuration
-     * удаляет настройки мониторинга
-     */
-    public void deleteMonitoring(SpringBootApp app) {
-        String appName = app.getMetadata().getName();
-        
-        logger.info("видалення налаштувань моніторингу для {}", appName);
-        logger.info("видалення налаштувань моніторингу для {}", appName);
-        logger.info("удаление настроек мониторинга для {}", appName);
-        
-        // TODO: реалізувати видалення ресурсів моніторингу
-        // TODO: implement deletion of monitoring resources
-        // TODO: реализовать удаление ресурсов мониторинга
-        
-        logger.info("налаштування моніторингу видалено для {}", appName);
-        logger.info("налаштування моніторингу видалено для {}", appName);
-        logger.info("настройки мониторинга удалены для {}", appName);
-    }
 }
\ No newline at end of file
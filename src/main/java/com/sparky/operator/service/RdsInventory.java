@@ -0,0 +1,299 @@
+package com.sparky.operator.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.rds.RdsAsyncClient;
+import software.amazon.awssdk.services.rds.model.DBInstance;
+import software.amazon.awssdk.services.rds.model.DescribeDbInstancesRequest;
+import software.amazon.awssdk.services.rds.model.Filter;
+import software.amazon.awssdk.services.rds.model.Tag;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * спільний кеш rds-інстансів оператора; один фоновий опитувач на всі аплікації
+ * shared cache of the operator's rds instances; one background poller for all applications
+ * общий кэш rds-инстансов оператора; один фоновый опросчик на все приложения
+ *
+ * замість окремого describeDBInstances для кожної аплікації раз на інтервал читається
+ * весь список сторінками, а інстанси фільтруються за тегом оператора
+ * instead of a describeDBInstances per application, the whole list is read page by page
+ * once per interval and instances are filtered by the operator tag
+ * вместо отдельного describeDBInstances для каждого приложения раз в интервал читается
+ * весь список страницами, а инстансы фильтруются по тегу оператора
+ *
+ * у шардованому режимі кеш тримає лише інстанси просторів імен цієї репліки: після повного списку
+ * опитуються тільки їх ідентифікатори, а повний список читається знову лише після перебалансування
+ * in sharded mode the cache keeps only the instances of this replica's namespaces: after a full listing
+ * only their identifiers are polled, and the full list is read again only after a rebalance
+ * в шардированном режиме кэш держит только инстансы пространств имен этой реплики: после полного списка
+ * опрашиваются только их идентификаторы, а полный список читается снова только после перебалансировки
+ */
+public class RdsInventory {
+    private static final Logger logger = LoggerFactory.getLogger(RdsInventory.class);
+    
+    // теги, якими оператор позначає свої інстанси
+    // tags the operator puts on its instances
+    // теги, которыми оператор помечает свои инстансы
+    public static final String MANAGED_TAG = "sparky-operator-managed";
+    public static final String NAMESPACE_TAG = "sparky-namespace";
+    public static final String APP_TAG = "sparky-app";
+    
+    // максимальний розмір сторінки describeDBInstances
+    // maximum describeDBInstances page size
+    // максимальный размер страницы describeDBInstances
+    private static final int PAGE_SIZE = 100;
+    
+    // скільки ідентифікаторів іде в один фільтр db-instance-id
+    // how many identifiers go into one db-instance-id filter
+    // сколько идентификаторов идет в один фильтр db-instance-id
+    private static final int FILTER_SIZE = 100;
+    
+    private final RdsAsyncClient rdsClient;
+    private final long refreshSeconds;
+    private final ScheduledExecutorService scheduler;
+    
+    // викликається для кожного інстансу, стан якого змінився між опитуваннями
+    // called for every instance whose state changed between refreshes
+    // вызывается для каждого инстанса, состояние которого изменилось между опросами
+    private final Consumer<DBInstance> changeListener;
+    
+    // останній знімок: ідентифікатор -> інстанс
+    // latest snapshot: identifier -> instance
+    // последний снимок: идентификатор -> инстанс
+    private volatile Map<String, DBInstance> instances = Collections.emptyMap();
+    private volatile boolean synced = false;
+    private boolean listed = false;
+    
+    // простори імен цієї репліки (null - увесь обліковий запис), інстанси, які вона створює, але ще не бачила,
+    // і потреба перечитати повний список
+    // this replica's namespaces (null - the whole account), instances it creates but has not seen yet,
+    // and the need to read the full list again
+    // пространства имен этой реплики (null - вся учетная запись), инстансы, которые она создает, но еще не видела,
+    // и потребность перечитать полный список
+    private volatile Predicate<String> namespaces;
+    private final Set<String> expected = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean relist = new AtomicBoolean(true);
+    
+    public RdsInventory(RdsAsyncClient rdsClient, long refreshSeconds, Consumer<DBInstance> changeListener) {
+        this.rdsClient = rdsClient;
+        this.refreshSeconds = Math.max(1, refreshSeconds);
+        this.changeListener = changeListener;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sparky-rds-inventory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * виконує перше опитування і далі опитує з фіксованим інтервалом
+     * performs the first refresh and then refreshes at a fixed interval
+     * выполняет первый опрос и дальше опрашивает с фиксированным интервалом
+     */
+    public void start() {
+        refresh();
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+    }
+    
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+    
+    /**
+     * обмежує кеш інстансами просторів імен, які обробляє ця репліка; викликається до {@link #start()}
+     * limits the cache to the instances of the namespaces this replica handles; called before {@link #start()}
+     * ограничивает кэш инстансами пространств имен, которые обрабатывает эта реплика; вызывается до {@link #start()}
+     */
+    public void scopeTo(Predicate<String> ownsNamespace) {
+        this.namespaces = ownsNamespace;
+    }
+    
+    /**
+     * простори імен репліки змінилися: кеш недійсний, доки не прочитано повний список, і це відбувається одразу
+     * the replica's namespaces changed: the cache is invalid until the full list is read, which happens right away
+     * пространства имен реплики изменились: кэш недействителен, пока не прочитан полный список, и это происходит сразу
+     */
+    public void relist() {
+        if (namespaces == null || scheduler.isShutdown()) {
+            return;
+        }
+        relist.set(true);
+        synced = false;
+        scheduler.execute(this::refresh);
+    }
+    
+    /**
+     * інстанс, який ця репліка щойно попросила створити; опитується, доки не з'явиться
+     * an instance this replica has just asked to create; polled until it shows up
+     * инстанс, который эта реплика только что попросила создать; опрашивается, пока не появится
+     */
+    public void expect(String identifier) {
+        expected.add(identifier);
+    }
+    
+    public void forget(String identifier) {
+        expected.remove(identifier);
+    }
+    
+    /**
+     * чи вдалося хоча б одне повне опитування
+     * whether at least one full refresh succeeded
+     * удался ли хотя бы один полный опрос
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+    
+    /**
+     * інстанс з кешу або null
+     * instance from the cache or null
+     * инстанс из кэша или null
+     */
+    public DBInstance get(String identifier) {
+        return instances.get(identifier);
+    }
+    
+    public int size() {
+        return instances.size();
+    }
+    
+    /**
+     * читає всі сторінки describeDBInstances та замінює знімок
+     * reads all describeDBInstances pages and replaces the snapshot
+     * читает все страницы describeDBInstances и заменяет снимок
+     *
+     * синхронізовано: перше опитування йде з потоку, що запускає кеш, а перечитування - з планувальника
+     * synchronized: the first refresh runs on the thread starting the cache, and relists on the scheduler
+     * синхронизировано: первый опрос идет из потока, запускающего кэш, а перечитывание - из планировщика
+     */
+    private synchronized void refresh() {
+        Predicate<String> scope = namespaces;
+        boolean full = relist.getAndSet(false) || scope == null;
+        
+        Map<String, DBInstance> fresh = new HashMap<>();
+        try {
+            if (full) {
+                describe(DescribeDbInstancesRequest.builder(), scope, fresh);
+            } else {
+                Set<String> identifiers = new TreeSet<>(instances.keySet());
+                identifiers.addAll(expected);
+                List<String> batch = new ArrayList<>(identifiers);
+                for (int from = 0; from < batch.size(); from += FILTER_SIZE) {
+                    describe(DescribeDbInstancesRequest.builder().filters(Filter.builder()
+                                    .name("db-instance-id")
+                                    .values(batch.subList(from, Math.min(batch.size(), from + FILTER_SIZE)))
+                                    .build()),
+                            scope, fresh);
+                }
+            }
+        } catch (Exception e) {
+            // залишаємо попередній знімок до наступної спроби
+            // keep the previous snapshot until the next attempt
+            // оставляем предыдущий снимок до следующей попытки
+            if (full && scope != null) {
+                relist.set(true);
+            }
+            logger.warn("не вдалося оновити список rds-інстансів: {}", e.getMessage()); // failed to refresh rds instance list
+            return;
+        }
+        
+        Map<String, DBInstance> previous = instances;
+        instances = Collections.unmodifiableMap(fresh);
+        expected.removeAll(fresh.keySet());
+        synced = !relist.get();
+        
+        if (!listed) {
+            listed = true;
+            logger.info("список rds-інстансів синхронізовано: {}", fresh.size()); // rds instance list synced
+            return;
+        }
+        
+        // повідомляємо лише про інстанси, що з'явилися, зникли або змінили стан
+        // report only instances that appeared, disappeared or changed state
+        // сообщаем только об инстансах, которые появились, исчезли или изменили состояние
+        for (DBInstance instance : fresh.values()) {
+            DBInstance old = previous.get(instance.dbInstanceIdentifier());
+            if (old == null || !sameState(old, instance)) {
+                notifyChange(instance);
+            }
+        }
+        // інстанс простору імен, що перейшов до іншої репліки, не зник - про нього повідомить та репліка
+        // an instance of a namespace that moved to another replica has not disappeared - that replica reports it
+        // инстанс пространства имен, перешедшего к другой реплике, не исчез - о нем сообщит та реплика
+        for (DBInstance old : previous.values()) {
+            if (!fresh.containsKey(old.dbInstanceIdentifier()) && inScope(scope, old)) {
+                notifyChange(old);
+            }
+        }
+    }
+    
+    /**
+     * читає всі сторінки запиту і додає керовані інстанси просторів імен репліки
+     * reads all pages of the request and adds the managed instances of the replica's namespaces
+     * читает все страницы запроса и добавляет управляемые инстансы пространств имен реплики
+     */
+    private void describe(DescribeDbInstancesRequest.Builder request, Predicate<String> scope, Map<String, DBInstance> fresh) {
+        rdsClient.describeDBInstancesPaginator(request.maxRecords(PAGE_SIZE).build())
+                .subscribe(page -> page.dbInstances().stream()
+                        .filter(instance -> isManaged(instance) && inScope(scope, instance))
+                        .forEach(instance -> fresh.put(instance.dbInstanceIdentifier(), instance)))
+                .join();
+    }
+    
+    private static boolean inScope(Predicate<String> scope, DBInstance instance) {
+        if (scope == null) {
+            return true;
+        }
+        String namespace = tag(instance, NAMESPACE_TAG);
+        return namespace != null && scope.test(namespace);
+    }
+    
+    private void notifyChange(DBInstance instance) {
+        try {
+            changeListener.accept(instance);
+        } catch (Exception e) {
+            logger.warn("помилка обробника змін rds-інстансу {}", instance.dbInstanceIdentifier(), e); // rds change listener error
+        }
+    }
+    
+    private static boolean sameState(DBInstance a, DBInstance b) {
+        return Objects.equals(a.dbInstanceStatus(), b.dbInstanceStatus())
+                && Objects.equals(a.endpoint(), b.endpoint());
+    }
+    
+    private static boolean isManaged(DBInstance instance) {
+        return "true".equals(tag(instance, MANAGED_TAG));
+    }
+    
+    /**
+     * значення тегу інстансу або null
+     * instance tag value or null
+     * значение тега инстанса или null
+     */
+    public static String tag(DBInstance instance, String key) {
+        if (instance.tagList() == null) {
+            return null;
+        }
+        for (Tag tag : instance.tagList()) {
+            if (key.equals(tag.key())) {
+                return tag.value();
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.sparky.operator.service;
 
+import com.sparky.operator.cache.OwnedResourceCache;
+import com.sparky.operator.cache.RenderCache;
 import com.sparky.operator.crd.SpringBootApp;
 import com.sparky.operator.crd.SpringBootAppSpec;
 import io.fabric8.kubernetes.api.model.IntOrString;
@@ -12,8 +14,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * сервіс для роботи з кубернетес сервісами
@@ -23,8 +29,12 @@ import java.util.Map;
 public class ServiceService extends BaseService {
     private static final Logger logger = LoggerFactory.getLogger(ServiceService.class);
     
-    public ServiceService(KubernetesClient client) {
-        super(client);
+    public ServiceService(KubernetesClient client, OwnedResourceCache cache) {
+        super(client, cache);
+    }
+    
+    public ServiceService(KubernetesClient client, OwnedResourceCache cache, RenderCache renders) {
+        super(client, cache, renders);
     }
     
     /**
@@ -40,6 +50,41 @@ public class ServiceService extends BaseService {
         logger.info("створення/оновлення сервісу для {}", appName);
         logger.info("создание/обновление сервиса для {}", appName);
         
+        Service service = buildService(app);
+        
+        // порівнюємо хеш бажаного стану з кешем - якщо нічого не змінилося, запит не потрібен
+        // compare the desired-state hash with the cache - if nothing changed, no request is needed
+        // сравниваем хеш желаемого состояния с кэшем - если ничего не изменилось, запрос не нужен
+        Service existing = cache.getService(namespace, service.getMetadata().getName());
+        if (isApplied(existing, service, this::isUpToDate)) {
+            logger.debug("сервіс не змінився для {}", appName); // service unchanged
+            return;
+        }
+        
+        // застосовуємо сервіс в кластері через server-side apply
+        // apply service in cluster with server-side apply
+        // применяем сервис в кластере через server-side apply
+        apply(service);
+        
+        logger.info("сервіс створено для {}", appName);
+        logger.info("сервіс створено для {}", appName);
+        logger.info("сервис создан для {}", appName);
+    }
+    
+    /**
+     * бажаний стан сервісу аплікації; будується заново, лише коли змінилися порти
+     * desired state of the application service; rendered anew only when the ports changed
+     * желаемое состояние сервиса приложения; строится заново, только когда изменились порты
+     */
+    Service buildService(SpringBootApp app) {
+        List<Object> inputs = Arrays.asList(app.getMetadata().getUid(), app.getSpec().getPorts());
+        return renders.render(app, "service", inputs, () -> renderService(app));
+    }
+    
+    private Service renderService(SpringBootApp app) {
+        String appName = app.getMetadata().getName();
+        String namespace = app.getMetadata().getNamespace();
+        
         // отримуємо специфікацію
         // get specification
         // получаем спецификацию
@@ -50,54 +95,20 @@ public class ServiceService extends BaseService {
         // создаем порты сервиса
         List<ServicePort> servicePorts = createServicePorts(spec);
         
-        // створюємо сервіс
-        // create service
-        // создаем сервис
-        Service service = new ServiceBuilder()
+        return stamp(new ServiceBuilder()
                 .withNewMetadata()
                     .withName(getResourceName(appName, "service"))
                     .withNamespace(namespace)
                     .addToLabels("app", appName)
                     .addToLabels("sparky-operator-managed", "true")
+                    .withOwnerReferences(ownerReference(app))
                 .endMetadata()
                 .withNewSpec()
                     .withSelector(Map.of("app", appName))
                     .withPorts(servicePorts)
                     .withType("ClusterIP")
                 .endSpec()
-                .build();
-        
-        // створюємо або оновлюємо сервіс в кластері
-        // create or update service in cluster
-        // создаем или обновляем сервис в кластере
-        client.services().inNamespace(namespace).createOrReplace(service);
-        
-        logger.info("сервіс створено для {}", appName);
-        logger.info("сервіс створено для {}", appName);
-        logger.info("сервис создан для {}", appName);
-    }
-    
-    /**
-     * видаляє сервіс
-     * deletes service
-     * удаляет сервис
-     */
-    public void deleteService(SpringBootApp app) {
-        String appName = app.getMetadata().getName();
-        String namespace = app.getMetadata().getNamespace();
-        
-        logger.info("видалення сервісу для {}", appName);
-        logger.info("видалення сервісу для {}", appName);
-        logger.info("удаление сервиса для {}", appName);
-        
-        client.services()
-                .inNamespace(namespace)
-                .withName(getResourceName(appName, "service"))
-                .delete();
-        
-        logger.info("сервіс видалено для {}", appName);
-        logger.info("сервіс видалено для {}", appName);
-        logger.info("сервис удален для {}", appName);
+                .build());
     }
     
     /**
@@ -129,4 +140,30 @@ public class ServiceService extends BaseService {
         
         return ports;
     }
+    
+    /**
+     * чи збігаються поля, якими керує оператор, у живого та бажаного сервісу
+     * whether the fields owned by the operator match between the live and desired service
+     * совпадают ли поля, которыми управляет оператор, у живого и желаемого сервиса
+     */
+    private boolean isUpToDate(Service existing, Service desired) {
+        if (existing.getSpec() == null || existing.getMetadata().getLabels() == null) {
+            return false;
+        }
+        
+        return existing.getMetadata().getLabels().entrySet().containsAll(desired.getMetadata().getLabels().entrySet())
+                && hasOwnerReferences(existing, desired)
+                && Objects.equals(existing.getSpec().getSelector(), desired.getSpec().getSelector())
+                && Objects.equals(existing.getSpec().getType(), desired.getSpec().getType())
+                && Objects.equals(portKeys(existing.getSpec().getPorts()), portKeys(desired.getSpec().getPorts()));
+    }
+    
+    private static Set<String> portKeys(List<ServicePort> ports) {
+        if (ports == null) {
+            return Set.of();
+        }
+        return ports.stream()
+                .map(port -> port.getName() + ":" + port.getPort() + ":" + port.getTargetPort())
+                .collect(Collectors.toSet());
+    }
 }
\ No newline at end of file
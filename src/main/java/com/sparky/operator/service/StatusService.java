@@ -0,0 +1,67 @@
+package com.sparky.operator.service;
+
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.crd.SpringBootAppStatus;
+import io.fabric8.kubernetes.api.model.ObjectMetaBuilder;
+import io.fabric8.kubernetes.client.KubernetesClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * сервіс для запису статусу SpringBootApp через підресурс status
+ * service for writing SpringBootApp status through the status subresource
+ * сервис для записи статуса SpringBootApp через подресурс status
+ */
+public class StatusService extends BaseService {
+    private static final Logger logger = LoggerFactory.getLogger(StatusService.class);
+    
+    public StatusService(KubernetesClient client) {
+        super(client);
+    }
+    
+    /**
+     * записує непорожні поля статусу json merge patch-ем; інші поля статусу не змінюються
+     * writes the non-null status fields with a json merge patch; other status fields are kept
+     * записывает непустые поля статуса json merge patch-ем; остальные поля статуса не меняются
+     */
+    public void patchStatus(SpringBootApp app, SpringBootAppStatus status) {
+        // лише ім'я та статус, без resourceVersion, щоб не конфліктувати зі змінами специфікації
+        // only name and status, without resourceVersion, so it never conflicts with spec edits
+        // только имя и статус, без resourceVersion, чтобы не конфликтовать с изменениями спецификации
+        SpringBootApp patch = new SpringBootApp();
+        patch.setMetadata(new ObjectMetaBuilder()
+                .withName(app.getMetadata().getName())
+                .withNamespace(app.getMetadata().getNamespace())
+                .build());
+        patch.setStatus(status);
+        
+        client.resources(SpringBootApp.class)
+                .inNamespace(app.getMetadata().getNamespace())
+                .resource(patch)
+                .patchStatus();
+        
+        logger.debug("статус оновлено для {}", app.getMetadata().getName()); // status updated
+    }
+    
+    /**
+     * створює накопичувач змін статусу для одного примирення
+     * creates a status change accumulator for one reconcile
+     * создает накопитель изменений статуса для одного примирения
+     */
+    public StatusWriter writer(SpringBootApp app) {
+        return new StatusWriter(this, app);
+    }
+    
+    /**
+     * чи вже застосовано поточне покоління специфікації
+     * whether the current spec generation has already been applied
+     * применено ли уже текущее поколение спецификации
+     */
+    public boolean isObserved(SpringBootApp app) {
+        Long generation = app.getMetadata().getGeneration();
+        SpringBootAppStatus status = app.getStatus();
+        return generation != null
+                && status != null
+                && generation.equals(status.getObservedGeneration());
+    }
+}
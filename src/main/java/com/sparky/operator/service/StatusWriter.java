@@ -0,0 +1,117 @@
+package com.sparky.operator.service;
+
+import com.sparky.operator.crd.SpringBootApp;
+import com.sparky.operator.crd.SpringBootAppStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+
+/**
+ * накопичує зміни статусу протягом одного примирення і записує їх одним merge patch-ем
+ * accumulates status changes during one reconcile and writes them as a single merge patch
+ * накапливает изменения статуса в течение одного примирения и записывает их одним merge patch-ем
+ *
+ * кроки примирення виконуються паралельно, тому всі методи синхронізовані
+ * reconcile steps run in parallel, so all methods are synchronized
+ * шаги примирения выполняются параллельно, поэтому все методы синхронизированы
+ */
+public class StatusWriter {
+    private static final Logger logger = LoggerFactory.getLogger(StatusWriter.class);
+    
+    private final StatusService statusService;
+    private final SpringBootApp app;
+    
+    // статус з кешу інформера, з яким порівнюються зміни
+    // status from the informer cache the changes are compared against
+    // статус из кэша информера, с которым сравниваются изменения
+    private final SpringBootAppStatus current;
+    
+    // ще не записані зміни; null означає "не змінювати"
+    // changes not yet written; null means "leave unchanged"
+    // еще не записанные изменения; null означает "не изменять"
+    private SpringBootAppStatus pending = new SpringBootAppStatus();
+    
+    StatusWriter(StatusService statusService, SpringBootApp app) {
+        this.statusService = statusService;
+        this.app = app;
+        this.current = app.getStatus() != null ? app.getStatus() : new SpringBootAppStatus();
+    }
+    
+    /**
+     * фаза та повідомлення про стан
+     * phase and state message
+     * фаза и сообщение о состоянии
+     */
+    public synchronized StatusWriter phase(String phase, String message) {
+        pending.setPhase(phase);
+        pending.setMessage(message);
+        return this;
+    }
+    
+    /**
+     * ідентифікатор та ендпоінт бази даних aws
+     * aws database identifier and endpoint
+     * идентификатор и эндпоинт базы данных aws
+     */
+    public synchronized StatusWriter database(String databaseId, String databaseEndpoint) {
+        pending.setDatabaseId(databaseId);
+        pending.setDatabaseEndpoint(databaseEndpoint);
+        return this;
+    }
+    
+    /**
+     * покоління специфікації, яке застосовано
+     * spec generation that has been applied
+     * поколение спецификации, которое применено
+     */
+    public synchronized StatusWriter observedGeneration(Long observedGeneration) {
+        pending.setObservedGeneration(observedGeneration);
+        return this;
+    }
+    
+    /**
+     * записує лише ті поля, що відрізняються від статусу в кеші
+     * writes only the fields that differ from the cached status
+     * записывает только те поля, которые отличаются от статуса в кэше
+     *
+     * @return true, якщо запис відбувся / true if a write happened / true, если запись произошла
+     */
+    public synchronized boolean flush() {
+        SpringBootAppStatus patch = new SpringBootAppStatus();
+        boolean changed = false;
+        
+        if (pending.getPhase() != null && !Objects.equals(pending.getPhase(), current.getPhase())) {
+            patch.setPhase(pending.getPhase());
+            changed = true;
+        }
+        if (pending.getMessage() != null && !Objects.equals(pending.getMessage(), current.getMessage())) {
+            patch.setMessage(pending.getMessage());
+            changed = true;
+        }
+        if (pending.getDatabaseId() != null && !Objects.equals(pending.getDatabaseId(), current.getDatabaseId())) {
+            patch.setDatabaseId(pending.getDatabaseId());
+            changed = true;
+        }
+        if (pending.getDatabaseEndpoint() != null && !Objects.equals(pending.getDatabaseEndpoint(), current.getDatabaseEndpoint())) {
+            patch.setDatabaseEndpoint(pending.getDatabaseEndpoint());
+            changed = true;
+        }
+        if (pending.getObservedGeneration() != null && !Objects.equals(pending.getObservedGeneration(), current.getObservedGeneration())) {
+            patch.setObservedGeneration(pending.getObservedGeneration());
+            changed = true;
+        }
+        pending = new SpringBootAppStatus();
+        
+        // обчислений статус збігається з кешованим - запис не потрібен
+        // the computed status equals the cached one - no write needed
+        // вычисленный статус совпадает с кэшированным - запись не нужна
+        if (!changed) {
+            logger.debug("статус не змінився для {}", app.getMetadata().getName()); // status unchanged
+            return false;
+        }
+        
+        statusService.patchStatus(app, patch);
+        return true;
+    }
+}
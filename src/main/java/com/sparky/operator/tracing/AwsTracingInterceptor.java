@@ -0,0 +1,56 @@
+package com.sparky.operator.tracing;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+
+/**
+ * дочірній спан на кожен виклик aws всередині примирення, разом з повторами sdk;
+ * фонове опитування rds поза примиренням не трасується
+ * a child span for every aws call inside a reconcile, including sdk retries;
+ * background rds polling outside a reconcile is not traced
+ * дочерний спан на каждый вызов aws внутри примирения, вместе с повторами sdk;
+ * фоновый опрос rds вне примирения не трассируется
+ */
+public class AwsTracingInterceptor implements ExecutionInterceptor {
+    private static final ExecutionAttribute<Span> SPAN = new ExecutionAttribute<>("SparkySpan");
+    
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes attributes) {
+        if (!Span.current().getSpanContext().isValid()) {
+            return;
+        }
+        
+        String service = attributes.getOptionalAttribute(SdkExecutionAttribute.SERVICE_NAME).orElse("unknown");
+        String operation = attributes.getOptionalAttribute(SdkExecutionAttribute.OPERATION_NAME).orElse("unknown");
+        attributes.putAttribute(SPAN, Tracing.tracer().spanBuilder(service + "." + operation)
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("rpc.system", "aws-api")
+                .setAttribute("rpc.service", service)
+                .setAttribute("rpc.method", operation)
+                .startSpan());
+    }
+    
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes attributes) {
+        Span span = attributes.getAttribute(SPAN);
+        if (span != null) {
+            span.end();
+        }
+    }
+    
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes attributes) {
+        Span span = attributes.getAttribute(SPAN);
+        if (span != null) {
+            span.recordException(context.exception());
+            span.setStatus(StatusCode.ERROR, context.exception().getMessage());
+            span.end();
+        }
+    }
+}
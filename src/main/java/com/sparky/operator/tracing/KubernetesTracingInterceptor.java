@@ -0,0 +1,111 @@
+package com.sparky.operator.tracing;
+
+import com.sparky.operator.metrics.KubernetesMetricsInterceptor;
+import io.fabric8.kubernetes.client.http.AsyncBody;
+import io.fabric8.kubernetes.client.http.BasicBuilder;
+import io.fabric8.kubernetes.client.http.HttpRequest;
+import io.fabric8.kubernetes.client.http.HttpResponse;
+import io.fabric8.kubernetes.client.http.Interceptor;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * дочірній спан на кожен запит до api кубернетеса всередині примирення; запити інформерів поза примиренням не трасуються
+ * a child span for every kubernetes api request inside a reconcile; informer requests outside a reconcile are not traced
+ * дочерний спан на каждый запрос к api кубернетеса внутри примирения; запросы информеров вне примирения не трассируются
+ *
+ * контекст спану йде в заголовку traceparent: api-сервер з увімкненим трасуванням продовжує той самий trace,
+ * а after() за ним знаходить відкритий спан
+ * the span context travels in the traceparent header: an api server with tracing enabled continues the same trace,
+ * and after() uses it to find the open span
+ * контекст спана идет в заголовке traceparent: api-сервер с включенной трассировкой продолжает тот же trace,
+ * а after() по нему находит открытый спан
+ */
+public class KubernetesTracingInterceptor implements Interceptor {
+    public static final String NAME = "sparky-tracing";
+    
+    private static final String TRACEPARENT = "traceparent";
+    
+    // відкриті спани за span_id; з'єднання, що обірвалося, не викликає after(), тому застарілі спани прибираються
+    // open spans by span_id; a dropped connection never calls after(), so stale spans are swept
+    // открытые спаны по span_id; оборвавшееся соединение не вызывает after(), поэтому устаревшие спаны убираются
+    private static final int SWEEP_THRESHOLD = 1024;
+    private static final long STALE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private final Map<String, OpenSpan> open = new ConcurrentHashMap<>();
+    
+    @Override
+    public void before(BasicBuilder builder, HttpRequest request, RequestTags tags) {
+        if (!Span.current().getSpanContext().isValid()) {
+            return;
+        }
+        
+        Span span = Tracing.tracer().spanBuilder(request.method() + " " + KubernetesMetricsInterceptor.resourceOf(request.uri()))
+                .setSpanKind(SpanKind.CLIENT)
+                .setAttribute("http.request.method", request.method())
+                .setAttribute("url.full", request.uri().toString())
+                .startSpan();
+        W3CTraceContextPropagator.getInstance().inject(Context.current().with(span), builder, BasicBuilder::setHeader);
+        
+        if (open.size() > SWEEP_THRESHOLD) {
+            sweep();
+        }
+        open.put(span.getSpanContext().getSpanId(), new OpenSpan(span));
+    }
+    
+    @Override
+    public void after(HttpRequest request, HttpResponse<?> response, AsyncBody.Consumer<List<ByteBuffer>> consumer) {
+        OpenSpan opened = take(request);
+        if (opened == null) {
+            return;
+        }
+        
+        opened.span.setAttribute("http.response.status_code", response.code());
+        if (response.code() >= 400) {
+            opened.span.setStatus(StatusCode.ERROR);
+        }
+        opened.span.end();
+    }
+    
+    /**
+     * спан запиту за span_id з заголовка traceparent (00-trace_id-span_id-flags)
+     * the request span by the span_id from the traceparent header (00-trace_id-span_id-flags)
+     * спан запроса по span_id из заголовка traceparent (00-trace_id-span_id-flags)
+     */
+    private OpenSpan take(HttpRequest request) {
+        String traceparent = request.header(TRACEPARENT);
+        if (traceparent == null || traceparent.length() < 52) {
+            return null;
+        }
+        return open.remove(traceparent.substring(36, 52));
+    }
+    
+    private void sweep() {
+        long now = System.nanoTime();
+        open.values().removeIf(opened -> {
+            if (now - opened.startedAt < STALE_NANOS) {
+                return false;
+            }
+            opened.span.setStatus(StatusCode.ERROR, "no response");
+            opened.span.end();
+            return true;
+        });
+    }
+    
+    private static final class OpenSpan {
+        private final Span span;
+        private final long startedAt = System.nanoTime();
+        
+        private OpenSpan(Span span) {
+            this.span = span;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.sparky.operator.tracing;
+
+import com.sparky.operator.config.OperatorConfig;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.TracerProvider;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * трасування примирень: кореневий спан на примирення, дочірній на кожен крок і на кожен запит до кубернетеса чи aws
+ * reconcile tracing: a root span per reconcile, a child per step and per kubernetes or aws request
+ * трассировка примирений: корневой спан на примирение, дочерний на каждый шаг и на каждый запрос к кубернетесу или aws
+ *
+ * спани йдуть через otlp/http на колектор або, якщо колектора немає, рядками json у локальний файл;
+ * без жодного з них трасер порожній і спани нічого не коштують
+ * spans go over otlp/http to a collector or, when there is no collector, as json lines to a local file;
+ * with neither of them the tracer is a no-op and spans cost nothing
+ * спаны идут через otlp/http на коллектор или, если коллектора нет, строками json в локальный файл;
+ * без них обоих трассировщик пустой и спаны ничего не стоят
+ */
+public class Tracing implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(Tracing.class);
+    
+    public static final String INSTRUMENTATION_NAME = "com.sparky.operator";
+    
+    private static final Tracer NOOP = TracerProvider.noop().get(INSTRUMENTATION_NAME);
+    
+    // трасер поточного оператора; інтерцептори клієнтів беруть його звідси
+    // tracer of the current operator; the client interceptors take it from here
+    // трассировщик текущего оператора; интерцепторы клиентов берут его отсюда
+    private static volatile Tracer tracer = NOOP;
+    
+    private final SdkTracerProvider provider;
+    
+    private Tracing(SdkTracerProvider provider) {
+        this.provider = provider;
+    }
+    
+    /**
+     * вмикає трасування за налаштуваннями; без колектора і файлу повертає вимкнене
+     * enables tracing from the settings; without a collector and a file returns a disabled one
+     * включает трассировку по настройкам; без коллектора и файла возвращает выключенную
+     */
+    public static Tracing start(OperatorConfig config) {
+        SpanExporter exporter;
+        if (config.getOtlpEndpoint() != null) {
+            exporter = OtlpHttpSpanExporter.builder().setEndpoint(config.getOtlpEndpoint()).build();
+            logger.info("трасування: otlp {}", config.getOtlpEndpoint()); // tracing: otlp endpoint
+        } else if (config.getTraceFile() != null) {
+            exporter = new FileSpanExporter(Paths.get(config.getTraceFile()));
+            logger.info("трасування: файл {}", config.getTraceFile()); // tracing: file
+        } else {
+            tracer = NOOP;
+            return new Tracing(null);
+        }
+        
+        SdkTracerProvider provider = SdkTracerProvider.builder()
+                .setResource(Resource.getDefault().toBuilder().put("service.name", "sparky-operator").build())
+                .setSampler(Sampler.parentBased(Sampler.traceIdRatioBased(config.getTraceSampleRatio())))
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .build();
+        tracer = provider.get(INSTRUMENTATION_NAME);
+        return new Tracing(provider);
+    }
+    
+    public static Tracer tracer() {
+        return tracer;
+    }
+    
+    /**
+     * виконує дію у власному дочірньому спані поточного контексту; помилка позначає спан і летить далі
+     * runs the action in its own child span of the current context; an error marks the span and is rethrown
+     * выполняет действие в собственном дочернем спане текущего контекста; ошибка отмечает спан и летит дальше
+     */
+    public static void inSpan(String name, Runnable action) {
+        Span span = tracer.spanBuilder(name).startSpan();
+        try (Scope ignored = span.makeCurrent()) {
+            action.run();
+        } catch (RuntimeException e) {
+            span.recordException(e);
+            span.setStatus(StatusCode.ERROR, e.getMessage());
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+    
+    /**
+     * крок графа, що виконується у власному спані
+     * a graph step that runs in its own span
+     * шаг графа, который выполняется в собственном спане
+     */
+    public static Runnable step(String name, Runnable action) {
+        return () -> inSpan(name, action);
+    }
+    
+    /**
+     * відправляє накопичені спани і вимикає трасер
+     * sends the buffered spans and disables the tracer
+     * отправляет накопленные спаны и выключает трассировщик
+     */
+    @Override
+    public void close() {
+        if (provider == null) {
+            return;
+        }
+        tracer = NOOP;
+        provider.shutdown().join(10, TimeUnit.SECONDS);
+    }
+}
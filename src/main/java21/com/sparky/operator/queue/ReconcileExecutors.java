@@ -0,0 +1,71 @@
+package com.sparky.operator.queue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * потоки для робочих циклів і кроків примирення відповідно до режиму SPARKY_EXECUTOR
+ * threads for the worker loops and reconcile steps according to the SPARKY_EXECUTOR mode
+ * потоки для рабочих циклов и шагов примирения в соответствии с режимом SPARKY_EXECUTOR
+ *
+ * версія для java 21: у режимах auto та virtual кожен цикл і кожен крок - окремий віртуальний потік,
+ * тому блокуючі виклики api не тримають потоки ос; platform повертає обмежений пул як на java 11
+ * the java 21 version: in the auto and virtual modes every loop and every step is its own virtual thread,
+ * so blocking api calls hold no os threads; platform keeps the bounded pool as on java 11
+ * версия для java 21: в режимах auto и virtual каждый цикл и каждый шаг - отдельный виртуальный поток,
+ * поэтому блокирующие вызовы api не держат потоки ос; platform оставляет ограниченный пул как на java 11
+ */
+public class ReconcileExecutors {
+    public static final String MODE_AUTO = "auto";
+    public static final String MODE_VIRTUAL = "virtual";
+    public static final String MODE_PLATFORM = "platform";
+    
+    private final boolean virtual;
+    
+    private ReconcileExecutors(boolean virtual) {
+        this.virtual = virtual;
+    }
+    
+    /**
+     * вибирає потоки для режиму auto, virtual або platform
+     * picks the threads for the auto, virtual or platform mode
+     * выбирает потоки для режима auto, virtual или platform
+     */
+    public static ReconcileExecutors forMode(String mode) {
+        return new ReconcileExecutors(!MODE_PLATFORM.equals(mode));
+    }
+    
+    /**
+     * чи працюють цикли та кроки на віртуальних потоках
+     * whether the loops and steps run on virtual threads
+     * работают ли циклы и шаги на виртуальных потоках
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+    
+    /**
+     * фабрика потоків з іменами prefix-0, prefix-1, ...; звичайні потоки фонові, як і віртуальні
+     * factory of threads named prefix-0, prefix-1, ...; platform threads are daemons, like virtual ones
+     * фабрика потоков с именами prefix-0, prefix-1, ...; обычные потоки фоновые, как и виртуальные
+     */
+    public ThreadFactory threadFactory(String prefix) {
+        if (virtual) {
+            return Thread.ofVirtual().name(prefix + "-", 0).factory();
+        }
+        return Thread.ofPlatform().daemon().name(prefix + "-", 0).factory();
+    }
+    
+    /**
+     * виконавець кроків примирення: віртуальний потік на крок або пул з platformThreads потоків
+     * executor for reconcile steps: a virtual thread per step or a pool of platformThreads threads
+     * исполнитель шагов примирения: виртуальный поток на шаг или пул из platformThreads потоков
+     */
+    public ExecutorService stepExecutor(int platformThreads, String prefix) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(threadFactory(prefix));
+        }
+        return Executors.newFixedThreadPool(platformThreads, threadFactory(prefix));
+    }
+}
@@ -0,0 +1,100 @@
+package com.sparky.operator.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * тести графа кроків: порядок залежностей, пропуск після невдачі і порядок результатів
+ * step graph tests: dependency order, skipping after a failure and result order
+ * тесты графа шагов: порядок зависимостей, пропуск после неудачи и порядок результатов
+ */
+class ReconcileGraphTest {
+    private ExecutorService executor;
+    
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    void runsStepAfterItsDependencies() {
+        Queue<String> order = new ConcurrentLinkedQueue<>();
+        new ReconcileGraph()
+                .addStep("config", () -> order.add("config"))
+                .addStep("service", () -> order.add("service"))
+                .addStep("deployment", () -> order.add("deployment"), "config", "service")
+                .execute(executor);
+        
+        assertEquals(3, order.size());
+        assertEquals("deployment", List.copyOf(order).get(2));
+    }
+    
+    @Test
+    void skipsDependentsOfFailedStep() {
+        List<StepResult> results = new ReconcileGraph()
+                .addStep("config", () -> {
+                    throw new IllegalStateException("boom");
+                })
+                .addStep("service", () -> { })
+                .addStep("deployment", () -> { }, "config", "service")
+                .addStep("ingress", () -> { }, "deployment")
+                .addStep("monitoring", () -> { }, "service")
+                .execute(executor);
+        
+        assertEquals(List.of(StepResult.Status.FAILED, StepResult.Status.SUCCEEDED, StepResult.Status.SKIPPED,
+                StepResult.Status.SKIPPED, StepResult.Status.SUCCEEDED),
+                results.stream().map(StepResult::getStatus).collect(Collectors.toList()));
+        assertEquals("boom", results.get(0).getError().getMessage());
+    }
+    
+    @Test
+    void returnsResultsInStepOrder() {
+        // перший крок завершується останнім
+        // the first step finishes last
+        // первый шаг завершается последним
+        CountDownLatch released = new CountDownLatch(1);
+        List<StepResult> results = new ReconcileGraph()
+                .addStep("slow", () -> {
+                    try {
+                        if (!released.await(5, TimeUnit.SECONDS)) {
+                            throw new IllegalStateException("not released");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                })
+                .addStep("fast-1", () -> { })
+                .addStep("fast-2", released::countDown, "fast-1")
+                .execute(executor);
+        
+        assertEquals(List.of("slow", "fast-1", "fast-2"),
+                results.stream().map(StepResult::getStep).collect(Collectors.toList()));
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == StepResult.Status.SUCCEEDED));
+    }
+    
+    @Test
+    void rejectsDuplicateAndUnknownSteps() {
+        ReconcileGraph graph = new ReconcileGraph().addStep("config", () -> { });
+        assertThrows(IllegalArgumentException.class, () -> graph.addStep("config", () -> { }));
+        assertThrows(IllegalArgumentException.class, () -> graph.addStep("deployment", () -> { }, "service"));
+    }
+}
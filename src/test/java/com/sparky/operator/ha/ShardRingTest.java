@@ -0,0 +1,75 @@
+package com.sparky.operator.ha;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * тести кільця шардів: стабільність власників і переїзд лише ключів репліки, що змінилася
+ * shard ring tests: stable owners and moving only the keys of the replica that changed
+ * тесты кольца шардов: стабильность владельцев и переезд только ключей изменившейся реплики
+ */
+class ShardRingTest {
+    private static final int NAMESPACES = 10_000;
+    
+    @Test
+    void givesSameOwnerRegardlessOfMemberOrder() {
+        ShardRing ring = new ShardRing(List.of("replica-a", "replica-b", "replica-c"));
+        ShardRing reordered = new ShardRing(List.of("replica-c", "replica-a", "replica-b"));
+        for (int i = 0; i < NAMESPACES; i++) {
+            assertEquals(ring.ownerOf("ns-" + i), reordered.ownerOf("ns-" + i));
+        }
+        assertNull(new ShardRing(Set.of()).ownerOf("ns-0"));
+    }
+    
+    @Test
+    void movesKeysOnlyToJoinedMember() {
+        Map<String, String> before = owners(new ShardRing(Set.of("replica-a", "replica-b", "replica-c")));
+        Map<String, String> after = owners(new ShardRing(Set.of("replica-a", "replica-b", "replica-c", "replica-d")));
+        
+        int moved = 0;
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = after.get(entry.getKey());
+            if (!owner.equals(entry.getValue())) {
+                assertEquals("replica-d", owner, entry.getKey());
+                moved++;
+            }
+        }
+        
+        // нова репліка забирає приблизно чверть
+        // the new replica takes about a quarter
+        // новая реплика забирает примерно четверть
+        assertTrue(moved > NAMESPACES / 8 && moved < NAMESPACES * 3 / 8, "moved " + moved);
+    }
+    
+    @Test
+    void movesOnlyKeysOfLeftMember() {
+        Map<String, String> before = owners(new ShardRing(Set.of("replica-a", "replica-b", "replica-c")));
+        Map<String, String> after = owners(new ShardRing(Set.of("replica-a", "replica-c")));
+        
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            String owner = after.get(entry.getKey());
+            if (entry.getValue().equals("replica-b")) {
+                assertNotEquals("replica-b", owner);
+            } else {
+                assertEquals(entry.getValue(), owner, entry.getKey());
+            }
+        }
+    }
+    
+    private static Map<String, String> owners(ShardRing ring) {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < NAMESPACES; i++) {
+            owners.put("ns-" + i, ring.ownerOf("ns-" + i));
+        }
+        return owners;
+    }
+}
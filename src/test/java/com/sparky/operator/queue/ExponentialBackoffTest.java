@@ -0,0 +1,62 @@
+package com.sparky.operator.queue;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * тести затримки повторів: подвоєння, обмеження, джитер і скидання
+ * retry delay tests: doubling, cap, jitter and reset
+ * тесты задержки повторов: удвоение, ограничение, джиттер и сброс
+ */
+class ExponentialBackoffTest {
+    @Test
+    void doublesDelayUpToCap() {
+        ExponentialBackoff backoff = new ExponentialBackoff(10, 100, 0);
+        assertEquals(10L, backoff.nextDelayMillis("default/app"));
+        assertEquals(20L, backoff.nextDelayMillis("default/app"));
+        assertEquals(40L, backoff.nextDelayMillis("default/app"));
+        assertEquals(80L, backoff.nextDelayMillis("default/app"));
+        assertEquals(100L, backoff.nextDelayMillis("default/app"));
+        assertEquals(5, backoff.getFailures("default/app"));
+        
+        // багато невдач не переповнюють затримку
+        // many failures do not overflow the delay
+        // много неудач не переполняют задержку
+        for (int i = 0; i < 100; i++) {
+            backoff.nextDelayMillis("default/app");
+        }
+        assertEquals(100L, backoff.nextDelayMillis("default/app"));
+    }
+    
+    @Test
+    void keepsJitterWithinBounds() {
+        ExponentialBackoff backoff = new ExponentialBackoff(1000, 1000, 0.25);
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.nextDelayMillis("default/app");
+            assertTrue(delay >= 750 && delay <= 1000, "delay " + delay);
+        }
+    }
+    
+    @Test
+    void clampsInvalidSettings() {
+        ExponentialBackoff backoff = new ExponentialBackoff(0, -5, 2.0);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1L, backoff.nextDelayMillis("default/app"));
+        }
+    }
+    
+    @Test
+    void countsKeysSeparatelyAndForgets() {
+        ExponentialBackoff backoff = new ExponentialBackoff(10, 100, 0);
+        backoff.nextDelayMillis("default/app-1");
+        backoff.nextDelayMillis("default/app-1");
+        assertEquals(10L, backoff.nextDelayMillis("default/app-2"));
+        
+        backoff.forget("default/app-1");
+        assertEquals(0, backoff.getFailures("default/app-1"));
+        assertEquals(10L, backoff.nextDelayMillis("default/app-1"));
+        assertEquals(1, backoff.getFailures("default/app-2"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.sparky.operator.queue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * тести відра токенів на керованому годиннику: запас, поповнення і черга резервувань
+ * token bucket tests on a controlled clock: burst, refill and queued reservations
+ * тесты ведра токенов на управляемых часах: запас, пополнение и очередь резервирований
+ */
+class TokenBucketTest {
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    
+    @Test
+    void givesBurstWithoutWaiting() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, waitMillis(bucket));
+        }
+        assertEquals(100L, waitMillis(bucket));
+    }
+    
+    @Test
+    void queuesReservationsAtRate() {
+        TokenBucket bucket = new TokenBucket(10, 1, now::get);
+        assertEquals(0L, waitMillis(bucket));
+        
+        // кожен наступний споживач чекає на один інтервал довше
+        // every next consumer waits one interval longer
+        // каждый следующий потребитель ждет на один интервал дольше
+        assertEquals(100L, waitMillis(bucket));
+        assertEquals(200L, waitMillis(bucket));
+        assertEquals(300L, waitMillis(bucket));
+    }
+    
+    @Test
+    void refillsWithElapsedTime() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        for (int i = 0; i < 5; i++) {
+            waitMillis(bucket);
+        }
+        
+        advanceMillis(300);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0L, waitMillis(bucket));
+        }
+        assertEquals(100L, waitMillis(bucket));
+    }
+    
+    @Test
+    void capsRefillAtBurst() {
+        TokenBucket bucket = new TokenBucket(10, 5, now::get);
+        waitMillis(bucket);
+        
+        // довгий простій не накопичує більше за запас
+        // a long idle period does not accumulate more than the burst
+        // долгий простой не накапливает больше запаса
+        advanceMillis(TimeUnit.MINUTES.toMillis(10));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0L, waitMillis(bucket));
+        }
+        assertEquals(100L, waitMillis(bucket));
+    }
+    
+    private void advanceMillis(long millis) {
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+    
+    private static long waitMillis(TokenBucket bucket) {
+        return Math.round(bucket.reserve() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,206 @@
+package com.sparky.operator.queue;
+
+import io.prometheus.client.CollectorRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * тести черги: об'єднання подій, смуги, старіння і квоти просторів імен
+ * queue tests: event merging, lanes, aging and namespace quotas
+ * тесты очереди: объединение событий, полосы, старение и квоты пространств имен
+ */
+class WorkQueueTest {
+    private WorkQueue queue;
+    private ExecutorService waiter;
+    
+    @BeforeEach
+    void setUp() {
+        queue = new WorkQueue(new ExponentialBackoff(10, 100, 0));
+        waiter = Executors.newSingleThreadExecutor();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        queue.shutDown();
+        waiter.shutdownNow();
+    }
+    
+    @Test
+    void mergesRepeatedEventsForOneKey() throws Exception {
+        queue.add("default/app", Priority.RESYNC);
+        queue.add("default/app", Priority.RESYNC);
+        queue.add("default/app", Priority.SPEC);
+        assertEquals(1, queue.size());
+        
+        assertEquals("default/app", queue.get());
+        assertEquals(0, queue.size());
+        
+        // подія під час обробки повертає ключ лише після done()
+        // an event during processing puts the key back only after done()
+        // событие во время обработки возвращает ключ только после done()
+        queue.add("default/app", Priority.DRIFT);
+        queue.add("default/app", Priority.DRIFT);
+        assertEquals(0, queue.size());
+        queue.done("default/app");
+        assertEquals(1, queue.size());
+        assertEquals("default/app", queue.get());
+    }
+    
+    @Test
+    void picksLanesByWeight() throws Exception {
+        int total = 0;
+        for (Priority priority : Priority.values()) {
+            total += priority.getWeight();
+        }
+        for (Priority priority : Priority.values()) {
+            for (int i = 0; i < total; i++) {
+                queue.add(priority.getLabel() + "/app-" + i, priority);
+            }
+        }
+        
+        Map<Priority, Integer> taken = new EnumMap<>(Priority.class);
+        for (int i = 0; i < total; i++) {
+            String key = queue.get();
+            taken.merge(laneOf(key), 1, Integer::sum);
+            queue.done(key);
+        }
+        for (Priority priority : Priority.values()) {
+            assertEquals(priority.getWeight(), taken.getOrDefault(priority, 0).intValue(), priority.getLabel());
+        }
+    }
+    
+    @Test
+    void servesAgedKeyFirst() throws Exception {
+        queue.configureLanes(4, 1.0, 1);
+        queue.add("slow/app", Priority.RESYNC);
+        Thread.sleep(20);
+        for (int i = 0; i < 5; i++) {
+            queue.add("fast/app-" + i, Priority.SPEC);
+        }
+        
+        assertEquals("slow/app", queue.get());
+        assertEquals("fast/app-0", queue.get());
+    }
+    
+    @Test
+    void keepsNamespaceWithinInFlightLimit() throws Exception {
+        queue.configureNamespaces(1, Collections.emptyMap());
+        queue.add("busy/app-1", Priority.SPEC);
+        queue.add("busy/app-2", Priority.SPEC);
+        queue.add("quiet/app-1", Priority.SPEC);
+        
+        assertEquals("busy/app-1", queue.get());
+        assertEquals("quiet/app-1", queue.get());
+        Future<String> next = waiter.submit(queue::get);
+        assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+        
+        queue.done("busy/app-1");
+        assertEquals("busy/app-2", next.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void rotatesNamespacesByWeight() throws Exception {
+        queue.configureNamespaces(Integer.MAX_VALUE, Map.of("heavy", 2));
+        for (int i = 1; i <= 4; i++) {
+            queue.add("heavy/app-" + i, Priority.SPEC);
+        }
+        for (int i = 1; i <= 4; i++) {
+            queue.add("light/app-" + i, Priority.SPEC);
+        }
+        
+        List<String> namespaces = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String key = queue.get();
+            namespaces.add(key.substring(0, key.indexOf('/')));
+        }
+        assertEquals(List.of("heavy", "heavy", "light", "heavy", "heavy", "light", "light", "light"), namespaces);
+    }
+    
+    @Test
+    void capsBackgroundLanesTogether() throws Exception {
+        queue.configureLanes(4, 0.5, TimeUnit.MINUTES.toMillis(1));
+        for (int i = 0; i < 3; i++) {
+            queue.add("retry/app-" + i, Priority.RETRY);
+            queue.add("resync/app-" + i, Priority.RESYNC);
+        }
+        
+        // половина з чотирьох потоків - два фонові ключі на обидві смуги разом
+        // half of four threads - two background keys for both lanes together
+        // половина из четырех потоков - два фоновых ключа на обе полосы вместе
+        assertEquals(Priority.RETRY, laneOf(queue.get()));
+        assertEquals(Priority.RESYNC, laneOf(queue.get()));
+        Future<String> next = waiter.submit(queue::get);
+        assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+        
+        queue.add("spec/app", Priority.SPEC);
+        assertEquals("spec/app", next.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void keepsOneWorkerForSpecAndDrift() throws Exception {
+        queue.configureLanes(2, 1.0, TimeUnit.MINUTES.toMillis(1));
+        queue.add("retry/app-1", Priority.RETRY);
+        queue.add("retry/app-2", Priority.RETRY);
+        
+        assertEquals("retry/app-1", queue.get());
+        Future<String> next = waiter.submit(queue::get);
+        assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+        
+        queue.add("drift/app", Priority.DRIFT);
+        assertEquals("drift/app", next.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void givesSingleWorkerToOneBackgroundKey() throws Exception {
+        queue.configureLanes(1, 0.0, TimeUnit.MINUTES.toMillis(1));
+        queue.add("resync/app-1", Priority.RESYNC);
+        queue.add("resync/app-2", Priority.RESYNC);
+        
+        // єдиний потік не лишається вільним, але фонових ключів в обробці не більше одного
+        // the only thread is not kept free, but at most one background key is in processing
+        // единственный поток не остается свободным, но фоновых ключей в обработке не больше одного
+        assertEquals("resync/app-1", queue.get());
+        Future<String> next = waiter.submit(queue::get);
+        assertThrows(TimeoutException.class, () -> next.get(200, TimeUnit.MILLISECONDS));
+        
+        queue.done("resync/app-1");
+        assertEquals("resync/app-2", next.get(5, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    void dropsMetricsOfIdleNamespaces() throws Exception {
+        queue.add("ci-run-1/app", Priority.SPEC);
+        assertEquals(1.0, namespaceSample("sparky_namespace_queued", "ci-run-1"));
+        
+        assertEquals("ci-run-1/app", queue.get());
+        assertNull(namespaceSample("sparky_namespace_queued", "ci-run-1"));
+        assertEquals(1.0, namespaceSample("sparky_namespace_in_flight", "ci-run-1"));
+        
+        queue.done("ci-run-1/app");
+        assertNull(namespaceSample("sparky_namespace_in_flight", "ci-run-1"));
+    }
+    
+    private static Double namespaceSample(String metric, String namespace) {
+        return CollectorRegistry.defaultRegistry.getSampleValue(metric, new String[] {"namespace"}, new String[] {namespace});
+    }
+    
+    private static Priority laneOf(String key) {
+        return Priority.valueOf(key.substring(0, key.indexOf('/')).toUpperCase());
+    }
+}